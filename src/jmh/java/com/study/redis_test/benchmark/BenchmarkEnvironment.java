@@ -0,0 +1,65 @@
+package com.study.redis_test.benchmark;
+
+import com.study.redis_test.RedisTestApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.MySQLContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 벤치마크용 MySQL/Redis 를 띄우고 그 위에서 애플리케이션 컨텍스트를 만든다.
+// -Pbench.mysql.url / -Pbench.redis.host 를 주면 (포크 JVM 에 -D 로 전달됨) 컨테이너 대신 이미 떠 있는 로컬 인스턴스를 사용한다.
+final class BenchmarkEnvironment implements AutoCloseable {
+    
+    private final List<GenericContainer<?>> containers = new ArrayList<>();
+    private final ConfigurableApplicationContext context;
+    
+    BenchmarkEnvironment() {
+        List<String> properties = new ArrayList<>();
+        properties.add("spring.jpa.show-sql=false");
+        properties.add("logging.level.root=WARN");
+        properties.add("spring.datasource.hikari.maximum-pool-size=64");
+        
+        String mysqlUrl = System.getProperty("bench.mysql.url");
+        if (mysqlUrl == null) {
+            MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0")
+                    .withDatabaseName("redis_test");
+            mysql.start();
+            containers.add(mysql);
+            properties.add("spring.datasource.url=" + mysql.getJdbcUrl());
+            properties.add("spring.datasource.username=" + mysql.getUsername());
+            properties.add("spring.datasource.password=" + mysql.getPassword());
+        } else {
+            properties.add("spring.datasource.url=" + mysqlUrl);
+        }
+        
+        String redisHost = System.getProperty("bench.redis.host");
+        if (redisHost == null) {
+            GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+            redis.start();
+            containers.add(redis);
+            properties.add("spring.data.redis.host=" + redis.getHost());
+            properties.add("spring.data.redis.port=" + redis.getMappedPort(6379));
+        } else {
+            properties.add("spring.data.redis.host=" + redisHost);
+        }
+        
+        context = new SpringApplicationBuilder(RedisTestApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(properties.toArray(new String[0]))
+                .run();
+    }
+    
+    <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+    
+    @Override
+    public void close() {
+        context.close();
+        containers.forEach(GenericContainer::stop);
+    }
+}
@@ -0,0 +1,129 @@
+package com.study.redis_test.benchmark;
+
+import com.study.redis_test.entity.Product;
+import com.study.redis_test.entity.ProductPlain;
+import com.study.redis_test.pessimistic.service.ProductPessimisticService;
+import com.study.redis_test.redislock.service.ProductRedisLockService;
+import com.study.redis_test.repository.ProductPlainRepository;
+import com.study.redis_test.repository.ProductRepository;
+import com.study.redis_test.service.NoLockProductService;
+import com.study.redis_test.service.ProductService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class StockUpdateBenchmark {
+    
+    public enum Strategy {
+        OPTIMISTIC,
+        PESSIMISTIC,
+        REDIS_LOCK,
+        NO_LOCK
+    }
+    
+    public enum KeyDistribution {
+        HOT,
+        SPREAD
+    }
+    
+    private static final int SPREAD_PRODUCT_COUNT = 100;
+    // 측정 도중 재고가 바닥나 실패 경로가 섞이지 않을 만큼만 넉넉히 둔다 (비교 대상이 아니므로 파라미터로 두지 않음)
+    private static final int INITIAL_STOCK = 1_000_000;
+    
+    @Param({"OPTIMISTIC", "PESSIMISTIC", "REDIS_LOCK", "NO_LOCK"})
+    public Strategy strategy;
+    
+    @Param({"HOT", "SPREAD"})
+    public KeyDistribution distribution;
+    
+    private BenchmarkEnvironment environment;
+    private ProductService productService;
+    private ProductPessimisticService pessimisticService;
+    private ProductRedisLockService redisLockService;
+    private NoLockProductService noLockService;
+    private long[] productIds;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = new BenchmarkEnvironment();
+        productService = environment.getBean(ProductService.class);
+        pessimisticService = environment.getBean(ProductPessimisticService.class);
+        redisLockService = environment.getBean(ProductRedisLockService.class);
+        noLockService = environment.getBean(NoLockProductService.class);
+        
+        int productCount = distribution == KeyDistribution.HOT ? 1 : SPREAD_PRODUCT_COUNT;
+        productIds = new long[productCount];
+        String prefix = "BENCH-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+        
+        ProductRepository productRepository = environment.getBean(ProductRepository.class);
+        ProductPlainRepository productPlainRepository = environment.getBean(ProductPlainRepository.class);
+        for (int i = 0; i < productCount; i++) {
+            if (strategy == Strategy.OPTIMISTIC) {
+                productIds[i] = productRepository.save(Product.builder()
+                        .sku(prefix + i)
+                        .name("벤치마크 상품 " + i)
+                        .priceKrw(1000L)
+                        .stockQty(INITIAL_STOCK)
+                        .version(0L)
+                        .build()).getId();
+            } else {
+                productIds[i] = productPlainRepository.save(ProductPlain.builder()
+                        .sku(prefix + i)
+                        .name("벤치마크 상품 " + i)
+                        .priceKrw(1000L)
+                        .stockQty(INITIAL_STOCK)
+                        .build()).getId();
+            }
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public void updateStock_1thread(Blackhole blackhole) {
+        updateStock(blackhole);
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public void updateStock_8threads(Blackhole blackhole) {
+        updateStock(blackhole);
+    }
+    
+    @Benchmark
+    @Threads(32)
+    public void updateStock_32threads(Blackhole blackhole) {
+        updateStock(blackhole);
+    }
+    
+    private void updateStock(Blackhole blackhole) {
+        long id = productIds.length == 1
+                ? productIds[0]
+                : productIds[ThreadLocalRandom.current().nextInt(productIds.length)];
+        
+        try {
+            switch (strategy) {
+                case OPTIMISTIC -> blackhole.consume(productService.updateStock(id, -1));
+                case PESSIMISTIC -> blackhole.consume(pessimisticService.updateStock(id, -1));
+                case REDIS_LOCK -> blackhole.consume(redisLockService.updateStock(id, -1));
+                case NO_LOCK -> blackhole.consume(noLockService.updateStockWithoutLock(id, -1));
+            }
+        } catch (RuntimeException e) {
+            // 재시도 소진, 락 획득 실패, 재고 부족도 실제 비용이므로 측정에 포함한다
+            blackhole.consume(e);
+        }
+    }
+}
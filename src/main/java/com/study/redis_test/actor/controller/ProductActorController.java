@@ -0,0 +1,47 @@
+package com.study.redis_test.actor.controller;
+
+import com.study.redis_test.actor.service.StockActorService;
+import com.study.redis_test.dto.*;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/actor/products")
+@RequiredArgsConstructor
+public class ProductActorController {
+    
+    private final StockActorService stockActorService;
+    
+    // 메일박스 워커가 반영을 끝내면 비동기로 응답한다 (요청 스레드는 기다리지 않음)
+    @PatchMapping("/{id}/stock")
+    public CompletableFuture<ResponseEntity<ProductPlainResponse>> updateStock(
+            @PathVariable Long id,
+            @RequestBody Map<String, Integer> request) {
+        Integer quantity = request.get("quantity");
+        if (quantity == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        
+        return stockActorService.updateStock(id, quantity)
+                .thenApply(ResponseEntity::ok);
+    }
+    
+    @PostMapping("/{id}/concurrent-test")
+    public ResponseEntity<ConcurrentTestResult> testConcurrentStockUpdate(
+            @PathVariable Long id,
+            @Valid @RequestBody ConcurrentTestRequest request) {
+        ConcurrentTestResult result = stockActorService.testConcurrentStockUpdate(id, request);
+        return ResponseEntity.ok(result);
+    }
+    
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+    }
+}
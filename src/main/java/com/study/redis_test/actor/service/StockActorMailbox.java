@@ -0,0 +1,179 @@
+package com.study.redis_test.actor.service;
+
+import com.study.redis_test.dto.ProductPlainResponse;
+import com.study.redis_test.entity.ProductPlain;
+import com.study.redis_test.metrics.StockMetrics;
+import com.study.redis_test.repository.ProductPlainRepository;
+import com.study.redis_test.service.CoalescedStockWriter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockActorMailbox {
+    
+    private static final String LOCK_TYPE = "ACTOR_MAILBOX";
+    
+    private final ProductPlainRepository productRepository;
+    private final CoalescedStockWriter coalescedStockWriter;
+    private final StockMetrics stockMetrics;
+    
+    private final Map<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final AtomicInteger totalDepth = new AtomicInteger();
+    
+    private ExecutorService workers;
+    private volatile boolean running = true;
+    
+    @Value("${stock.actor.threads:8}")
+    private int threads;
+    
+    @Value("${stock.actor.batch-size:200}")
+    private int batchSize;
+    
+    @PostConstruct
+    public void start() {
+        AtomicInteger sequence = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "stock-actor-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        stockMetrics.registerMailboxDepth(LOCK_TYPE, totalDepth::get);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        running = false;
+        workers.shutdown();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    public CompletableFuture<ProductPlainResponse> submit(Long id, Integer quantity) {
+        Command command = new Command(quantity, new CompletableFuture<>());
+        if (!running) {
+            command.future().completeExceptionally(new IllegalStateException("재고 액터가 종료되었습니다"));
+            return command.future();
+        }
+        
+        // 빈 메일박스를 지우는 쪽과 같은 키 잠금 안에서 넣어, 지워진 메일박스에 요청이 남지 않게 한다
+        boolean[] first = {false};
+        Mailbox mailbox = mailboxes.compute(id, (key, existing) -> {
+            Mailbox target = existing == null ? new Mailbox(key) : existing;
+            first[0] = target.depth.incrementAndGet() == 1;
+            target.queue.add(command);
+            return target;
+        });
+        if (first[0]) {
+            stockMetrics.syncMailboxDepth(LOCK_TYPE, "product:" + id, mailbox.depth::get);
+        }
+        totalDepth.incrementAndGet();
+        schedule(mailbox);
+        return command.future();
+    }
+    
+    // 메일박스마다 동시에 하나의 drain 만 예약되므로 같은 상품의 변경은 항상 한 스레드가 순서대로 처리한다
+    private void schedule(Mailbox mailbox) {
+        if (!mailbox.queue.isEmpty() && mailbox.scheduled.compareAndSet(false, true)) {
+            workers.execute(() -> drain(mailbox));
+        }
+    }
+    
+    private void drain(Mailbox mailbox) {
+        List<Command> batch = new ArrayList<>(batchSize);
+        try {
+            Command command;
+            while (batch.size() < batchSize && (command = mailbox.queue.poll()) != null) {
+                batch.add(command);
+            }
+            if (!batch.isEmpty() && mailbox.depth.addAndGet(-batch.size()) == 0) {
+                // 빈 메일박스의 게이지는 지워 상품 수만큼 시계열이 쌓이지 않게 한다
+                stockMetrics.syncMailboxDepth(LOCK_TYPE, "product:" + mailbox.productId, mailbox.depth::get);
+            }
+            totalDepth.addAndGet(-batch.size());
+            
+            if (!batch.isEmpty()) {
+                stockMetrics.recordDrainBatchSize(LOCK_TYPE, batch.size());
+                apply(mailbox.productId, batch);
+            }
+        } catch (Exception e) {
+            log.error("재고 액터 처리 중 오류 발생: 상품ID={}", mailbox.productId, e);
+            batch.forEach(command -> command.future().completeExceptionally(e));
+        } finally {
+            // 한 번에 batch-size 까지만 처리하고 양보해 다른 상품의 메일박스가 굶지 않게 한다
+            mailbox.scheduled.set(false);
+            removeIfIdle(mailbox);
+            schedule(mailbox);
+        }
+    }
+    
+    // 비었고 예약된 drain 도 없는 메일박스는 지워 상품 수만큼 쌓이지 않게 한다. 다음 요청은 새 메일박스를 만든다
+    private void removeIfIdle(Mailbox mailbox) {
+        mailboxes.computeIfPresent(mailbox.productId, (key, existing) ->
+                existing == mailbox && mailbox.queue.isEmpty() && !mailbox.scheduled.get() ? null : existing);
+    }
+    
+    // 판정과 반영은 저널과 같은 CoalescedStockWriter 로 한다. 합친 변경량을 조건부 UPDATE 한 문장으로 더하므로
+    // 다른 인스턴스나 다른 전략이 같은 행을 바꿔도 그 값 위에서 요청별로 판정한다
+    private void apply(Long id, List<Command> batch) {
+        List<CoalescedStockWriter.Outcome> outcomes;
+        ProductPlain product;
+        try {
+            outcomes = coalescedStockWriter.apply(id, batch.stream().map(Command::quantity).toList());
+            product = productRepository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
+        } catch (Exception e) {
+            batch.forEach(command -> command.future().completeExceptionally(e));
+            return;
+        }
+        
+        log.debug("재고 액터 반영: 상품ID={}, 요청수={}", id, batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            CompletableFuture<ProductPlainResponse> future = batch.get(i).future();
+            CoalescedStockWriter.Outcome outcome = outcomes.get(i);
+            if (outcome.applied()) {
+                ProductPlainResponse response = ProductPlainResponse.from(product);
+                response.setStockQty(outcome.stockQty());
+                future.complete(response);
+            } else {
+                future.completeExceptionally(new IllegalArgumentException(outcome.rejection()));
+            }
+        }
+    }
+    
+    private static final class Mailbox {
+        
+        private final Long productId;
+        private final Queue<Command> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        
+        private Mailbox(Long productId) {
+            this.productId = productId;
+        }
+    }
+    
+    private record Command(Integer quantity, CompletableFuture<ProductPlainResponse> future) {
+    }
+}
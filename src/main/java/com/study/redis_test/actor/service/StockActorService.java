@@ -0,0 +1,57 @@
+package com.study.redis_test.actor.service;
+
+import com.study.redis_test.cache.service.ProductCacheService;
+import com.study.redis_test.dto.*;
+import com.study.redis_test.harness.ConcurrentTestRunner;
+import com.study.redis_test.repository.ProductPlainRepository;
+import com.study.redis_test.soldout.service.SoldOutRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockActorService {
+    
+    private final ProductPlainRepository productRepository;
+    private final StockActorMailbox stockActorMailbox;
+    private final ConcurrentTestRunner concurrentTestRunner;
+    private final SoldOutRegistry soldOutRegistry;
+    
+    // 호출 스레드는 트랜잭션도 락도 잡지 않고 메일박스에 넣은 뒤 바로 반환한다
+    public CompletableFuture<ProductPlainResponse> updateStock(Long id, Integer quantity) {
+        try {
+            soldOutRegistry.checkAvailable(ProductCacheService.PLAIN, id, quantity);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return stockActorMailbox.submit(id, quantity).thenApply(response -> {
+            soldOutRegistry.onStockChanged(ProductCacheService.PLAIN, id, response.getStockQty() - quantity,
+                    response.getStockQty());
+            return response;
+        });
+    }
+    
+    public ConcurrentTestResult testConcurrentStockUpdate(Long id, ConcurrentTestRequest request) {
+        return concurrentTestRunner.run(request, 10, "ACTOR_MAILBOX",
+                () -> awaitStockUpdate(id, request.getQuantity()),
+                () -> productRepository.findStockQtyById(id)
+                        .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id)));
+    }
+    
+    // 완료를 기다리는 호출자용. 실패 원인을 그대로 던져 오류 분류가 다른 전략과 같게 한다
+    public ProductPlainResponse awaitStockUpdate(Long id, Integer quantity) {
+        try {
+            return updateStock(id, quantity).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.study.redis_test.cache.controller;
+
+import com.study.redis_test.cache.service.ProductCacheService;
+import com.study.redis_test.dto.CacheStatsResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+public class ProductCacheController {
+    
+    private final ProductCacheService productCacheService;
+    
+    @GetMapping("/stats")
+    public ResponseEntity<CacheStatsResponse> getStats() {
+        return ResponseEntity.ok(productCacheService.getStats());
+    }
+}
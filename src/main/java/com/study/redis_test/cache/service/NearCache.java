@@ -0,0 +1,194 @@
+package com.study.redis_test.cache.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NearCache {
+    
+    public enum StockMode {
+        INVALIDATE,
+        SHORT_TTL
+    }
+    
+    private static final String INVALIDATION_TOPIC = "product:cache:invalidation";
+    private static final String FULL_PREFIX = "ALL|";
+    private static final String STOCK_PREFIX = "STOCK|";
+    
+    private final RedissonClient redissonClient;
+    
+    // 무효화가 일어날 때마다 증가시켜, L2 조회 중에 무효화된 값이 L1에 들어가지 않게 한다.
+    // 비교는 키별로 하므로 다른 상품의 무효화는 이 상품의 L1 채우기를 막지 않는다
+    private final AtomicLong invalidationSequence = new AtomicLong();
+    
+    // 크기 제한이나 만료로 지워진 키별 기록 중 가장 큰 순번. 기록이 없는 키는 이 값과 비교해 보수적으로 거절한다
+    private final AtomicLong evictedSequence = new AtomicLong();
+    
+    private Cache<String, Object> cache;
+    private Cache<String, Long> invalidatedAt;
+    private RTopic topic;
+    private int listenerId;
+    
+    @Value("${product.cache.near.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${product.cache.near.maximum-size:10000}")
+    private long maximumSize;
+    
+    @Value("${product.cache.near.ttl-seconds:30}")
+    private long ttlSeconds;
+    
+    @Value("${product.cache.near.stock-mode:SHORT_TTL}")
+    private StockMode stockMode;
+    
+    @Value("${product.cache.near.stock-ttl-ms:500}")
+    private long stockTtlMs;
+    
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, Object>() {
+                    @Override
+                    public long expireAfterCreate(String key, Object value, long currentTime) {
+                        return ttl.toNanos();
+                    }
+                    
+                    @Override
+                    public long expireAfterUpdate(String key, Object value, long currentTime, long currentDuration) {
+                        return ttl.toNanos();
+                    }
+                    
+                    @Override
+                    public long expireAfterRead(String key, Object value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        invalidatedAt = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .evictionListener((String key, Long sequence, RemovalCause cause) ->
+                        evictedSequence.accumulateAndGet(sequence, Math::max))
+                .build();
+        
+        topic = redissonClient.getTopic(INVALIDATION_TOPIC, StringCodec.INSTANCE);
+        listenerId = topic.addListener(String.class, (channel, message) -> onMessage(message));
+    }
+    
+    @PreDestroy
+    public void destroy() {
+        if (topic != null) {
+            topic.removeListener(listenerId);
+        }
+    }
+    
+    public long currentSequence() {
+        return invalidationSequence.get();
+    }
+    
+    public <T> T get(String key, Class<T> type) {
+        if (cache == null) {
+            return null;
+        }
+        Object value = cache.getIfPresent(key);
+        return type.isInstance(value) ? type.cast(value) : null;
+    }
+    
+    // 같은 키의 무효화와 compute 로 직렬화되므로, 순번 확인과 넣기 사이에 무효화가 끼어들지 못한다
+    public void put(String key, Object value, long observedSequence) {
+        if (cache == null) {
+            return;
+        }
+        cache.asMap().compute(key, (k, current) -> {
+            Long invalidated = invalidatedAt.getIfPresent(k);
+            long lastInvalidated = invalidated != null ? invalidated : evictedSequence.get();
+            return lastInvalidated > observedSequence ? current : value;
+        });
+    }
+    
+    public void invalidate(String key) {
+        invalidateLocal(key);
+        publish(FULL_PREFIX + key);
+    }
+    
+    public void invalidateStock(String key) {
+        invalidateStockLocal(key);
+        publish(STOCK_PREFIX + key);
+    }
+    
+    public long size() {
+        return cache == null ? 0 : cache.estimatedSize();
+    }
+    
+    private void publish(String message) {
+        if (topic == null) {
+            return;
+        }
+        try {
+            topic.publishAsync(message);
+        } catch (Exception e) {
+            log.warn("L1 캐시 무효화 전파 실패: {}", e.getMessage());
+        }
+    }
+    
+    private void onMessage(String message) {
+        if (message.startsWith(STOCK_PREFIX)) {
+            invalidateStockLocal(message.substring(STOCK_PREFIX.length()));
+        } else if (message.startsWith(FULL_PREFIX)) {
+            invalidateLocal(message.substring(FULL_PREFIX.length()));
+        }
+    }
+    
+    private void invalidateLocal(String key) {
+        if (cache == null) {
+            return;
+        }
+        markInvalidated(key);
+        cache.invalidate(key);
+    }
+    
+    private void invalidateStockLocal(String key) {
+        if (cache == null) {
+            return;
+        }
+        if (stockMode == StockMode.INVALIDATE) {
+            invalidateLocal(key);
+            return;
+        }
+        
+        // 이 무효화와 겹친 L2 조회 결과가 전체 TTL 로 L1 에 들어가지 않도록 SHORT_TTL 에서도 순번을 올린다
+        markInvalidated(key);
+        
+        // 상품 정보는 그대로 두고, 재고가 오래 머물지 않도록 남은 수명만 stock-ttl-ms 로 줄인다
+        Duration stockTtl = Duration.ofMillis(stockTtlMs);
+        cache.policy().expireVariably().ifPresent(expiry -> expiry.getExpiresAfter(key)
+                .filter(remaining -> remaining.compareTo(stockTtl) > 0)
+                .ifPresent(remaining -> expiry.setExpiresAfter(key, stockTtl)));
+    }
+    
+    private void markInvalidated(String key) {
+        invalidatedAt.put(key, invalidationSequence.incrementAndGet());
+    }
+}
@@ -0,0 +1,263 @@
+package com.study.redis_test.cache.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.redis_test.datasource.DataSourceRouting;
+import com.study.redis_test.dto.CacheStatsResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductCacheService {
+    
+    public static final String OPTLOCK = "product_optlock";
+    public static final String PLAIN = "product_plain";
+    
+    private static final String KEY_PREFIX = "product:cache:";
+    
+    private static final DefaultRedisScript<Long> CACHE_PUT_SCRIPT = new DefaultRedisScript<>();
+    private static final DefaultRedisScript<Long> CACHE_EVICT_SCRIPT = new DefaultRedisScript<>();
+    
+    static {
+        CACHE_PUT_SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/cache_put.lua")));
+        CACHE_PUT_SCRIPT.setResultType(Long.class);
+        CACHE_EVICT_SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/cache_evict.lua")));
+        CACHE_EVICT_SCRIPT.setResultType(Long.class);
+    }
+    
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final NearCache nearCache;
+    
+    private final LongAdder nearHitCount = new LongAdder();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder staleRejectCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    
+    @Value("${product.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+    
+    public <T> T getById(String table, Long id, Class<T> type, Supplier<T> loader, Function<T, Long> versionOf) {
+        String key = entryKey(table, id);
+        T near = nearCache.get(key, type);
+        if (near != null) {
+            nearHitCount.increment();
+            return near;
+        }
+        
+        long nearSequence = nearCache.currentSequence();
+        T cached = readEntry(table, id, type);
+        if (cached != null) {
+            hitCount.increment();
+            nearCache.put(key, cached, nearSequence);
+            return cached;
+        }
+        
+        missCount.increment();
+        String generation = readGeneration(table, id);
+        T loaded = loadFromPrimary(loader);
+        if (writeEntry(table, id, loaded, versionOf.apply(loaded), generation)) {
+            nearCache.put(key, loaded, nearSequence);
+        }
+        return loaded;
+    }
+    
+    public <T> T getBySku(String table, String sku, Class<T> type, Supplier<T> loader,
+                          Function<T, Long> idOf, Function<T, Long> versionOf) {
+        Long id = readSkuIndex(table, sku);
+        if (id != null) {
+            String key = entryKey(table, id);
+            T near = nearCache.get(key, type);
+            if (near != null) {
+                nearHitCount.increment();
+                return near;
+            }
+            
+            long nearSequence = nearCache.currentSequence();
+            T cached = readEntry(table, id, type);
+            if (cached != null) {
+                hitCount.increment();
+                nearCache.put(key, cached, nearSequence);
+                return cached;
+            }
+        }
+        
+        missCount.increment();
+        String generation = id == null ? null : readGeneration(table, id);
+        T loaded = loadFromPrimary(loader);
+        Long loadedId = idOf.apply(loaded);
+        
+        // 세대를 DB 조회 전에 읽은 경우에만 엔트리를 채운다 (처음 보는 SKU는 인덱스만 기록)
+        if (id != null && id.equals(loadedId)) {
+            writeEntry(table, loadedId, loaded, versionOf.apply(loaded), generation);
+        } else {
+            writeSkuIndex(table, sku, loadedId);
+        }
+        return loaded;
+    }
+    
+    public void evict(String table, Long id) {
+        runAfterCommit(() -> {
+            evictNow(table, id);
+            nearCache.invalidate(entryKey(table, id));
+        });
+    }
+    
+    // 재고만 바뀐 경우 L1은 product.cache.near.stock-mode 에 따라 제거하거나 수명만 줄인다
+    public void evictStock(String table, Long id) {
+        runAfterCommit(() -> {
+            evictNow(table, id);
+            nearCache.invalidateStock(entryKey(table, id));
+        });
+    }
+    
+    public CacheStatsResponse getStats() {
+        long nearHits = nearHitCount.sum();
+        long hits = hitCount.sum();
+        long misses = missCount.sum();
+        long total = nearHits + hits + misses;
+        
+        return CacheStatsResponse.builder()
+                .nearHitCount(nearHits)
+                .nearSize(nearCache.size())
+                .hitCount(hits)
+                .missCount(misses)
+                .evictionCount(evictionCount.sum())
+                .staleRejectCount(staleRejectCount.sum())
+                .errorCount(errorCount.sum())
+                .hitRatio(total == 0 ? 0.0 : (double) (nearHits + hits) / total)
+                .build();
+    }
+    
+    // 트랜잭션 안에서 호출되면 커밋 이후에 무효화해야 커밋 전 값이 다시 캐시되지 않는다
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+            return;
+        }
+        action.run();
+    }
+    
+    // 채운 값은 TTL 동안 모든 노드가 읽으므로 복제본에서 읽지 않는다. 무효화 뒤에 읽은 세대는 통과하므로
+    // 지연된 복제본의 옛 값이 그대로 저장되고, PLAIN 은 버전 비교도 없어 걸러지지 않는다
+    private static <T> T loadFromPrimary(Supplier<T> loader) {
+        return DataSourceRouting.readFromPrimary(loader);
+    }
+    
+    private void evictNow(String table, Long id) {
+        try {
+            Long deleted = stringRedisTemplate.execute(
+                    CACHE_EVICT_SCRIPT,
+                    List.of(entryKey(table, id), generationKey(table, id)),
+                    String.valueOf(ttlSeconds * 2));
+            if (deleted != null && deleted > 0) {
+                evictionCount.increment();
+            }
+        } catch (Exception e) {
+            errorCount.increment();
+            log.warn("캐시 무효화 실패: table={}, id={}, error={}", table, id, e.getMessage());
+        }
+    }
+    
+    private <T> T readEntry(String table, Long id, Class<T> type) {
+        try {
+            Object payload = stringRedisTemplate.opsForHash().get(entryKey(table, id), "payload");
+            return payload == null ? null : objectMapper.readValue((String) payload, type);
+        } catch (Exception e) {
+            errorCount.increment();
+            log.warn("캐시 조회 실패: table={}, id={}, error={}", table, id, e.getMessage());
+            return null;
+        }
+    }
+    
+    private String readGeneration(String table, Long id) {
+        try {
+            String generation = stringRedisTemplate.opsForValue().get(generationKey(table, id));
+            return generation == null ? "0" : generation;
+        } catch (Exception e) {
+            errorCount.increment();
+            return null;
+        }
+    }
+    
+    private boolean writeEntry(String table, Long id, Object value, Long version, String generation) {
+        if (generation == null) {
+            return false;
+        }
+        
+        try {
+            Long stored = stringRedisTemplate.execute(
+                    CACHE_PUT_SCRIPT,
+                    List.of(entryKey(table, id), generationKey(table, id)),
+                    objectMapper.writeValueAsString(value),
+                    String.valueOf(version == null ? 0L : version),
+                    String.valueOf(ttlSeconds),
+                    generation);
+            if (stored == null || stored == 0) {
+                staleRejectCount.increment();
+                return false;
+            }
+            return true;
+        } catch (JsonProcessingException e) {
+            errorCount.increment();
+            log.warn("캐시 직렬화 실패: table={}, id={}, error={}", table, id, e.getMessage());
+        } catch (Exception e) {
+            errorCount.increment();
+            log.warn("캐시 저장 실패: table={}, id={}, error={}", table, id, e.getMessage());
+        }
+        return false;
+    }
+    
+    private Long readSkuIndex(String table, String sku) {
+        try {
+            String id = stringRedisTemplate.opsForValue().get(skuKey(table, sku));
+            return id == null ? null : Long.valueOf(id);
+        } catch (Exception e) {
+            errorCount.increment();
+            return null;
+        }
+    }
+    
+    private void writeSkuIndex(String table, String sku, Long id) {
+        try {
+            stringRedisTemplate.opsForValue().set(skuKey(table, sku), String.valueOf(id), Duration.ofSeconds(ttlSeconds));
+        } catch (Exception e) {
+            errorCount.increment();
+        }
+    }
+    
+    private static String entryKey(String table, Long id) {
+        return KEY_PREFIX + table + ":" + id;
+    }
+    
+    private static String generationKey(String table, Long id) {
+        return KEY_PREFIX + table + ":gen:" + id;
+    }
+    
+    private static String skuKey(String table, String sku) {
+        return KEY_PREFIX + table + ":sku:" + sku;
+    }
+}
@@ -0,0 +1,57 @@
+package com.study.redis_test.catalog.controller;
+
+import com.study.redis_test.catalog.service.CatalogImportInProgressException;
+import com.study.redis_test.catalog.service.CatalogImportService;
+import com.study.redis_test.dto.CatalogImportFormat;
+import com.study.redis_test.dto.CatalogImportResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+// 본문을 InputStream 으로 받아 읽는 대로 처리한다 (@RequestBody 처럼 한 번에 역직렬화하지 않음)
+@RestController
+@RequestMapping("/api/catalog")
+@RequiredArgsConstructor
+public class CatalogImportController {
+    
+    private static final String TEXT_CSV_VALUE = "text/csv";
+    
+    private final CatalogImportService catalogImportService;
+    
+    @PostMapping(value = "/import", consumes = TEXT_CSV_VALUE)
+    public ResponseEntity<CatalogImportResult> importCsv(
+            @RequestParam String table,
+            @RequestParam(required = false) String importId,
+            InputStream body) throws IOException {
+        CatalogImportResult result = catalogImportService.importCatalog(importId, table, CatalogImportFormat.CSV, body);
+        return ResponseEntity.ok(result);
+    }
+    
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<CatalogImportResult> importNdjson(
+            @RequestParam String table,
+            @RequestParam(required = false) String importId,
+            InputStream body) throws IOException {
+        CatalogImportResult result = catalogImportService.importCatalog(importId, table, CatalogImportFormat.NDJSON, body);
+        return ResponseEntity.ok(result);
+    }
+    
+    // 요청이 잘못된 것이 아니라 같은 importId 의 실행과 겹친 것이므로 409 로 응답한다. 끝난 뒤 다시 보내면 이어서 처리된다
+    @ExceptionHandler(CatalogImportInProgressException.class)
+    public ResponseEntity<Map<String, String>> handleInProgress(CatalogImportInProgressException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", e.getMessage()));
+    }
+    
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+    }
+}
@@ -0,0 +1,80 @@
+package com.study.redis_test.catalog.service;
+
+import com.study.redis_test.dto.CatalogImportFormat;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+
+// 가져오기 진행 상황을 importId 별로 Redis 해시에 남겨, 중간에 끊겨도 같은 본문을 다시 보내면 커밋된 행 다음부터 이어서 처리한다
+@Component
+@RequiredArgsConstructor
+public class CatalogImportCheckpointStore {
+    
+    private static final String KEY_PREFIX = "catalog:import:";
+    private static final String RUNNING_SUFFIX = ":running";
+    
+    private final StringRedisTemplate stringRedisTemplate;
+    
+    @Value("${catalog.import.checkpoint-ttl-hours:24}")
+    private long checkpointTtlHours;
+    
+    // 실행 중 표시는 청크를 커밋할 때마다 연장하므로, 프로세스가 죽으면 이 시간이 지난 뒤 다시 실행할 수 있다
+    @Value("${catalog.import.running-ttl-seconds:60}")
+    private long runningTtlSeconds;
+    
+    // 같은 importId 로 동시에 두 번 실행되지 않게 한다
+    public boolean tryStart(String importId) {
+        return Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                .setIfAbsent(runningKey(importId), "1", Duration.ofSeconds(runningTtlSeconds)));
+    }
+    
+    public void finish(String importId) {
+        stringRedisTemplate.delete(runningKey(importId));
+    }
+    
+    public Checkpoint load(String importId) {
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(KEY_PREFIX + importId);
+        if (entries.isEmpty()) {
+            return null;
+        }
+        return new Checkpoint(
+                (String) entries.get("table"),
+                CatalogImportFormat.valueOf((String) entries.get("format")),
+                Long.parseLong((String) entries.get("committedRows")),
+                Long.parseLong((String) entries.get("insertedCount")),
+                Long.parseLong((String) entries.get("duplicateCount")),
+                Long.parseLong((String) entries.get("invalidCount")),
+                Boolean.parseBoolean((String) entries.get("completed")));
+    }
+    
+    public void save(String importId, Checkpoint checkpoint) {
+        String key = KEY_PREFIX + importId;
+        stringRedisTemplate.opsForHash().putAll(key, Map.of(
+                "table", checkpoint.table(),
+                "format", checkpoint.format().name(),
+                "committedRows", String.valueOf(checkpoint.committedRows()),
+                "insertedCount", String.valueOf(checkpoint.insertedCount()),
+                "duplicateCount", String.valueOf(checkpoint.duplicateCount()),
+                "invalidCount", String.valueOf(checkpoint.invalidCount()),
+                "completed", String.valueOf(checkpoint.completed())));
+        stringRedisTemplate.expire(key, Duration.ofHours(checkpointTtlHours));
+        stringRedisTemplate.expire(runningKey(importId), Duration.ofSeconds(runningTtlSeconds));
+    }
+    
+    private static String runningKey(String importId) {
+        return KEY_PREFIX + importId + RUNNING_SUFFIX;
+    }
+    
+    public record Checkpoint(String table,
+                             CatalogImportFormat format,
+                             long committedRows,
+                             long insertedCount,
+                             long duplicateCount,
+                             long invalidCount,
+                             boolean completed) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.study.redis_test.catalog.service;
+
+// 같은 importId 의 가져오기가 다른 요청에서 아직 진행 중인 경우
+public class CatalogImportInProgressException extends RuntimeException {
+    
+    public CatalogImportInProgressException(String importId) {
+        super("이미 진행 중인 가져오기입니다: " + importId);
+    }
+}
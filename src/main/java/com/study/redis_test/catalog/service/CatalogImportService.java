@@ -0,0 +1,230 @@
+package com.study.redis_test.catalog.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.redis_test.cache.service.ProductCacheService;
+import com.study.redis_test.catalog.service.CatalogImportCheckpointStore.Checkpoint;
+import com.study.redis_test.dto.CatalogImportFormat;
+import com.study.redis_test.dto.CatalogImportResult;
+import com.study.redis_test.dto.ProductCreateRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+// 대량 상품 등록. IDENTITY 키라 Hibernate 가 INSERT 를 묶지 못하므로 JDBC 로 여러 행 INSERT 를 직접 만들고,
+// 청크마다 트랜잭션을 끊어 커밋한 행 수를 체크포인트로 남긴다
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogImportService {
+    
+    private static final int MAX_INVALID_SAMPLES = 100;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final CatalogImportCheckpointStore checkpointStore;
+    
+    // 한 트랜잭션에서 처리하는 행 수
+    @Value("${catalog.import.chunk-size:5000}")
+    private int chunkSize;
+    
+    // INSERT 문 하나에 넣는 행 수
+    @Value("${catalog.import.insert-batch-size:500}")
+    private int insertBatchSize;
+    
+    public CatalogImportResult importCatalog(String importId, String table, CatalogImportFormat format,
+                                             InputStream body) throws IOException {
+        if (!ProductCacheService.OPTLOCK.equals(table) && !ProductCacheService.PLAIN.equals(table)) {
+            throw new IllegalArgumentException("지원하지 않는 테이블입니다: " + table);
+        }
+        String id = importId == null || importId.isBlank() ? UUID.randomUUID().toString() : importId;
+        if (!checkpointStore.tryStart(id)) {
+            throw new CatalogImportInProgressException(id);
+        }
+        
+        try {
+            Checkpoint checkpoint = checkpointStore.load(id);
+            if (checkpoint == null) {
+                checkpoint = new Checkpoint(table, format, 0, 0, 0, 0, false);
+            } else if (!checkpoint.table().equals(table) || checkpoint.format() != format) {
+                throw new IllegalArgumentException("같은 importId 로 다른 테이블이나 형식을 가져올 수 없습니다: " + id);
+            }
+            return run(id, checkpoint, body);
+        } finally {
+            checkpointStore.finish(id);
+        }
+    }
+    
+    private CatalogImportResult run(String importId, Checkpoint checkpoint, InputStream body) throws IOException {
+        long startTime = System.currentTimeMillis();
+        long resumedFrom = checkpoint.committedRows();
+        if (checkpoint.completed()) {
+            return toResult(importId, checkpoint, resumedFrom, new Progress(), startTime);
+        }
+        
+        CatalogRowReader reader = new CatalogRowReader(body, checkpoint.format(), objectMapper);
+        if (reader.skip(resumedFrom) < resumedFrom) {
+            throw new IllegalArgumentException("본문이 이미 커밋된 행 수(" + resumedFrom + ")보다 짧습니다");
+        }
+        if (resumedFrom > 0) {
+            log.info("상품 가져오기 재개: importId={}, 건너뛴 행={}", importId, resumedFrom);
+        }
+        
+        Progress progress = new Progress();
+        Chunk chunk = new Chunk();
+        CatalogRowReader.Row row;
+        while ((row = reader.next()) != null) {
+            chunk.rows++;
+            String error = row.error() != null ? row.error() : validate(row.request());
+            if (error != null) {
+                chunk.invalid++;
+                progress.addInvalidSample(row.number(), error);
+            } else if (chunk.products.putIfAbsent(row.request().getSku(), row.request()) != null) {
+                chunk.duplicates++;
+            }
+            
+            if (chunk.rows == chunkSize) {
+                checkpoint = commit(importId, checkpoint, chunk, progress, false);
+                chunk = new Chunk();
+            }
+        }
+        checkpoint = commit(importId, checkpoint, chunk, progress, true);
+        
+        CatalogImportResult result = toResult(importId, checkpoint, resumedFrom, progress, startTime);
+        log.info("상품 가져오기 완료: importId={}, 테이블={}, 처리={}행, 등록={}, 중복={}, 오류={}, {}행/s",
+                importId, checkpoint.table(), progress.rows, progress.inserted, progress.duplicates,
+                progress.invalid, String.format("%.0f", result.getRowsPerSec()));
+        return result;
+    }
+    
+    // 청크를 한 트랜잭션으로 넣고, 커밋된 뒤에만 체크포인트를 옮긴다.
+    // 이미 있는 SKU 는 INSERT IGNORE 로 건너뛰므로, 커밋 후 체크포인트 저장 전에 끊겨 재개하거나
+    // 다른 요청이 같은 SKU 를 먼저 넣어도 두 번 들어가지 않고 청크 전체가 실패하지도 않는다
+    private Checkpoint commit(String importId, Checkpoint checkpoint, Chunk chunk, Progress progress, boolean last) {
+        String table = checkpoint.table();
+        List<ProductCreateRequest> products = new ArrayList<>(chunk.products.values());
+        long inserted = products.isEmpty() ? 0 : transactionTemplate.execute(status -> insert(table, products));
+        
+        long duplicates = chunk.duplicates + chunk.products.size() - inserted;
+        progress.rows += chunk.rows;
+        progress.inserted += inserted;
+        progress.duplicates += duplicates;
+        progress.invalid += chunk.invalid;
+        
+        Checkpoint next = new Checkpoint(table, checkpoint.format(),
+                checkpoint.committedRows() + chunk.rows,
+                checkpoint.insertedCount() + inserted,
+                checkpoint.duplicateCount() + duplicates,
+                checkpoint.invalidCount() + chunk.invalid,
+                last);
+        checkpointStore.save(importId, next);
+        log.debug("상품 가져오기 청크 커밋: importId={}, 커밋된 행={}, 등록={}", importId, next.committedRows(), inserted);
+        return next;
+    }
+    
+    // 새로 들어간 행 수를 돌려준다
+    private long insert(String table, List<ProductCreateRequest> products) {
+        LocalDateTime now = LocalDateTime.now();
+        boolean versioned = ProductCacheService.OPTLOCK.equals(table);
+        
+        long inserted = 0;
+        for (int from = 0; from < products.size(); from += insertBatchSize) {
+            List<ProductCreateRequest> batch = products.subList(from, Math.min(from + insertBatchSize, products.size()));
+            List<Object> args = new ArrayList<>(batch.size() * 6);
+            for (ProductCreateRequest product : batch) {
+                args.add(product.getSku());
+                args.add(product.getName());
+                args.add(product.getPriceKrw());
+                args.add(product.getStockQty());
+                args.add(now);
+                args.add(now);
+            }
+            inserted += jdbcTemplate.update(insertSql(table, versioned, batch.size()), args.toArray());
+        }
+        return inserted;
+    }
+    
+    // table 은 두 테이블 이름 중 하나로 검증된 값이다.
+    // ON DUPLICATE KEY UPDATE 는 Connector/J 기본 설정(found rows)에서 건너뛴 중복도 1 행으로 세므로,
+    // 건너뛴 행이 영향받은 행 수에서 빠지는 INSERT IGNORE 를 쓴다 (값은 미리 검증해 다른 경고로 바뀔 일이 없다)
+    private static String insertSql(String table, boolean versioned, int rows) {
+        String columns = versioned
+                ? "(sku, name, price_krw, stock_qty, version, created_at, updated_at)"
+                : "(sku, name, price_krw, stock_qty, created_at, updated_at)";
+        String values = versioned ? "(?, ?, ?, ?, 0, ?, ?)" : "(?, ?, ?, ?, ?, ?)";
+        return "INSERT IGNORE INTO " + table + " " + columns + " VALUES " + String.join(", ", Collections.nCopies(rows, values));
+    }
+    
+    private String validate(ProductCreateRequest request) {
+        Set<ConstraintViolation<ProductCreateRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+    
+    private CatalogImportResult toResult(String importId, Checkpoint checkpoint, long resumedFrom, Progress progress,
+                                         long startTime) {
+        long elapsedMs = System.currentTimeMillis() - startTime;
+        return CatalogImportResult.builder()
+                .importId(importId)
+                .table(checkpoint.table())
+                .format(checkpoint.format().name())
+                .resumedFromRow(resumedFrom)
+                .processedRows(progress.rows)
+                .insertedCount(progress.inserted)
+                .duplicateCount(progress.duplicates)
+                .invalidCount(progress.invalid)
+                .invalidRows(progress.invalidSamples)
+                .committedRows(checkpoint.committedRows())
+                .completed(checkpoint.completed())
+                .elapsedMs(elapsedMs)
+                .rowsPerSec(elapsedMs == 0 ? 0.0 : progress.rows * 1000.0 / elapsedMs)
+                .build();
+    }
+    
+    private static final class Chunk {
+        
+        // 청크 안에서 같은 SKU 가 다시 나오면 처음 행만 남긴다
+        private final Map<String, ProductCreateRequest> products = new LinkedHashMap<>();
+        private long rows;
+        private long duplicates;
+        private long invalid;
+    }
+    
+    private static final class Progress {
+        
+        private final List<String> invalidSamples = new ArrayList<>();
+        private long rows;
+        private long inserted;
+        private long duplicates;
+        private long invalid;
+        
+        private void addInvalidSample(long rowNumber, String error) {
+            if (invalidSamples.size() < MAX_INVALID_SAMPLES) {
+                invalidSamples.add(rowNumber + ": " + error);
+            }
+        }
+    }
+}
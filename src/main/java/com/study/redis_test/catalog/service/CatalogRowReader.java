@@ -0,0 +1,164 @@
+package com.study.redis_test.catalog.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.redis_test.dto.CatalogImportFormat;
+import com.study.redis_test.dto.ProductCreateRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// 요청 본문을 한 줄씩 읽어 상품 행으로 바꾼다. 본문 전체를 메모리에 올리지 않는다.
+// 빈 줄과 CSV 헤더는 행 번호에 세지 않으며, 재개할 때도 같은 규칙으로 건너뛴다
+class CatalogRowReader {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final List<String> CSV_COLUMNS = List.of("sku", "name", "pricekrw", "stockqty");
+    
+    private final BufferedReader reader;
+    private final CatalogImportFormat format;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private long rowNumber;
+    
+    CatalogRowReader(InputStream body, CatalogImportFormat format, ObjectMapper objectMapper) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.format = format;
+        this.objectMapper = objectMapper;
+        if (format == CatalogImportFormat.CSV) {
+            readHeader();
+        }
+    }
+    
+    // 실제로 건너뛴 행 수를 반환한다
+    long skip(long rows) throws IOException {
+        long skipped = 0;
+        while (skipped < rows && nextLine() != null) {
+            skipped++;
+        }
+        return skipped;
+    }
+    
+    // 더 읽을 행이 없으면 null
+    Row next() throws IOException {
+        String line = nextLine();
+        if (line == null) {
+            return null;
+        }
+        
+        try {
+            ProductCreateRequest request = format == CatalogImportFormat.CSV
+                    ? parseCsv(line)
+                    : objectMapper.readValue(line, ProductCreateRequest.class);
+            return new Row(rowNumber, request, null);
+        } catch (JsonProcessingException e) {
+            return new Row(rowNumber, null, "JSON 형식이 올바르지 않습니다: " + e.getOriginalMessage());
+        } catch (IllegalArgumentException e) {
+            return new Row(rowNumber, null, e.getMessage());
+        }
+    }
+    
+    private String nextLine() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                rowNumber++;
+                return line;
+            }
+        }
+        return null;
+    }
+    
+    private void readHeader() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                throw new IllegalArgumentException("CSV 헤더가 없습니다");
+            }
+        } while (line.isBlank());
+        
+        // UTF-8 BOM 과 열 이름의 대소문자, 밑줄 차이는 무시한다 (price_krw, priceKrw 모두 허용)
+        List<String> names = splitCsv(line.startsWith("\uFEFF") ? line.substring(1) : line);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().replace("_", "").toLowerCase(), i);
+        }
+        List<String> missing = CSV_COLUMNS.stream()
+                .filter(column -> !columns.containsKey(column))
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("CSV 헤더에 필요한 열이 없습니다: " + missing);
+        }
+    }
+    
+    private ProductCreateRequest parseCsv(String line) {
+        List<String> fields = splitCsv(line);
+        return ProductCreateRequest.builder()
+                .sku(field(fields, "sku"))
+                .name(field(fields, "name"))
+                .priceKrw(parseNumber(field(fields, "pricekrw"), Long::valueOf))
+                .stockQty(parseNumber(field(fields, "stockqty"), Integer::valueOf))
+                .build();
+    }
+    
+    private String field(List<String> fields, String column) {
+        int index = columns.get(column);
+        if (index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+    
+    private static <T> T parseNumber(String value, Function<String, T> parser) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("숫자 형식이 올바르지 않습니다: " + value);
+        }
+    }
+    
+    // 큰따옴표로 감싼 필드 안의 쉼표와 "" 이스케이프를 처리한다 (필드 안의 줄바꿈은 지원하지 않음)
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+    
+    record Row(long number, ProductCreateRequest request, String error) {
+    }
+}
@@ -0,0 +1,133 @@
+package com.study.redis_test.conditional.service;
+
+import com.study.redis_test.cache.service.ProductCacheService;
+import com.study.redis_test.dto.*;
+import com.study.redis_test.entity.ProductPlain;
+import com.study.redis_test.repository.ProductPlainRepository;
+import com.study.redis_test.repository.ProductStockJdbcRepository;
+import com.study.redis_test.harness.ConcurrentTestRunner;
+import com.study.redis_test.harness.OperationTimer;
+import com.study.redis_test.metrics.StockMetrics;
+import com.study.redis_test.soldout.service.SoldOutRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ProductConditionalUpdateService {
+    
+    private final ProductPlainRepository productRepository;
+    private final ProductStockJdbcRepository productStockJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductCacheService productCacheService;
+    private final ConcurrentTestRunner concurrentTestRunner;
+    private final StockMetrics stockMetrics;
+    private final SoldOutRegistry soldOutRegistry;
+    
+    @Transactional
+    public ProductPlainResponse createProduct(ProductCreateRequest request) {
+        if (productRepository.existsBySku(request.getSku())) {
+            throw new IllegalArgumentException("이미 존재하는 SKU입니다: " + request.getSku());
+        }
+        
+        ProductPlain product = ProductPlain.builder()
+                .sku(request.getSku())
+                .name(request.getName())
+                .priceKrw(request.getPriceKrw())
+                .stockQty(request.getStockQty())
+                .build();
+        
+        ProductPlain savedProduct = productRepository.save(product);
+        return ProductPlainResponse.from(savedProduct);
+    }
+    
+    public ProductPlainResponse getProductById(Long id) {
+        ProductPlain product = productRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
+        return ProductPlainResponse.from(product);
+    }
+    
+    public ProductPlainResponse getProductBySku(String sku) {
+        ProductPlain product = productRepository.findBySku(sku)
+                .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + sku));
+        return ProductPlainResponse.from(product);
+    }
+    
+    public List<ProductPlainResponse> getAllProducts() {
+        return productRepository.findAll().stream()
+                .map(ProductPlainResponse::from)
+                .collect(Collectors.toList());
+    }
+    
+    @Transactional
+    public ProductPlainResponse updateProduct(Long id, ProductUpdateRequest request) {
+        ProductPlain product = productRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
+        
+        product.setName(request.getName());
+        product.setPriceKrw(request.getPriceKrw());
+        product.setStockQty(request.getStockQty());
+        
+        ProductPlain updatedProduct = productRepository.save(product);
+        productCacheService.evict(ProductCacheService.PLAIN, id);
+        soldOutRegistry.onStockReset(ProductCacheService.PLAIN, id, updatedProduct.getStockQty());
+        return ProductPlainResponse.from(updatedProduct);
+    }
+    
+    @Transactional
+    public void deleteProduct(Long id) {
+        if (!productRepository.existsById(id)) {
+            throw new IllegalArgumentException("상품을 찾을 수 없습니다: " + id);
+        }
+        productRepository.deleteById(id);
+        productCacheService.evict(ProductCacheService.PLAIN, id);
+    }
+    
+    @Transactional
+    public StockUpdateResponse updateStock(Long id, Integer quantity) {
+        return applyStockUpdate(id, quantity);
+    }
+    
+    // 품절 확인과 표시까지 포함한 차감 경로. 동시성 테스트도 이 경로를 그대로 탄다
+    private StockUpdateResponse applyStockUpdate(Long id, Integer quantity) {
+        soldOutRegistry.checkAvailable(ProductCacheService.PLAIN, id, quantity);
+        StockUpdateResponse response = applyStockDelta(id, quantity);
+        soldOutRegistry.onStockChanged(ProductCacheService.PLAIN, id, response.getStockQty() - quantity,
+                response.getStockQty());
+        return response;
+    }
+    
+    // 엔티티를 읽지 않고 조건부 UPDATE 로 재고를 바꾸므로 행 락은 이 문장부터 커밋까지만 잡힌다.
+    // 같은 문장이 바뀐 재고도 돌려주므로 성공 경로의 DB 왕복은 한 번이고, 반영되지 않았을 때만 오류 메시지용 재고를 다시 읽는다
+    private StockUpdateResponse applyStockDelta(Long id, Integer quantity) {
+        // 행 락 대기는 이 UPDATE 문 안에서 일어나므로 문장 실행 시간을 락 대기 시간으로 기록한다
+        long start = System.nanoTime();
+        Integer stockQty = productStockJdbcRepository.addStockQtyReturning(id, quantity);
+        long elapsed = System.nanoTime() - start;
+        OperationTimer.recordLockWait(elapsed);
+        stockMetrics.recordLockWait("CONDITIONAL_UPDATE", "product:" + id, elapsed, true);
+        
+        if (stockQty == null) {
+            Integer current = productRepository.findStockQtyById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
+            throw new IllegalArgumentException("재고가 부족합니다. 현재 재고: " + current);
+        }
+        productCacheService.evictStock(ProductCacheService.PLAIN, id);
+        return StockUpdateResponse.of(id, stockQty);
+    }
+    
+    public ConcurrentTestResult testConcurrentStockUpdate(Long id, ConcurrentTestRequest request) {
+        return concurrentTestRunner.run(request, request.getConcurrentCount(), "CONDITIONAL_UPDATE",
+                () -> transactionTemplate.execute(status -> applyStockUpdate(id, request.getQuantity())),
+                () -> productRepository.findStockQtyById(id)
+                        .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id)));
+    }
+}
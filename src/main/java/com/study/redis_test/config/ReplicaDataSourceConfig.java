@@ -0,0 +1,80 @@
+package com.study.redis_test.config;
+
+import com.study.redis_test.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// stock.datasource.replica.enabled=true 일 때만 적용된다. 꺼져 있으면 Spring Boot 기본 DataSource 하나를 그대로 쓴다
+@Configuration
+@ConditionalOnProperty(name = "stock.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+    
+    @Value("${stock.datasource.replica.urls}")
+    private String[] replicaUrls;
+    
+    @Value("${stock.datasource.replica.username:${spring.datasource.username}}")
+    private String username;
+    
+    @Value("${stock.datasource.replica.password:${spring.datasource.password}}")
+    private String password;
+    
+    @Value("${stock.datasource.replica.pool-size:10}")
+    private int poolSize;
+    
+    // 내려간 복제본에서 연결을 기다리느라 읽기 요청이 오래 묶이지 않게 짧게 둔다
+    @Value("${stock.datasource.replica.connection-timeout-ms:1000}")
+    private long connectionTimeoutMs;
+    
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+        return dataSource;
+    }
+    
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            DataSourceProperties properties) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.length; i++) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(replicaUrls[i].trim())
+                    .username(username)
+                    .password(password)
+                    .build();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setMaximumPoolSize(poolSize);
+            replica.setConnectionTimeout(connectionTimeoutMs);
+            replica.setReadOnly(true);
+            replicas.put(replica.getPoolName(), replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas);
+    }
+    
+    // 트랜잭션 매니저는 연결을 먼저 잡은 뒤에 읽기 전용 표시를 설정하므로,
+    // 실제 연결은 첫 쿼리 때 가져오도록 미뤄야 읽기 전용 여부로 대상을 고를 수 있다
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,47 @@
+package com.study.redis_test.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+@Component
+@RequiredArgsConstructor
+public class NdjsonStreamWriter {
+    
+    private static final int FLUSH_INTERVAL = 1000;
+    
+    private final ObjectMapper objectMapper;
+    
+    // source 는 한 행씩 consumer 에 넘겨주고, 행은 받는 즉시 응답에 쓰여 메모리에 쌓이지 않는다
+    public <T> ResponseEntity<StreamingResponseBody> stream(Consumer<Consumer<T>> source) {
+        StreamingResponseBody body = outputStream -> {
+            BufferedOutputStream out = new BufferedOutputStream(outputStream);
+            int[] written = {0};
+            
+            source.accept(item -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(item));
+                    out.write('\n');
+                    if (++written[0] % FLUSH_INTERVAL == 0) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
@@ -5,6 +5,9 @@ import com.study.redis_test.dto.ProductResponse;
 import com.study.redis_test.dto.ProductUpdateRequest;
 import com.study.redis_test.dto.ConcurrentTestRequest;
 import com.study.redis_test.dto.ConcurrentTestResult;
+import com.study.redis_test.dto.CursorPageResponse;
+import com.study.redis_test.dto.StockBatchRequest;
+import com.study.redis_test.dto.StockBatchResponse;
 import com.study.redis_test.service.ProductService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -12,9 +15,11 @@ import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/products")
@@ -22,6 +27,7 @@ import java.util.Map;
 public class ProductController {
     
     private final ProductService productService;
+    private final NdjsonStreamWriter ndjsonStreamWriter;
     
     @PostMapping
     public ResponseEntity<ProductResponse> createProduct(@Valid @RequestBody ProductCreateRequest request) {
@@ -47,6 +53,19 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
     
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageResponse<ProductResponse>> getProductsPage(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        CursorPageResponse<ProductResponse> page = productService.getProductsAfter(cursor, size);
+        return ResponseEntity.ok(page);
+    }
+    
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllProducts() {
+        return ndjsonStreamWriter.stream(productService::streamAllProducts);
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<ProductResponse> updateProduct(
             @PathVariable Long id,
@@ -84,12 +103,36 @@ public class ProductController {
         }
     }
     
+    // 락/DB 대기 중에는 요청 스레드를 반환하고, 처리가 끝나면 비동기로 응답한다
+    @PatchMapping("/{id}/stock/async")
+    public CompletableFuture<ResponseEntity<ProductResponse>> updateStockAsync(
+            @PathVariable Long id,
+            @RequestBody Map<String, Integer> request) {
+        Integer quantity = request.get("quantity");
+        if (quantity == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        
+        return productService.updateStockAsync(id, quantity)
+                .thenApply(ResponseEntity::ok);
+    }
+    
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException e) {
         return ResponseEntity.badRequest()
                 .body(Map.of("error", e.getMessage()));
     }
     
+    // 여러 상품 재고를 한 번에 변경한다. 하나라도 실패하면 전부 취소되고 409 와 항목별 결과를 돌려준다
+    @PostMapping("/stock/batch")
+    public ResponseEntity<StockBatchResponse> updateStockBatch(@Valid @RequestBody StockBatchRequest request) {
+        StockBatchResponse response = productService.updateStockBatch(request);
+        if (!response.isApplied()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+    
     @PostMapping("/{id}/concurrent-test")
     public ResponseEntity<ConcurrentTestResult> testConcurrentStockUpdate(
             @PathVariable Long id,
@@ -98,6 +141,14 @@ public class ProductController {
         return ResponseEntity.ok(result);
     }
     
+    @PostMapping("/{id}/concurrent-test/async")
+    public ResponseEntity<ConcurrentTestResult> testConcurrentStockUpdateAsync(
+            @PathVariable Long id,
+            @Valid @RequestBody ConcurrentTestRequest request) {
+        ConcurrentTestResult result = productService.testConcurrentStockUpdateAsync(id, request);
+        return ResponseEntity.ok(result);
+    }
+    
     @PostMapping("/{id}/true-concurrent-test")
     public ResponseEntity<ConcurrentTestResult> testTrueConcurrentStockUpdate(
             @PathVariable Long id,
@@ -0,0 +1,27 @@
+package com.study.redis_test.datasource;
+
+import java.util.function.Supplier;
+
+// 읽기 전용이라도 방금 커밋된 값을 읽어야 하는 곳(재고 적재, 테스트의 최종 재고 확인)은 복제본 대신 primary 에서 읽는다.
+// 연결은 첫 쿼리 때 고르므로, 이미 연결을 잡은 트랜잭션 안에서 호출하면 그 연결을 그대로 쓴다
+public final class DataSourceRouting {
+    
+    private static final ThreadLocal<Boolean> PRIMARY_FORCED = ThreadLocal.withInitial(() -> false);
+    
+    private DataSourceRouting() {
+    }
+    
+    public static <T> T readFromPrimary(Supplier<T> reader) {
+        boolean previous = PRIMARY_FORCED.get();
+        PRIMARY_FORCED.set(true);
+        try {
+            return reader.get();
+        } finally {
+            PRIMARY_FORCED.set(previous);
+        }
+    }
+    
+    static boolean isPrimaryForced() {
+        return PRIMARY_FORCED.get();
+    }
+}
@@ -0,0 +1,71 @@
+package com.study.redis_test.datasource;
+
+import com.study.redis_test.datasource.ReplicaRoutingDataSource.Replica;
+import com.study.redis_test.metrics.StockMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// 복제본마다 주기적으로 복제 지연을 읽어, 허용 범위를 넘거나 연결할 수 없으면 읽기 대상에서 뺀다
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stock.datasource.replica.enabled", havingValue = "true")
+public class ReplicaLagMonitor {
+    
+    private final ReplicaRoutingDataSource replicaRoutingDataSource;
+    private final StockMetrics stockMetrics;
+    
+    @Value("${stock.datasource.replica.max-lag-seconds:2}")
+    private long maxLagSeconds;
+    
+    @PostConstruct
+    public void start() {
+        for (Replica replica : replicaRoutingDataSource.getReplicas()) {
+            stockMetrics.registerReplicaLag(replica.getName(), replica::getLagSeconds);
+        }
+        checkReplicationLag();
+    }
+    
+    @Scheduled(fixedDelayString = "${stock.datasource.replica.lag-check-interval-ms:1000}")
+    public void checkReplicationLag() {
+        for (Replica replica : replicaRoutingDataSource.getReplicas()) {
+            Long lagSeconds = readLagSeconds(replica);
+            boolean healthy = lagSeconds != null && lagSeconds <= maxLagSeconds;
+            
+            if (healthy && !replica.isHealthy()) {
+                log.info("복제본 읽기 사용: {}, 지연={}초", replica.getName(), lagSeconds);
+            } else if (!healthy && replica.isHealthy()) {
+                log.warn("복제본 읽기 중단, primary 로 대체: {}, 지연={}", replica.getName(),
+                        lagSeconds == null ? "알 수 없음" : lagSeconds + "초");
+            }
+            replica.update(lagSeconds, healthy);
+        }
+    }
+    
+    // 복제 스레드가 멈춰 Seconds_Behind_Source 가 NULL 이거나 연결에 실패하면 null.
+    // 복제 설정이 없는 단독 인스턴스(로컬 대역)는 결과가 비어 있으므로 지연 0 으로 본다
+    private Long readLagSeconds(Replica replica) {
+        try (Connection connection = replica.getDataSource().getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SHOW REPLICA STATUS")) {
+            if (!resultSet.next()) {
+                return 0L;
+            }
+            long lagSeconds = resultSet.getLong("Seconds_Behind_Source");
+            return resultSet.wasNull() ? null : lagSeconds;
+        } catch (SQLException e) {
+            log.debug("복제 지연 확인 실패: {}", replica.getName(), e);
+            return null;
+        }
+    }
+}
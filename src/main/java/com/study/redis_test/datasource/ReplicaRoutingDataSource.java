@@ -0,0 +1,81 @@
+package com.study.redis_test.datasource;
+
+import lombok.Getter;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 읽기 전용 트랜잭션은 복제본 중 지연이 허용 범위 안인 것에 돌아가며 보내고, 쓰기와 나머지는 primary 로 보낸다.
+// 모든 복제본이 밀려 있거나 내려가 있으면 primary 에서 읽는다
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    
+    public static final String PRIMARY = "primary";
+    
+    @Getter
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+    
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas) {
+        this.replicas = replicas.entrySet().stream()
+                .map(entry -> new Replica(entry.getKey(), entry.getValue()))
+                .toList();
+        
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (DataSourceRouting.isPrimaryForced() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.isHealthy()) {
+                return replica.getName();
+            }
+        }
+        return PRIMARY;
+    }
+    
+    // primary 는 별도 빈이라 컨테이너가 닫고, 여기서 만든 복제본 풀만 닫는다
+    public void close() throws IOException {
+        for (Replica replica : replicas) {
+            if (replica.getDataSource() instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+    
+    @Getter
+    public static final class Replica {
+        
+        private final String name;
+        private final DataSource dataSource;
+        // 첫 지연 확인이 끝나기 전에는 쓰지 않는다
+        private volatile boolean healthy;
+        private volatile Long lagSeconds;
+        
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+        
+        void update(Long lagSeconds, boolean healthy) {
+            this.lagSeconds = lagSeconds;
+            this.healthy = healthy;
+        }
+    }
+}
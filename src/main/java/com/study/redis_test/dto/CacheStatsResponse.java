@@ -0,0 +1,20 @@
+package com.study.redis_test.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheStatsResponse {
+    
+    private Long nearHitCount;
+    private Long nearSize;
+    private Long hitCount;
+    private Long missCount;
+    private Long evictionCount;
+    private Long staleRejectCount;
+    private Long errorCount;
+    private Double hitRatio;
+}
@@ -0,0 +1,6 @@
+package com.study.redis_test.dto;
+
+public enum CatalogImportFormat {
+    CSV,
+    NDJSON
+}
@@ -0,0 +1,31 @@
+package com.study.redis_test.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CatalogImportResult {
+    
+    private String importId;
+    private String table;
+    private String format;
+    // 이전 실행에서 이미 커밋되어 이번에 건너뛴 행 수
+    private Long resumedFromRow;
+    // 이번 실행에서 처리한 행 수 (등록 + 중복 + 오류)
+    private Long processedRows;
+    private Long insertedCount;
+    private Long duplicateCount;
+    private Long invalidCount;
+    // 앞의 100건까지만 "행 번호: 메시지" 형태로 담는다
+    private List<String> invalidRows;
+    // 지금까지 커밋된 전체 행 수 (다음 재개 지점)
+    private Long committedRows;
+    private Boolean completed;
+    private Long elapsedMs;
+    private Double rowsPerSec;
+}
@@ -1,5 +1,6 @@
 package com.study.redis_test.dto;
 
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
@@ -16,5 +17,9 @@ public class ConcurrentTestRequest {
     
     @NotNull(message = "동시 요청 수는 필수입니다")
     @Min(value = 1, message = "동시 요청 수는 1 이상이어야 합니다")
+    @Max(value = 100000, message = "동시 요청 수는 100000 이하여야 합니다")
     private Integer concurrentCount;
+    
+    // 비어 있으면 PLATFORM
+    private ExecutionMode executionMode;
 }
\ No newline at end of file
@@ -16,6 +16,17 @@ public class ConcurrentTestResult {
     private Integer failCount;
     private Long totalExecutionTimeMs;
     private Integer finalStockQty;
+    // 오류 메시지는 앞의 100건까지만 담고, 전체 건수는 errorSummary 에 예외 타입별로 집계한다
     private List<String> errors;
+    private List<ErrorSummary> errorSummary;
     private String lockType;
+    private String executionMode;
+    private Long pinnedEventCount;
+    private List<String> pinnedLocations;
+    private Double throughputOpsPerSec;
+    private LatencySummary latency;
+    private LatencySummary lockWait;
+    private LatencySummary transaction;
+    private RetrySummary retries;
+    private Integer peakThreadCount;
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.study.redis_test.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPageResponse<T> {
+    
+    private List<T> items;
+    private Long nextCursor;
+    private Boolean hasNext;
+    
+    public static <T> CursorPageResponse<T> of(List<T> items, int size, Function<T, Long> idOf) {
+        boolean hasNext = items.size() > size;
+        List<T> pageItems = hasNext ? items.subList(0, size) : items;
+        Long nextCursor = pageItems.isEmpty() ? null : idOf.apply(pageItems.get(pageItems.size() - 1));
+        
+        return CursorPageResponse.<T>builder()
+                .items(pageItems)
+                .nextCursor(hasNext ? nextCursor : null)
+                .hasNext(hasNext)
+                .build();
+    }
+}
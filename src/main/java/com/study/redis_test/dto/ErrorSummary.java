@@ -0,0 +1,15 @@
+package com.study.redis_test.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ErrorSummary {
+    
+    private String type;
+    private Long count;
+    private String sampleMessage;
+}
@@ -0,0 +1,7 @@
+package com.study.redis_test.dto;
+
+public enum KeyDistribution {
+    UNIFORM,
+    ZIPF,
+    HOT_KEY
+}
@@ -0,0 +1,19 @@
+package com.study.redis_test.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LatencySummary {
+    
+    private Long count;
+    private Double meanMicros;
+    private Long p50Micros;
+    private Long p90Micros;
+    private Long p99Micros;
+    private Long p999Micros;
+    private Long maxMicros;
+}
@@ -0,0 +1,24 @@
+package com.study.redis_test.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReservationRequest {
+    
+    @NotNull(message = "상품 ID는 필수입니다")
+    private Long productId;
+    
+    @NotNull(message = "수량은 필수입니다")
+    @Min(value = 1, message = "수량은 1개 이상이어야 합니다")
+    private Integer quantity;
+    
+    // 비어 있으면 stock.reservation.default-ttl-seconds
+    @Min(value = 1, message = "예약 유지 시간은 1초 이상이어야 합니다")
+    private Long ttlSeconds;
+}
@@ -0,0 +1,19 @@
+package com.study.redis_test.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReservationResponse {
+    
+    private String reservationId;
+    private Long productId;
+    private Integer quantity;
+    private Integer availableQty;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,18 @@
+package com.study.redis_test.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReservationStockResponse {
+    
+    private Long productId;
+    // 확정된 예약까지 뺀 실제 재고 (DB 에는 stock.reservation.flush-interval-ms 주기로 반영)
+    private Integer onHandQty;
+    // 예약 중인 수량을 뺀 나머지
+    private Integer availableQty;
+    private Integer heldQty;
+}
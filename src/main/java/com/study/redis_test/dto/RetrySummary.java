@@ -0,0 +1,19 @@
+package com.study.redis_test.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RetrySummary {
+    
+    private Long totalRetries;
+    private Long maxRetriesPerCall;
+    private Double meanRetriesPerCall;
+    // 한 번 이상 재시도한 호출 수
+    private Long retriedCalls;
+    // 충돌률이 높아 비관적 락 경로로 넘긴 호출 수
+    private Long escalatedCalls;
+}
@@ -0,0 +1,35 @@
+package com.study.redis_test.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockBatchRequest {
+    
+    @NotEmpty(message = "변경할 상품은 1개 이상이어야 합니다")
+    @Size(max = 100, message = "한 번에 변경할 수 있는 상품은 100개 이하입니다")
+    private List<@Valid Item> items;
+    
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Item {
+        
+        @NotNull(message = "상품 ID는 필수입니다")
+        private Long id;
+        
+        @NotNull(message = "수량은 필수입니다")
+        private Integer quantity;
+    }
+}
@@ -0,0 +1,39 @@
+package com.study.redis_test.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockBatchResponse {
+    
+    // false 면 어떤 항목도 반영되지 않았다
+    private boolean applied;
+    private List<ItemResult> results;
+    
+    public enum Status {
+        APPLIED,
+        NOT_FOUND,
+        INSUFFICIENT_STOCK,
+        // 다른 항목이 실패해 함께 취소됨
+        ROLLED_BACK
+    }
+    
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ItemResult {
+        
+        private Long id;
+        private Integer quantity;
+        private Status status;
+        private Integer stockQty;
+        private String message;
+    }
+}
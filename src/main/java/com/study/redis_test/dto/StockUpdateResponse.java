@@ -0,0 +1,21 @@
+package com.study.redis_test.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockUpdateResponse {
+    
+    private Long id;
+    private Integer stockQty;
+    
+    public static StockUpdateResponse of(Long id, Integer stockQty) {
+        return StockUpdateResponse.builder()
+                .id(id)
+                .stockQty(stockQty)
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.study.redis_test.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WorkloadRequest {
+    
+    // 응답을 기다리지 않고 이 속도로 요청을 보낸다 (열린 루프)
+    @NotNull(message = "목표 요청 속도는 필수입니다")
+    @Min(value = 1, message = "목표 요청 속도는 1 이상이어야 합니다")
+    @Max(value = 100000, message = "목표 요청 속도는 100000 이하여야 합니다")
+    private Integer targetRatePerSec;
+    
+    @NotNull(message = "측정 시간은 필수입니다")
+    @Min(value = 1, message = "측정 시간은 1초 이상이어야 합니다")
+    @Max(value = 600, message = "측정 시간은 600초 이하여야 합니다")
+    private Integer durationSeconds;
+    
+    // 워밍업 동안 보낸 요청은 재고에는 반영되지만 지연 시간/건수에는 넣지 않는다
+    @Min(value = 0, message = "워밍업 시간은 0초 이상이어야 합니다")
+    @Max(value = 300, message = "워밍업 시간은 300초 이하여야 합니다")
+    private Integer warmupSeconds;
+    
+    // 대상 상품은 firstProductId 부터 productCount 개의 연속된 ID
+    @NotNull(message = "시작 상품 ID는 필수입니다")
+    private Long firstProductId;
+    
+    @NotNull(message = "상품 수는 필수입니다")
+    @Min(value = 1, message = "상품 수는 1 이상이어야 합니다")
+    @Max(value = 100000, message = "상품 수는 100000 이하여야 합니다")
+    private Integer productCount;
+    
+    // 비어 있으면 UNIFORM
+    private KeyDistribution keyDistribution;
+    
+    // ZIPF 의 지수 (클수록 앞쪽 상품에 몰린다), 비어 있으면 1.0
+    @DecimalMin(value = "0.0", message = "Zipf 지수는 0 이상이어야 합니다")
+    @DecimalMax(value = "5.0", message = "Zipf 지수는 5 이하여야 합니다")
+    private Double zipfExponent;
+    
+    // HOT_KEY 에서 첫 번째 상품으로 가는 요청 비율, 비어 있으면 0.9
+    @DecimalMin(value = "0.0", message = "핫 키 비율은 0 이상이어야 합니다")
+    @DecimalMax(value = "1.0", message = "핫 키 비율은 1 이하여야 합니다")
+    private Double hotKeyRatio;
+    
+    // 조회 요청 비율, 비어 있으면 0 (모두 재고 변경)
+    @DecimalMin(value = "0.0", message = "조회 비율은 0 이상이어야 합니다")
+    @DecimalMax(value = "1.0", message = "조회 비율은 1 이하여야 합니다")
+    private Double readRatio;
+    
+    @NotNull(message = "수량은 필수입니다")
+    private Integer quantity;
+    
+    // 비어 있으면 PLATFORM
+    private ExecutionMode executionMode;
+    
+    // PLATFORM 일 때 요청을 처리하는 스레드 수, 비어 있으면 workload.platform-threads
+    @Min(value = 1, message = "스레드 수는 1 이상이어야 합니다")
+    @Max(value = 2000, message = "스레드 수는 2000 이하여야 합니다")
+    private Integer maxConcurrency;
+}
@@ -0,0 +1,38 @@
+package com.study.redis_test.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WorkloadResult {
+    
+    private String lockType;
+    private String keyDistribution;
+    private String executionMode;
+    private Integer targetRatePerSec;
+    private Double achievedRatePerSec;
+    private Long issuedRequests;
+    private Long measuredRequests;
+    private Long unfinishedRequests;
+    private Long successCount;
+    private Long failCount;
+    private Long readCount;
+    private Long writeCount;
+    // 예정된 발송 시각부터 완료까지 (대기열에서 밀린 시간 포함)
+    private LatencySummary latency;
+    // 실제로 실행을 시작한 시각부터 완료까지
+    private LatencySummary serviceTime;
+    // 발송 스레드가 예정 시각보다 늦게 보낸 최대 시간
+    private Long maxScheduleLagMicros;
+    private List<ErrorSummary> errors;
+    private Long initialStockTotal;
+    private Long finalStockTotal;
+    // 초기 합계 + 성공한 변경 수량의 합, finalStockTotal 과 다르면 갱신 손실이 있었다
+    private Long expectedStockTotal;
+    private Integer peakThreadCount;
+}
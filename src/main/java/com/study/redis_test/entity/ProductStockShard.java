@@ -0,0 +1,38 @@
+package com.study.redis_test.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "product_stock_shard",
+        uniqueConstraints = @UniqueConstraint(name = "uk_product_stock_shard", columnNames = {"product_id", "bucket_no"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EntityListeners(AuditingEntityListener.class)
+public class ProductStockShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", columnDefinition = "BIGINT UNSIGNED")
+    private Long id;
+
+    @Column(name = "product_id", nullable = false, columnDefinition = "BIGINT UNSIGNED")
+    private Long productId;
+
+    @Column(name = "bucket_no", nullable = false)
+    private Integer bucketNo;
+
+    @Column(name = "stock_qty", nullable = false, columnDefinition = "INT UNSIGNED")
+    private Integer stockQty = 0;
+
+    @LastModifiedDate
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
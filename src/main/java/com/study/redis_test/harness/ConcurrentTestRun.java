@@ -0,0 +1,131 @@
+package com.study.redis_test.harness;
+
+import com.study.redis_test.dto.ExecutionMode;
+import com.study.redis_test.dto.LatencySummary;
+import com.study.redis_test.dto.RetrySummary;
+import lombok.Getter;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+public class ConcurrentTestRun {
+    
+    @Getter
+    private final ExecutionMode executionMode;
+    // 비동기 경로에서는 null 이다
+    @Getter
+    private final ExecutorService executor;
+    private final PinnedEventRecorder pinnedEventRecorder;
+    
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private final long startedAtNanos = System.nanoTime();
+    private final LongAdder operationCount = new LongAdder();
+    private final LatencyRecorder latencyRecorder = new LatencyRecorder();
+    private final LatencyRecorder lockWaitRecorder = new LatencyRecorder();
+    private final LatencyRecorder transactionRecorder = new LatencyRecorder();
+    private final LongAdder retryCount = new LongAdder();
+    private final LongAdder retriedOperationCount = new LongAdder();
+    private final LongAdder escalatedOperationCount = new LongAdder();
+    private final LongAccumulator maxRetries = new LongAccumulator(Math::max, 0L);
+    
+    @Getter
+    private long pinnedEventCount;
+    @Getter
+    private List<String> pinnedLocations = List.of();
+    @Getter
+    private Double throughputOpsPerSec;
+    @Getter
+    private LatencySummary latency;
+    @Getter
+    private LatencySummary lockWait;
+    @Getter
+    private LatencySummary transaction;
+    @Getter
+    private RetrySummary retries;
+    @Getter
+    private Integer peakThreadCount;
+    
+    ConcurrentTestRun(ExecutionMode executionMode, ExecutorService executor, PinnedEventRecorder pinnedEventRecorder) {
+        this.executionMode = executionMode;
+        this.executor = executor;
+        this.pinnedEventRecorder = pinnedEventRecorder;
+        // 테스트 동안 JVM 전체에서 동시에 살아 있던 최대 플랫폼 스레드 수를 보기 위해 최고치를 초기화한다
+        threadMXBean.resetPeakThreadCount();
+    }
+    
+    // 실패한 요청도 비용을 치렀으므로 지연 시간에 포함한다
+    public void measure(Runnable operation) {
+        OperationTimer.reset();
+        long start = System.nanoTime();
+        try {
+            operation.run();
+        } finally {
+            latencyRecorder.recordNanos(System.nanoTime() - start);
+            lockWaitRecorder.recordNanos(OperationTimer.lockWaitNanos());
+            transactionRecorder.recordNanos(OperationTimer.transactionNanos());
+            recordRetries(OperationTimer.retries(), OperationTimer.escalated());
+            operationCount.increment();
+        }
+    }
+    
+    // 비동기 호출은 future 가 완료될 때까지를 지연 시간으로 기록한다.
+    // 락 대기/트랜잭션 시간은 호출 스레드가 아닌 곳에서 쌓이므로 이 경로에서는 기록하지 않는다
+    public CompletableFuture<?> measureAsync(Supplier<? extends CompletableFuture<?>> operation) {
+        long start = System.nanoTime();
+        CompletableFuture<?> future;
+        try {
+            future = operation.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((result, e) -> {
+            latencyRecorder.recordNanos(System.nanoTime() - start);
+            operationCount.increment();
+        });
+    }
+    
+    public void finish() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+        long elapsedNanos = System.nanoTime() - startedAtNanos;
+        peakThreadCount = threadMXBean.getPeakThreadCount();
+        
+        if (pinnedEventRecorder != null) {
+            pinnedEventRecorder.stop();
+            pinnedEventCount = pinnedEventRecorder.getEventCount();
+            pinnedLocations = pinnedEventRecorder.getTopLocations();
+        }
+        
+        throughputOpsPerSec = elapsedNanos == 0 ? 0.0 : operationCount.sum() * 1_000_000_000.0 / elapsedNanos;
+        latency = latencyRecorder.summarize();
+        lockWait = lockWaitRecorder.summarize();
+        transaction = transactionRecorder.summarize();
+        
+        long operations = operationCount.sum();
+        retries = RetrySummary.builder()
+                .totalRetries(retryCount.sum())
+                .maxRetriesPerCall(maxRetries.get())
+                .meanRetriesPerCall(operations == 0 ? 0.0 : (double) retryCount.sum() / operations)
+                .retriedCalls(retriedOperationCount.sum())
+                .escalatedCalls(escalatedOperationCount.sum())
+                .build();
+    }
+    
+    private void recordRetries(long retries, boolean escalated) {
+        if (retries > 0) {
+            retryCount.add(retries);
+            retriedOperationCount.increment();
+            maxRetries.accumulate(retries);
+        }
+        if (escalated) {
+            escalatedOperationCount.increment();
+        }
+    }
+}
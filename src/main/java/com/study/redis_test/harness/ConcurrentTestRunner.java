@@ -0,0 +1,157 @@
+package com.study.redis_test.harness;
+
+import com.study.redis_test.dto.ConcurrentTestRequest;
+import com.study.redis_test.dto.ConcurrentTestResult;
+import com.study.redis_test.dto.ExecutionMode;
+import com.study.redis_test.datasource.DataSourceRouting;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class ConcurrentTestRunner {
+    
+    @Value("${harness.pinning.threshold-ms:20}")
+    private long pinningThresholdMs;
+    
+    // concurrentCount 는 VIRTUAL 모드를 위해 100000 까지 허용하므로 PLATFORM 풀 크기는 따로 제한한다
+    @Value("${harness.platform.max-threads:1000}")
+    private int maxPlatformThreads;
+    
+    public int platformThreads(int requested) {
+        return Math.max(1, Math.min(requested, maxPlatformThreads));
+    }
+    
+    // PLATFORM 은 기존처럼 고정 크기 풀 (harness.platform.max-threads 까지), VIRTUAL 은 요청마다 가상 스레드를 만들고 pinning 이벤트를 기록한다
+    public ConcurrentTestRun start(ConcurrentTestRequest request, int platformPoolSize) {
+        ExecutionMode mode = request.getExecutionMode() == null ? ExecutionMode.PLATFORM : request.getExecutionMode();
+        
+        if (mode == ExecutionMode.VIRTUAL) {
+            PinnedEventRecorder recorder = new PinnedEventRecorder(Duration.ofMillis(pinningThresholdMs));
+            return new ConcurrentTestRun(mode, Executors.newVirtualThreadPerTaskExecutor(), recorder);
+        }
+        return new ConcurrentTestRun(mode, Executors.newFixedThreadPool(platformThreads(platformPoolSize)), null);
+    }
+    
+    // 비동기 경로는 호출 스레드 하나가 요청을 보내므로 실행기를 만들지 않는다
+    private ConcurrentTestRun startWithoutExecutor(ConcurrentTestRequest request) {
+        ExecutionMode mode = request.getExecutionMode() == null ? ExecutionMode.PLATFORM : request.getExecutionMode();
+        return new ConcurrentTestRun(mode, null, null);
+    }
+    
+    // 닫힌 루프: 요청 수만큼 작업을 한꺼번에 넣고 모두 끝날 때까지 기다린다.
+    // 도착 간격을 두고 보내야 하는 부하는 WorkloadRunner 를 사용한다
+    public ConcurrentTestResult run(ConcurrentTestRequest request, int platformPoolSize, String lockType,
+                                    Runnable operation, Supplier<Integer> finalStock) {
+        return run(request, platformPoolSize, lockType, operation, finalStock, null);
+    }
+    
+    // 요청 수만큼 스레드를 만들고 (플랫폼 스레드는 harness.platform.max-threads 로 제한), 모든 작업을 시작 래치에 세워 두었다가 한꺼번에 출발시킨다
+    public ConcurrentTestResult runTogether(ConcurrentTestRequest request, String lockType,
+                                            Runnable operation, Supplier<Integer> finalStock) {
+        return run(request, request.getConcurrentCount(), lockType, operation, finalStock, new CountDownLatch(1));
+    }
+    
+    private ConcurrentTestResult run(ConcurrentTestRequest request, int platformPoolSize, String lockType,
+                                     Runnable operation, Supplier<Integer> finalStock, CountDownLatch startLatch) {
+        long startTime = System.currentTimeMillis();
+        AtomicInteger successCount = new AtomicInteger(0);
+        ErrorAggregator errors = new ErrorAggregator();
+        
+        ConcurrentTestRun run = start(request, platformPoolSize);
+        
+        List<CompletableFuture<Void>> futures = new ArrayList<>(request.getConcurrentCount());
+        for (int i = 0; i < request.getConcurrentCount(); i++) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    if (startLatch != null) {
+                        startLatch.await();
+                    }
+                    run.measure(operation);
+                    successCount.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    errors.record(e);
+                } catch (Exception e) {
+                    errors.record(e);
+                }
+            }, run.getExecutor()));
+        }
+        
+        // 모든 작업을 넣은 뒤 동시에 시작
+        if (startLatch != null) {
+            startLatch.countDown();
+        }
+        
+        // 모든 스레드 완료 대기
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        run.finish();
+        
+        return toResult(request, lockType, run, successCount.get(), errors,
+                System.currentTimeMillis() - startTime, DataSourceRouting.readFromPrimary(finalStock));
+    }
+    
+    // 호출 스레드 하나가 요청을 모두 비동기로 보내고 future 로만 완료를 기다린다 (요청 수만큼 스레드를 만들지 않음)
+    public ConcurrentTestResult runAsync(ConcurrentTestRequest request, String lockType,
+                                         Supplier<? extends CompletableFuture<?>> operation,
+                                         Supplier<Integer> finalStock) {
+        long startTime = System.currentTimeMillis();
+        AtomicInteger successCount = new AtomicInteger(0);
+        ErrorAggregator errors = new ErrorAggregator();
+        
+        ConcurrentTestRun run = startWithoutExecutor(request);
+        
+        List<CompletableFuture<Void>> futures = new ArrayList<>(request.getConcurrentCount());
+        for (int i = 0; i < request.getConcurrentCount(); i++) {
+            futures.add(run.measureAsync(operation).handle((response, e) -> {
+                if (e == null) {
+                    successCount.incrementAndGet();
+                } else {
+                    errors.record(e);
+                }
+                return null;
+            }));
+        }
+        
+        // 모든 요청 완료 대기
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        run.finish();
+        
+        return toResult(request, lockType, run, successCount.get(), errors,
+                System.currentTimeMillis() - startTime, DataSourceRouting.readFromPrimary(finalStock));
+    }
+    
+    private ConcurrentTestResult toResult(ConcurrentTestRequest request, String lockType, ConcurrentTestRun run,
+                                          int successCount, ErrorAggregator errors, long elapsedMs,
+                                          Integer finalStockQty) {
+        return ConcurrentTestResult.builder()
+                .totalRequests(request.getConcurrentCount())
+                .successCount(successCount)
+                .failCount((int) errors.total())
+                .totalExecutionTimeMs(elapsedMs)
+                .finalStockQty(finalStockQty)
+                .errors(errors.samples())
+                .errorSummary(errors.summarize())
+                .lockType(lockType)
+                .executionMode(run.getExecutionMode().name())
+                .pinnedEventCount(run.getPinnedEventCount())
+                .pinnedLocations(run.getPinnedLocations())
+                .throughputOpsPerSec(run.getThroughputOpsPerSec())
+                .latency(run.getLatency())
+                .lockWait(run.getLockWait())
+                .transaction(run.getTransaction())
+                .retries(run.getRetries())
+                .peakThreadCount(run.getPeakThreadCount())
+                .build();
+    }
+}
@@ -0,0 +1,74 @@
+package com.study.redis_test.harness;
+
+import com.study.redis_test.dto.ErrorSummary;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// 오류를 예외 타입별 건수로 모으고, 메시지 원문은 앞의 몇 건만 남겨 부하가 커져도 메모리가 늘지 않게 한다
+class ErrorAggregator {
+    
+    private static final int MAX_SAMPLES = 100;
+    
+    private final Map<String, TypeCount> counts = new ConcurrentHashMap<>();
+    private final Queue<String> samples = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger sampleCount = new AtomicInteger();
+    private final LongAdder total = new LongAdder();
+    
+    void record(Throwable error) {
+        Throwable cause = unwrap(error);
+        total.increment();
+        counts.computeIfAbsent(cause.getClass().getSimpleName(), type -> new TypeCount(cause.getMessage()))
+                .count.increment();
+        if (sampleCount.getAndIncrement() < MAX_SAMPLES) {
+            samples.add(cause.getMessage());
+        }
+    }
+    
+    long total() {
+        return total.sum();
+    }
+    
+    List<String> samples() {
+        return new ArrayList<>(samples);
+    }
+    
+    List<ErrorSummary> summarize() {
+        return counts.entrySet().stream()
+                .map(entry -> ErrorSummary.builder()
+                        .type(entry.getKey())
+                        .count(entry.getValue().count.sum())
+                        .sampleMessage(entry.getValue().sampleMessage)
+                        .build())
+                .sorted(Comparator.comparing(ErrorSummary::getCount).reversed())
+                .toList();
+    }
+    
+    private static Throwable unwrap(Throwable error) {
+        Throwable current = error;
+        while ((current instanceof CompletionException || current instanceof ExecutionException)
+                && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+    
+    private static final class TypeCount {
+        
+        private final String sampleMessage;
+        private final LongAdder count = new LongAdder();
+        
+        private TypeCount(String sampleMessage) {
+            this.sampleMessage = sampleMessage;
+        }
+    }
+}
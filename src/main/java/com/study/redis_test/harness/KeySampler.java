@@ -0,0 +1,31 @@
+package com.study.redis_test.harness;
+
+import com.study.redis_test.dto.KeyDistribution;
+import com.study.redis_test.dto.WorkloadRequest;
+
+import java.util.random.RandomGenerator;
+
+// 0 ~ keyCount-1 사이의 상품 순번을 뽑는다 (순번 0 이 가장 인기 있는 상품)
+interface KeySampler {
+    
+    int next(RandomGenerator random);
+    
+    static KeySampler of(WorkloadRequest request) {
+        int keyCount = request.getProductCount();
+        KeyDistribution distribution = request.getKeyDistribution() == null
+                ? KeyDistribution.UNIFORM : request.getKeyDistribution();
+        
+        return switch (distribution) {
+            case UNIFORM -> random -> random.nextInt(keyCount);
+            case ZIPF -> new ZipfKeySampler(keyCount,
+                    request.getZipfExponent() == null ? 1.0 : request.getZipfExponent());
+            case HOT_KEY -> hotKey(keyCount, request.getHotKeyRatio() == null ? 0.9 : request.getHotKeyRatio());
+        };
+    }
+    
+    // hotKeyRatio 만큼은 첫 번째 상품, 나머지는 다른 상품들에 고르게 보낸다
+    static KeySampler hotKey(int keyCount, double hotKeyRatio) {
+        return random -> keyCount == 1 || random.nextDouble() < hotKeyRatio
+                ? 0 : 1 + random.nextInt(keyCount - 1);
+    }
+}
@@ -0,0 +1,35 @@
+package com.study.redis_test.harness;
+
+import com.study.redis_test.dto.LatencySummary;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+// HdrHistogram Recorder 는 기록 경로가 wait-free 라 여러 스레드가 동시에 기록해도 서로 막지 않는다
+class LatencyRecorder {
+    
+    private static final int SIGNIFICANT_DIGITS = 3;
+    
+    private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+    
+    void recordNanos(long nanos) {
+        recorder.recordValue(Math.max(nanos, 0));
+    }
+    
+    LatencySummary summarize() {
+        Histogram histogram = recorder.getIntervalHistogram();
+        
+        return LatencySummary.builder()
+                .count(histogram.getTotalCount())
+                .meanMicros(histogram.getMean() / 1_000.0)
+                .p50Micros(toMicros(histogram.getValueAtPercentile(50.0)))
+                .p90Micros(toMicros(histogram.getValueAtPercentile(90.0)))
+                .p99Micros(toMicros(histogram.getValueAtPercentile(99.0)))
+                .p999Micros(toMicros(histogram.getValueAtPercentile(99.9)))
+                .maxMicros(toMicros(histogram.getMaxValue()))
+                .build();
+    }
+    
+    private static long toMicros(long nanos) {
+        return nanos / 1_000;
+    }
+}
@@ -0,0 +1,55 @@
+package com.study.redis_test.harness;
+
+// 동시성 테스트 한 건이 실행되는 동안 같은 스레드에서 락 대기 시간, 트랜잭션 시간, 재시도 횟수를 누적한다
+public final class OperationTimer {
+    
+    private static final ThreadLocal<long[]> ELAPSED = ThreadLocal.withInitial(() -> new long[4]);
+    
+    private static final int LOCK_WAIT = 0;
+    private static final int TRANSACTION = 1;
+    private static final int RETRIES = 2;
+    private static final int ESCALATIONS = 3;
+    
+    private OperationTimer() {
+    }
+    
+    public static void recordLockWait(long nanos) {
+        ELAPSED.get()[LOCK_WAIT] += nanos;
+    }
+    
+    public static void recordTransaction(long nanos) {
+        ELAPSED.get()[TRANSACTION] += nanos;
+    }
+    
+    public static void recordRetries(int retries) {
+        ELAPSED.get()[RETRIES] += retries;
+    }
+    
+    public static void recordEscalation() {
+        ELAPSED.get()[ESCALATIONS]++;
+    }
+    
+    static void reset() {
+        long[] elapsed = ELAPSED.get();
+        elapsed[LOCK_WAIT] = 0;
+        elapsed[TRANSACTION] = 0;
+        elapsed[RETRIES] = 0;
+        elapsed[ESCALATIONS] = 0;
+    }
+    
+    static long lockWaitNanos() {
+        return ELAPSED.get()[LOCK_WAIT];
+    }
+    
+    static long transactionNanos() {
+        return ELAPSED.get()[TRANSACTION];
+    }
+    
+    static long retries() {
+        return ELAPSED.get()[RETRIES];
+    }
+    
+    static boolean escalated() {
+        return ELAPSED.get()[ESCALATIONS] > 0;
+    }
+}
@@ -0,0 +1,74 @@
+package com.study.redis_test.harness;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// JFR jdk.VirtualThreadPinned 이벤트를 테스트 실행 동안만 구독해 횟수와 위치를 집계한다
+class PinnedEventRecorder {
+    
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_LOCATIONS = 5;
+    
+    private final RecordingStream stream;
+    private final LongAdder eventCount = new LongAdder();
+    private final Map<String, LongAdder> locations = new ConcurrentHashMap<>();
+    
+    PinnedEventRecorder(Duration threshold) {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::record);
+        stream.startAsync();
+    }
+    
+    void stop() {
+        // stop() 은 이미 기록된 이벤트가 모두 처리될 때까지 기다린다
+        stream.stop();
+        stream.close();
+    }
+    
+    long getEventCount() {
+        return eventCount.sum();
+    }
+    
+    List<String> getTopLocations() {
+        return locations.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, LongAdder> entry) -> entry.getValue().sum()).reversed())
+                .limit(MAX_LOCATIONS)
+                .map(entry -> entry.getKey() + " (" + entry.getValue().sum() + ")")
+                .toList();
+    }
+    
+    private void record(RecordedEvent event) {
+        eventCount.increment();
+        locations.computeIfAbsent(pinnedLocation(event.getStackTrace()), key -> new LongAdder()).increment();
+    }
+    
+    // park 관련 JDK 프레임을 건너뛰고 실제로 캐리어 스레드를 붙잡은 첫 애플리케이션/라이브러리 프레임을 찾는다
+    private static String pinnedLocation(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "unknown";
+        }
+        
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        RecordedFrame location = frames.stream()
+                .filter(frame -> frame.isJavaFrame() && !isJdkFrame(frame))
+                .findFirst()
+                .orElse(frames.get(0));
+        return location.getMethod().getType().getName() + "." + location.getMethod().getName()
+                + ":" + location.getLineNumber();
+    }
+    
+    private static boolean isJdkFrame(RecordedFrame frame) {
+        String typeName = frame.getMethod().getType().getName();
+        return typeName.startsWith("java.") || typeName.startsWith("jdk.") || typeName.startsWith("sun.");
+    }
+}
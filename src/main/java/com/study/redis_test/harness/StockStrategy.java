@@ -0,0 +1,12 @@
+package com.study.redis_test.harness;
+
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+
+// 부하 생성기가 호출하는 재고 전략. totalStock 은 (시작 ID, 끝 ID) 구간의 재고 합계를 돌려준다
+public record StockStrategy(String lockType,
+                            BiConsumer<Long, Integer> updateStock,
+                            Consumer<Long> readProduct,
+                            BinaryOperator<Long> totalStock) {
+}
@@ -0,0 +1,57 @@
+package com.study.redis_test.harness;
+
+import com.study.redis_test.metrics.StockMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+// 자동 구성된 트랜잭션 매니저에 등록되어, 새로 시작된 트랜잭션의 begin 부터 commit/rollback 까지 시간을 잰다
+@Component
+@RequiredArgsConstructor
+public class TransactionTimingListener implements TransactionExecutionListener {
+    
+    private static final ThreadLocal<Deque<Long>> STARTED_AT = ThreadLocal.withInitial(ArrayDeque::new);
+    
+    private final StockMetrics stockMetrics;
+    
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        if (beginFailure == null && transaction.isNewTransaction()) {
+            STARTED_AT.get().push(System.nanoTime());
+        }
+    }
+    
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        complete(transaction, commitFailure == null);
+    }
+    
+    @Override
+    public void afterRollback(TransactionExecution transaction, Throwable rollbackFailure) {
+        complete(transaction, false);
+    }
+    
+    private void complete(TransactionExecution transaction, boolean committed) {
+        Deque<Long> startedAt = STARTED_AT.get();
+        if (transaction.isNewTransaction() && !startedAt.isEmpty()) {
+            long elapsed = System.nanoTime() - startedAt.pop();
+            OperationTimer.recordTransaction(elapsed);
+            stockMetrics.recordTransaction(transactionName(transaction), elapsed, committed);
+        }
+    }
+    
+    // @Transactional 은 "패키지.클래스.메서드" 이름을 갖고, TransactionTemplate 은 이름이 없다
+    private static String transactionName(TransactionExecution transaction) {
+        String name = transaction.getTransactionName();
+        if (name == null || name.isEmpty()) {
+            return "template";
+        }
+        int lastDot = name.lastIndexOf('.');
+        int classDot = lastDot < 0 ? -1 : name.lastIndexOf('.', lastDot - 1);
+        return classDot < 0 ? name : name.substring(classDot + 1);
+    }
+}
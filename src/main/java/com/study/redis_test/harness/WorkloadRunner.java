@@ -0,0 +1,190 @@
+package com.study.redis_test.harness;
+
+import com.study.redis_test.dto.ExecutionMode;
+import com.study.redis_test.dto.KeyDistribution;
+import com.study.redis_test.dto.WorkloadRequest;
+import com.study.redis_test.dto.WorkloadResult;
+import com.study.redis_test.datasource.DataSourceRouting;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// 열린 루프 부하 생성기: 요청마다 예정 발송 시각을 정해 두고, 앞선 요청이 밀려도 다음 요청을 늦추지 않는다.
+// 지연 시간은 예정 시각부터 재므로 서버가 막혀 있던 동안 보내지 못한 요청의 대기 시간도 결과에 드러난다
+@Slf4j
+@Component
+public class WorkloadRunner {
+    
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    
+    @Value("${workload.platform-threads:200}")
+    private int defaultPlatformThreads;
+    
+    // 처리되지 않고 쌓인 요청이 이 수를 넘으면 더 보내지 않고 실패로 센다 (메모리 보호)
+    @Value("${workload.max-outstanding:100000}")
+    private long maxOutstanding;
+    
+    @Value("${workload.drain-timeout-seconds:30}")
+    private long drainTimeoutSeconds;
+    
+    public WorkloadResult run(StockStrategy strategy, WorkloadRequest request) {
+        ExecutionMode mode = request.getExecutionMode() == null ? ExecutionMode.PLATFORM : request.getExecutionMode();
+        KeyDistribution distribution = request.getKeyDistribution() == null
+                ? KeyDistribution.UNIFORM : request.getKeyDistribution();
+        double readRatio = request.getReadRatio() == null ? 0.0 : request.getReadRatio();
+        int warmupSeconds = request.getWarmupSeconds() == null ? 0 : request.getWarmupSeconds();
+        int rate = request.getTargetRatePerSec();
+        
+        Long firstId = request.getFirstProductId();
+        Long lastId = firstId + request.getProductCount() - 1;
+        long initialStock = DataSourceRouting.readFromPrimary(() -> strategy.totalStock().apply(firstId, lastId));
+        
+        KeySampler sampler = KeySampler.of(request);
+        SplittableRandom random = new SplittableRandom();
+        Stats stats = new Stats();
+        
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        threadMXBean.resetPeakThreadCount();
+        ExecutorService executor = mode == ExecutionMode.VIRTUAL
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(request.getMaxConcurrency() == null
+                        ? defaultPlatformThreads : request.getMaxConcurrency());
+        
+        long startNanos = System.nanoTime();
+        long measureFromNanos = startNanos + warmupSeconds * NANOS_PER_SECOND;
+        long endNanos = measureFromNanos + request.getDurationSeconds() * NANOS_PER_SECOND;
+        long issued = 0;
+        
+        log.info("부하 생성 시작: 전략={}, 분포={}, 목표={}/s, 측정={}s, 워밍업={}s",
+                strategy.lockType(), distribution, rate, request.getDurationSeconds(), warmupSeconds);
+        
+        try {
+            while (true) {
+                // 누적 오차가 생기지 않도록 간격을 더해 가지 않고 순번으로 예정 시각을 계산한다
+                long intendedNanos = startNanos + issued * NANOS_PER_SECOND / rate;
+                if (intendedNanos >= endNanos || !waitUntil(intendedNanos)) {
+                    break;
+                }
+                stats.maxScheduleLagNanos.accumulate(System.nanoTime() - intendedNanos);
+                issued++;
+                
+                boolean measured = intendedNanos >= measureFromNanos;
+                boolean read = random.nextDouble() < readRatio;
+                Long productId = firstId + sampler.next(random);
+                
+                if (issued - stats.completed.sum() > maxOutstanding) {
+                    stats.completed.increment();
+                    if (measured) {
+                        stats.errors.record(new RejectedExecutionException("처리 대기 중인 요청이 너무 많습니다: " + maxOutstanding));
+                    }
+                    continue;
+                }
+                executor.execute(() -> execute(strategy, stats, productId, request.getQuantity(),
+                        read, measured, intendedNanos));
+            }
+        } finally {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(drainTimeoutSeconds, TimeUnit.SECONDS)) {
+                    log.warn("부하 생성 종료 대기 시간 초과: 남은 요청={}", issued - stats.completed.sum());
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+            }
+        }
+        
+        long measuredElapsedNanos = Math.max(System.nanoTime() - measureFromNanos, 1);
+        long measuredRequests = stats.success.sum() + stats.errors.total();
+        long finalStock = DataSourceRouting.readFromPrimary(() -> strategy.totalStock().apply(firstId, lastId));
+        
+        return WorkloadResult.builder()
+                .lockType(strategy.lockType())
+                .keyDistribution(distribution.name())
+                .executionMode(mode.name())
+                .targetRatePerSec(rate)
+                .achievedRatePerSec(measuredRequests * (double) NANOS_PER_SECOND / measuredElapsedNanos)
+                .issuedRequests(issued)
+                .measuredRequests(measuredRequests)
+                .unfinishedRequests(issued - stats.completed.sum())
+                .successCount(stats.success.sum())
+                .failCount(stats.errors.total())
+                .readCount(stats.reads.sum())
+                .writeCount(stats.writes.sum())
+                .latency(stats.latency.summarize())
+                .serviceTime(stats.serviceTime.summarize())
+                .maxScheduleLagMicros(TimeUnit.NANOSECONDS.toMicros(stats.maxScheduleLagNanos.get()))
+                .errors(stats.errors.summarize())
+                .initialStockTotal(initialStock)
+                .finalStockTotal(finalStock)
+                .expectedStockTotal(initialStock + stats.appliedDelta.sum())
+                .peakThreadCount(threadMXBean.getPeakThreadCount())
+                .build();
+    }
+    
+    private static void execute(StockStrategy strategy, Stats stats, Long productId, Integer quantity,
+                                boolean read, boolean measured, long intendedNanos) {
+        long serviceStartNanos = System.nanoTime();
+        try {
+            if (read) {
+                strategy.readProduct().accept(productId);
+            } else {
+                strategy.updateStock().accept(productId, quantity);
+                // 워밍업 중의 변경도 재고에는 남으므로 예상 합계에는 포함한다
+                stats.appliedDelta.add(quantity);
+            }
+            if (measured) {
+                stats.success.increment();
+            }
+        } catch (Exception e) {
+            if (measured) {
+                stats.errors.record(e);
+            }
+        } finally {
+            long now = System.nanoTime();
+            stats.completed.increment();
+            if (measured) {
+                stats.latency.recordNanos(now - intendedNanos);
+                stats.serviceTime.recordNanos(now - serviceStartNanos);
+                (read ? stats.reads : stats.writes).increment();
+            }
+        }
+    }
+    
+    // 인터럽트되면 false
+    private static boolean waitUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static final class Stats {
+        
+        private final LatencyRecorder latency = new LatencyRecorder();
+        private final LatencyRecorder serviceTime = new LatencyRecorder();
+        private final ErrorAggregator errors = new ErrorAggregator();
+        private final LongAdder success = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder reads = new LongAdder();
+        private final LongAdder writes = new LongAdder();
+        private final LongAdder appliedDelta = new LongAdder();
+        private final LongAccumulator maxScheduleLagNanos = new LongAccumulator(Math::max, 0L);
+    }
+}
@@ -0,0 +1,36 @@
+package com.study.redis_test.harness;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+// 순번 k 가 뽑힐 확률이 1/(k+1)^s 에 비례한다. 누적 분포를 한 번 계산해 두고 이진 탐색으로 뽑는다
+class ZipfKeySampler implements KeySampler {
+    
+    private final double[] cumulative;
+    
+    ZipfKeySampler(int keyCount, double exponent) {
+        if (keyCount < 1) {
+            throw new IllegalArgumentException("상품 수는 1 이상이어야 합니다");
+        }
+        cumulative = new double[keyCount];
+        
+        double sum = 0;
+        for (int i = 0; i < keyCount; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < keyCount; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+    
+    @Override
+    public int next(RandomGenerator random) {
+        double u = random.nextDouble();
+        int index = Arrays.binarySearch(cumulative, u);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return Math.min(index, cumulative.length - 1);
+    }
+}
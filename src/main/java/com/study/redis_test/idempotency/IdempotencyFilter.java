@@ -0,0 +1,238 @@
+package com.study.redis_test.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// 재고 변경 요청에 Idempotency-Key 헤더가 있으면 같은 키의 재요청은 락과 DB 를 거치지 않고 저장된 응답을 그대로 돌려준다.
+// 컨트롤러마다 처리하지 않고 필터에서 처리하므로 모든 전략에 같은 규칙이 적용된다.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdempotencyFilter extends OncePerRequestFilter {
+    
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    
+    private static final String PENDING_ATTRIBUTE = IdempotencyFilter.class.getName() + ".PENDING";
+    private static final Pattern STOCK_PATH = Pattern.compile("^/api/.+/stock(/async|/batch)?$");
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final String UNKNOWN_OUTCOME = "처리 중 오류가 발생해 반영 여부를 알 수 없습니다. 재고를 확인한 뒤 새 Idempotency-Key 로 다시 시도해주세요.";
+    
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${stock.idempotency.enabled:true}")
+    private boolean enabled;
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !enabled
+                || request.getHeader(HEADER) == null
+                || !("PATCH".equals(method) || "POST".equals(method))
+                || !STOCK_PATH.matcher(request.getRequestURI()).matches();
+    }
+    
+    // 비동기 재고 API 는 응답이 비동기 디스패치에서 완성되므로 그때 결과를 저장한다
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            filterChain.doFilter(request, response);
+            complete(request, response);
+            return;
+        }
+        
+        String idempotencyKey = request.getHeader(HEADER);
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, "Idempotency-Key 는 1~" + MAX_KEY_LENGTH + "자여야 합니다");
+            return;
+        }
+        
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String fingerprint = fingerprint(cachedRequest);
+        
+        IdempotencyStore.Entry entry;
+        try {
+            entry = idempotencyStore.begin(idempotencyKey, fingerprint);
+        } catch (Exception e) {
+            // Redis 를 쓸 수 없으면 중복 제거 없이 처리한다 (재고 변경 자체를 막지는 않는다)
+            log.warn("멱등 키 조회 실패, 중복 제거 없이 처리: key={}, error={}", idempotencyKey, e.getMessage());
+            filterChain.doFilter(cachedRequest, response);
+            return;
+        }
+        
+        switch (entry.state()) {
+            case MISMATCH -> writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    "같은 Idempotency-Key 로 다른 요청을 보냈습니다");
+            case PENDING -> writeError(response, HttpStatus.CONFLICT,
+                    "같은 Idempotency-Key 요청이 아직 처리 중입니다. 잠시 후 다시 시도해주세요.");
+            case DONE -> replay(response, entry);
+            case NEW -> {
+                ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+                request.setAttribute(PENDING_ATTRIBUTE, new PendingRequest(idempotencyKey, fingerprint));
+                boolean handled = false;
+                try {
+                    filterChain.doFilter(cachedRequest, responseWrapper);
+                    handled = true;
+                } finally {
+                    if (!handled) {
+                        // 예외가 커밋 이후에 났을 수도 있으므로 키를 풀지 않고 실패 응답으로 저장한다
+                        request.removeAttribute(PENDING_ATTRIBUTE);
+                        idempotencyStore.complete(idempotencyKey, fingerprint, HttpStatus.INTERNAL_SERVER_ERROR.value(),
+                                MediaType.APPLICATION_JSON_VALUE, objectMapper.writeValueAsString(Map.of("error", UNKNOWN_OUTCOME)));
+                    }
+                }
+                if (!isAsyncStarted(request)) {
+                    complete(request, responseWrapper);
+                }
+            }
+        }
+    }
+    
+    // 아무것도 반영하지 않은 것이 확실한 응답(409 락 획득 실패·충돌, 429 대기열 초과)만 저장하지 않고 키를 풀어 같은 키로 다시 시도할 수 있게 한다.
+    // 5xx 는 커밋 이후에 실패했을 수 있어 같은 키로 다시 처리하면 변경이 두 번 반영될 수 있으므로 응답을 그대로 저장한다
+    private void complete(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ContentCachingResponseWrapper responseWrapper = WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+        PendingRequest pending = (PendingRequest) request.getAttribute(PENDING_ATTRIBUTE);
+        if (responseWrapper == null || pending == null) {
+            return;
+        }
+        request.removeAttribute(PENDING_ATTRIBUTE);
+        
+        int status = responseWrapper.getStatus();
+        if (status == HttpStatus.CONFLICT.value() || status == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            idempotencyStore.release(pending.key(), pending.fingerprint());
+        } else {
+            idempotencyStore.complete(pending.key(), pending.fingerprint(), status, responseWrapper.getContentType(),
+                    new String(responseWrapper.getContentAsByteArray(), StandardCharsets.UTF_8));
+        }
+        responseWrapper.copyBodyToResponse();
+    }
+    
+    private void replay(HttpServletResponse response, IdempotencyStore.Entry entry) throws IOException {
+        byte[] body = entry.body().getBytes(StandardCharsets.UTF_8);
+        response.setStatus(entry.status());
+        if (!entry.contentType().isEmpty()) {
+            response.setContentType(entry.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+    
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(objectMapper.writeValueAsString(Map.of("error", message)));
+    }
+    
+    // 같은 키로 경로나 본문이 다른 요청을 보내면 이전 응답을 돌려주지 않고 거절하기 위한 지문
+    private static String fingerprint(CachedBodyRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((request.getMethod() + " " + request.getRequestURI() + "?" + request.getQueryString() + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            digest.update(request.body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private record PendingRequest(String key, String fingerprint) {
+    }
+    
+    // 지문을 만들려고 먼저 읽은 본문을 컨트롤러가 다시 읽을 수 있게 보관한다
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        
+        private final byte[] body;
+        
+        private CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = StreamUtils.copyToByteArray(request.getInputStream());
+        }
+        
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+                
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+                
+                // 본문이 이미 메모리에 있으므로 바로 읽을 수 있다고 알리고, 다 읽으면 끝났다고 알린다
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            listener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+                
+                @Override
+                public int read() {
+                    return input.read();
+                }
+                
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+        
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
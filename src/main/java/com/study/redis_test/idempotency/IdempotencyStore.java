@@ -0,0 +1,98 @@
+package com.study.redis_test.idempotency;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdempotencyStore {
+    
+    private static final String KEY_PREFIX = "stock:idempotency:";
+    
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> BEGIN_SCRIPT = new DefaultRedisScript<>();
+    private static final DefaultRedisScript<Long> COMPLETE_SCRIPT = new DefaultRedisScript<>();
+    
+    static {
+        BEGIN_SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/idempotency_begin.lua")));
+        BEGIN_SCRIPT.setResultType(List.class);
+        COMPLETE_SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/idempotency_complete.lua")));
+        COMPLETE_SCRIPT.setResultType(Long.class);
+    }
+    
+    public enum State {
+        NEW,
+        MISMATCH,
+        PENDING,
+        DONE
+    }
+    
+    public record Entry(State state, int status, String contentType, String body) {
+        
+        static Entry of(State state) {
+            return new Entry(state, 0, null, null);
+        }
+    }
+    
+    private final StringRedisTemplate stringRedisTemplate;
+    
+    @Value("${stock.idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+    
+    // 처리 중인 요청이 응답 없이 죽어도 이 시간이 지나면 같은 키로 다시 시도할 수 있다
+    @Value("${stock.idempotency.pending-ttl-ms:30000}")
+    private long pendingTtlMs;
+    
+    // 조회와 처리 중 표시를 스크립트 하나로 처리해 요청마다 Redis 왕복은 한 번뿐이다
+    public Entry begin(String idempotencyKey, String fingerprint) {
+        List<?> result = stringRedisTemplate.execute(
+                BEGIN_SCRIPT,
+                List.of(KEY_PREFIX + idempotencyKey),
+                fingerprint,
+                String.valueOf(pendingTtlMs));
+        if (result == null || result.isEmpty()) {
+            throw new IllegalStateException("멱등 키 조회 결과가 없습니다: " + idempotencyKey);
+        }
+        
+        State state = State.valueOf((String) result.get(0));
+        if (state != State.DONE) {
+            return Entry.of(state);
+        }
+        return new Entry(state, Integer.parseInt((String) result.get(1)), (String) result.get(2), (String) result.get(3));
+    }
+    
+    public void complete(String idempotencyKey, String fingerprint, int status, String contentType, String body) {
+        execute(idempotencyKey, fingerprint, String.valueOf(status), contentType == null ? "" : contentType, body);
+    }
+    
+    public void release(String idempotencyKey, String fingerprint) {
+        execute(idempotencyKey, fingerprint, "", "", "");
+    }
+    
+    private void execute(String idempotencyKey, String fingerprint, String status, String contentType, String body) {
+        try {
+            Long applied = stringRedisTemplate.execute(
+                    COMPLETE_SCRIPT,
+                    List.of(KEY_PREFIX + idempotencyKey),
+                    fingerprint,
+                    status,
+                    contentType,
+                    body,
+                    String.valueOf(ttlSeconds));
+            if (applied == null || applied == 0) {
+                log.warn("멱등 키가 처리 중에 만료되었습니다: {}", idempotencyKey);
+            }
+        } catch (Exception e) {
+            log.warn("멱등 키 결과 저장 실패: key={}, error={}", idempotencyKey, e.getMessage());
+        }
+    }
+}
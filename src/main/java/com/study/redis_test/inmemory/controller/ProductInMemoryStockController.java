@@ -0,0 +1,53 @@
+package com.study.redis_test.inmemory.controller;
+
+import com.study.redis_test.dto.*;
+import com.study.redis_test.inmemory.service.InMemoryStockService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/in-memory/products")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stock.in-memory.enabled", havingValue = "true")
+public class ProductInMemoryStockController {
+    
+    private final InMemoryStockService inMemoryStockService;
+    
+    @GetMapping("/{id}")
+    public ResponseEntity<ProductPlainResponse> getProduct(@PathVariable Long id) {
+        ProductPlainResponse response = inMemoryStockService.getProductById(id);
+        return ResponseEntity.ok(response);
+    }
+    
+    @PatchMapping("/{id}/stock")
+    public ResponseEntity<StockUpdateResponse> updateStock(
+            @PathVariable Long id,
+            @RequestBody Map<String, Integer> request) {
+        Integer quantity = request.get("quantity");
+        if (quantity == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        StockUpdateResponse response = inMemoryStockService.updateStock(id, quantity);
+        return ResponseEntity.ok(response);
+    }
+    
+    @PostMapping("/{id}/concurrent-test")
+    public ResponseEntity<ConcurrentTestResult> testConcurrentStockUpdate(
+            @PathVariable Long id,
+            @Valid @RequestBody ConcurrentTestRequest request) {
+        ConcurrentTestResult result = inMemoryStockService.testConcurrentStockUpdate(id, request);
+        return ResponseEntity.ok(result);
+    }
+    
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+    }
+}
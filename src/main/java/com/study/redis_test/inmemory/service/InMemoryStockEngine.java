@@ -0,0 +1,238 @@
+package com.study.redis_test.inmemory.service;
+
+import com.study.redis_test.cache.service.ProductCacheService;
+import com.study.redis_test.metrics.StockMetrics;
+import com.study.redis_test.repository.ProductPlainRepository;
+import com.study.redis_test.repository.ProductStockJdbcRepository;
+import com.study.redis_test.datasource.DataSourceRouting;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 단일 인스턴스 전용 재고 엔진. 재고 차감은 메모리의 CAS 로만 처리하고,
+// 변경 결과는 append-only 로그에 남긴 뒤 주기적인 체크포인트로 product_plain 에 변경량만 더한다.
+// 다른 전략이 같은 상품 재고를 바꾸면 DB 에는 그대로 남고, 엔진의 재고에는 다음 체크포인트에서 합쳐진다.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stock.in-memory.enabled", havingValue = "true")
+public class InMemoryStockEngine {
+    
+    private static final String LOCK_TYPE = "IN_MEMORY_CAS";
+    
+    private final ProductPlainRepository productRepository;
+    private final ProductStockJdbcRepository productStockJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductCacheService productCacheService;
+    private final StockMetrics stockMetrics;
+    
+    private StockCells cells;
+    private StockLog stockLog;
+    
+    // 상품별로 DB 에 반영됐다고 아는 재고. 셀 재고와의 차이가 다음 체크포인트에 더할 변경량이다
+    private final Map<Long, Integer> baselines = new ConcurrentHashMap<>();
+    
+    // 마지막 체크포인트의 상품별 버전과 재고 (pack 한 값). 체크포인트 스레드만 접근한다
+    private Map<Long, Long> checkpointed = new HashMap<>();
+    
+    @Value("${stock.in-memory.log-dir:./data/stock-log}")
+    private String logDir;
+    
+    @Value("${stock.in-memory.fsync:false}")
+    private boolean fsync;
+    
+    @PostConstruct
+    public void start() throws IOException {
+        stockLog = new StockLog(Path.of(logDir), fsync);
+        checkpointed.putAll(stockLog.readCheckpoint());
+        
+        List<Object[]> rows = DataSourceRouting.readFromPrimary(productRepository::findAllStockQty);
+        long[] ids = new long[rows.size()];
+        long[] values = new long[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            ids[i] = (Long) rows.get(i)[0];
+            int dbStock = (Integer) rows.get(i)[1];
+            Long last = checkpointed.get(ids[i]);
+            values[i] = StockCells.pack(last == null ? 0 : StockCells.versionOf(last), dbStock);
+            baselines.put(ids[i], dbStock);
+        }
+        cells = new StockCells(ids, values);
+        
+        // 마지막 체크포인트 이후의 로그에서 상품별 마지막 결과를 찾는다. 로그에는 결과값이 남아 있으므로 버전이 더 큰 항목만 본다
+        Map<Long, Long> latest = new HashMap<>();
+        stockLog.replay((id, packed) -> {
+            long current = latest.getOrDefault(id, cells.get(id));
+            if (current != StockCells.MISSING
+                    && Integer.toUnsignedLong(StockCells.versionOf(packed)) > Integer.toUnsignedLong(StockCells.versionOf(current))) {
+                latest.put(id, packed);
+            }
+        });
+        
+        // 그 사이 다른 전략이 바꾼 DB 재고 위에, 체크포인트 이후 이 엔진이 바꾼 만큼만 얹는다.
+        // 체크포인트 재고가 없으면 (이전 형식이거나 반영 전에 끝난 상품) 얼마나 바꿨는지 알 수 없으므로 DB 값을 그대로 쓴다
+        latest.forEach((id, packed) -> {
+            Long last = checkpointed.get(id);
+            int engineDelta = last == null ? 0 : StockCells.stockOf(packed) - StockCells.stockOf(last);
+            long stock = (long) baselines.get(id) + engineDelta;
+            if (stock < 0) {
+                log.error("인메모리 재고 복구 중 초과 판매 감지: 상품ID={}, DB재고={}, 변경량={}", id, baselines.get(id), engineDelta);
+                stock = 0;
+            }
+            cells.set(id, StockCells.pack(StockCells.versionOf(packed), (int) stock));
+        });
+        log.info("인메모리 재고 엔진 시작: 상품 {}건, 로그 재적용 {}건", ids.length, latest.size());
+        
+        checkpoint();
+    }
+    
+    @PreDestroy
+    public void stop() {
+        checkpoint();
+        stockLog.close();
+    }
+    
+    // 재고 변경 후 값을 돌려준다. 잠금 없이 CAS 가 성공할 때까지 다시 시도한다
+    public int update(Long id, int quantity) {
+        while (true) {
+            long current = cells.get(id);
+            if (current == StockCells.MISSING) {
+                load(id);
+                continue;
+            }
+            
+            int stock = StockCells.stockOf(current);
+            long newStock = (long) stock + quantity;
+            if (newStock < 0) {
+                throw new IllegalArgumentException("재고가 부족합니다. 현재 재고: " + stock);
+            }
+            if (newStock > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("재고가 최대치를 초과합니다. 현재 재고: " + stock);
+            }
+            
+            long updated = StockCells.pack(StockCells.versionOf(current) + 1, (int) newStock);
+            if (cells.compareAndSet(id, current, updated)) {
+                stockLog.append(id, updated);
+                return (int) newStock;
+            }
+        }
+    }
+    
+    public Integer getStock(Long id) {
+        long current = cells.get(id);
+        if (current == StockCells.MISSING) {
+            load(id);
+            current = cells.get(id);
+        }
+        return StockCells.stockOf(current);
+    }
+    
+    // 엔진 시작 이후 생성된 상품은 처음 접근할 때 DB 에서 읽어 온다. 셀을 넣은 쪽만 기준 재고를 남긴다
+    private void load(Long id) {
+        Integer stock = DataSourceRouting.readFromPrimary(() -> productRepository.findStockQtyById(id))
+                .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
+        long packed = StockCells.pack(0, stock);
+        cells.putIfAbsent(id, packed);
+        if (cells.get(id) == packed) {
+            baselines.putIfAbsent(id, stock);
+        }
+    }
+    
+    // 세그먼트를 넘긴 뒤 스냅샷을 찍으므로, 닫힌 세그먼트의 항목은 모두 스냅샷에 포함된다.
+    // 셀의 절대값으로 덮어쓰지 않고 기준 재고와의 차이만 조건부 UPDATE 로 더하므로, 다른 전략이 같은 행을 바꿔도 사라지지 않는다.
+    // DB 반영과 체크포인트 파일 기록이 끝난 뒤에만 닫힌 세그먼트를 지운다.
+    // 커밋 후 파일을 쓰기 전에 프로세스가 죽으면 재시작 시 그 체크포인트의 변경량이 한 번 더 더해질 수 있다
+    @Scheduled(fixedDelayString = "${stock.in-memory.checkpoint-interval-ms:5000}")
+    public synchronized void checkpoint() {
+        long closedSegment = stockLog.rotate();
+        
+        Map<Long, Long> changed = new HashMap<>();
+        cells.forEach((id, packed) -> {
+            Long last = checkpointed.get(id);
+            if ((last == null || StockCells.versionOf(last) != StockCells.versionOf(packed)) && baselines.containsKey(id)) {
+                changed.put(id, packed);
+            }
+        });
+        
+        try {
+            if (!changed.isEmpty()) {
+                Map<Long, Integer> dbStocks = new HashMap<>();
+                transactionTemplate.executeWithoutResult(status -> {
+                    dbStocks.clear();
+                    changed.forEach((id, packed) -> {
+                        int delta = StockCells.stockOf(packed) - baselines.get(id);
+                        if (delta != 0) {
+                            dbStocks.put(id, applyDelta(id, delta));
+                            productCacheService.evictStock(ProductCacheService.PLAIN, id);
+                        }
+                    });
+                });
+                
+                Map<Long, Long> next = new HashMap<>(checkpointed);
+                changed.forEach((id, packed) -> {
+                    Integer dbStock = dbStocks.get(id);
+                    int baseline = StockCells.stockOf(packed);
+                    if (dbStock != null) {
+                        baseline += foldExternalChange(id, dbStock - baseline);
+                    }
+                    baselines.put(id, baseline);
+                    next.put(id, StockCells.pack(StockCells.versionOf(packed), baseline));
+                });
+                stockLog.writeCheckpoint(next);
+                checkpointed = next;
+                log.debug("인메모리 재고 체크포인트 완료: {}건", changed.size());
+            }
+            stockLog.deleteSegmentsUpTo(closedSegment);
+        } catch (Exception e) {
+            // 세그먼트를 남겨 두었으므로 다음 체크포인트나 재시작 시 복구할 수 있다
+            log.warn("인메모리 재고 체크포인트 실패, 다음 주기에 재시도: {}", e.getMessage());
+        }
+    }
+    
+    // 변경량을 조건부 UPDATE 로 더하고 반영 후 DB 재고를 돌려준다. 다른 전략이 먼저 재고를 빼 모자라면 0 으로 맞추고 남은 양을 기록한다
+    private Integer applyDelta(Long id, int delta) {
+        Integer dbStock = productStockJdbcRepository.addStockQtyReturning(id, delta);
+        if (dbStock != null) {
+            return dbStock;
+        }
+        Integer current = productRepository.findStockQtyById(id).orElse(null);
+        if (current == null) {
+            log.warn("인메모리 재고 반영 대상 상품이 없습니다: 상품ID={}, 변경량={}", id, delta);
+            return null;
+        }
+        productRepository.addStockQty(id, -current);
+        stockMetrics.recordOversold(LOCK_TYPE, -delta - current);
+        log.error("인메모리 재고 초과 판매 감지: 상품ID={}, DB재고={}, 변경량={}", id, current, delta);
+        return 0;
+    }
+    
+    // 스냅샷 이후 다른 전략이 DB 에 더한 변경을 셀에도 반영해, 이 엔진이 DB 에 없는 재고를 팔지 않게 한다.
+    // 버전을 올리고 로그에도 남긴다. 실제로 옮긴 양을 돌려주며, 기준 재고도 같은 만큼 옮기므로 다음 체크포인트의 변경량에는 들어가지 않는다
+    private int foldExternalChange(Long id, int drift) {
+        if (drift == 0) {
+            return 0;
+        }
+        while (true) {
+            long current = cells.get(id);
+            int stock = StockCells.stockOf(current);
+            int newStock = (int) Math.min(Math.max(0, (long) stock + drift), Integer.MAX_VALUE);
+            long updated = StockCells.pack(StockCells.versionOf(current) + 1, newStock);
+            if (cells.compareAndSet(id, current, updated)) {
+                stockLog.append(id, updated);
+                return newStock - stock;
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.study.redis_test.inmemory.service;
+
+import com.study.redis_test.dto.*;
+import com.study.redis_test.entity.ProductPlain;
+import com.study.redis_test.harness.ConcurrentTestRunner;
+import com.study.redis_test.repository.ProductPlainRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stock.in-memory.enabled", havingValue = "true")
+public class InMemoryStockService {
+    
+    private final InMemoryStockEngine stockEngine;
+    private final ProductPlainRepository productRepository;
+    private final ConcurrentTestRunner concurrentTestRunner;
+    
+    @Transactional(readOnly = true)
+    public ProductPlainResponse getProductById(Long id) {
+        ProductPlain product = productRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
+        
+        // 아직 체크포인트되지 않은 변경이 있을 수 있으므로 메모리 값을 우선한다
+        ProductPlainResponse response = ProductPlainResponse.from(product);
+        response.setStockQty(stockEngine.getStock(id));
+        return response;
+    }
+    
+    public Integer getStock(Long id) {
+        return stockEngine.getStock(id);
+    }
+    
+    public StockUpdateResponse updateStock(Long id, Integer quantity) {
+        int stockQty = stockEngine.update(id, quantity);
+        
+        log.debug("인메모리 재고 업데이트: 상품ID={}, 변경량={}, 최종재고={}", id, quantity, stockQty);
+        return StockUpdateResponse.of(id, stockQty);
+    }
+    
+    public ConcurrentTestResult testConcurrentStockUpdate(Long id, ConcurrentTestRequest request) {
+        return concurrentTestRunner.run(request, request.getConcurrentCount(), "IN_MEMORY_CAS",
+                () -> updateStock(id, request.getQuantity()),
+                () -> getStock(id));
+    }
+}
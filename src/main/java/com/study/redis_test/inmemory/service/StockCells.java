@@ -0,0 +1,77 @@
+package com.study.redis_test.inmemory.service;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
+
+// 상품 ID -> 재고 셀. 시작 시 적재한 상품은 정렬된 long[] 과 AtomicLongArray 로 박싱 없이 찾고,
+// 그 이후 생성된 상품만 overflow 맵에 둔다.
+// 셀 값은 상위 32비트 버전, 하위 32비트 재고로 묶어 한 번의 CAS 로 함께 바꾼다.
+class StockCells {
+    
+    static final long MISSING = -1L;
+    
+    private final long[] ids;
+    private final AtomicLongArray cells;
+    private final ConcurrentHashMap<Long, AtomicLong> overflow = new ConcurrentHashMap<>();
+    
+    StockCells(long[] sortedIds, long[] packedValues) {
+        this.ids = sortedIds;
+        this.cells = new AtomicLongArray(packedValues);
+    }
+    
+    static long pack(int version, int stock) {
+        return ((long) version << 32) | (stock & 0xFFFFFFFFL);
+    }
+    
+    static int versionOf(long packed) {
+        return (int) (packed >>> 32);
+    }
+    
+    static int stockOf(long packed) {
+        return (int) packed;
+    }
+    
+    long get(long id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) {
+            return cells.get(index);
+        }
+        AtomicLong cell = overflow.get(id);
+        return cell == null ? MISSING : cell.get();
+    }
+    
+    boolean compareAndSet(long id, long expected, long updated) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) {
+            return cells.compareAndSet(index, expected, updated);
+        }
+        AtomicLong cell = overflow.get(id);
+        return cell != null && cell.compareAndSet(expected, updated);
+    }
+    
+    // 복구 시 로그 재적용에만 사용한다 (동시 접근 없음)
+    void set(long id, long packed) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) {
+            cells.set(index, packed);
+            return;
+        }
+        overflow.computeIfAbsent(id, key -> new AtomicLong()).set(packed);
+    }
+    
+    void putIfAbsent(long id, long packed) {
+        if (Arrays.binarySearch(ids, id) < 0) {
+            overflow.putIfAbsent(id, new AtomicLong(packed));
+        }
+    }
+    
+    void forEach(BiConsumer<Long, Long> action) {
+        for (int i = 0; i < ids.length; i++) {
+            action.accept(ids[i], cells.get(i));
+        }
+        overflow.forEach((id, cell) -> action.accept(id, cell.get()));
+    }
+}
@@ -0,0 +1,213 @@
+package com.study.redis_test.inmemory.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+// 재고 변경 결과(상품ID, 버전, 재고)를 세그먼트 파일에 순서대로 덧붙이는 로그.
+// 호출 스레드는 lock-free 큐에 넣기만 하고, 파일 쓰기는 전용 스레드 하나가 맡는다.
+@Slf4j
+class StockLog {
+    
+    // id(8) + version(4) + stock(4)
+    private static final int RECORD_BYTES = 16;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    // 버전만 남기던 checkpoint.meta 와 레코드 크기가 달라 이름을 바꿨다
+    private static final String CHECKPOINT_FILE = "checkpoint-stock.meta";
+    
+    private final Path directory;
+    private final boolean fsync;
+    private final ConcurrentLinkedQueue<Object> queue = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES * 1024);
+    private final Thread writer;
+    
+    private volatile boolean running = true;
+    
+    // 아래 값은 writer 스레드만 바꾼다
+    private long segment;
+    private FileChannel channel;
+    
+    StockLog(Path directory, boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(directory);
+            this.segment = segmentNumbers().stream().mapToLong(Long::longValue).max().orElse(0L) + 1;
+            this.channel = openSegment(segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("재고 로그 디렉터리를 열 수 없습니다: " + directory, e);
+        }
+        this.writer = new Thread(this::writeLoop, "in-memory-stock-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+    
+    void append(long id, long packed) {
+        queue.add(new Entry(id, packed));
+    }
+    
+    // 현재 세그먼트를 닫고 새 세그먼트로 넘어간다. 닫힌 세그먼트 번호를 돌려준다.
+    // 이 호출 전에 append 된 항목은 모두 닫힌 세그먼트 이하에 기록된다.
+    long rotate() {
+        Rotation rotation = new Rotation(new CompletableFuture<>());
+        queue.add(rotation);
+        return rotation.closed().join();
+    }
+    
+    void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    // 체크포인트에 반영된 상품별 버전과 그때의 재고 (pack 한 값). 이 버전 이하의 로그 항목은 복구 시 건너뛴다
+    Map<Long, Long> readCheckpoint() throws IOException {
+        Map<Long, Long> checkpointed = new HashMap<>();
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return checkpointed;
+        }
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+        while (data.remaining() >= RECORD_BYTES) {
+            long id = data.getLong();
+            int version = data.getInt();
+            int stock = data.getInt();
+            checkpointed.put(id, StockCells.pack(version, stock));
+        }
+        return checkpointed;
+    }
+    
+    void writeCheckpoint(Map<Long, Long> checkpointed) throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(checkpointed.size() * RECORD_BYTES);
+        checkpointed.forEach((id, packed) -> data.putLong(id)
+                .putInt(StockCells.versionOf(packed))
+                .putInt(StockCells.stockOf(packed)));
+        
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        Files.write(temp, data.array());
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    // 남아 있는 세그먼트를 순서대로 읽는다. 쓰다 만 마지막 레코드는 무시한다
+    void replay(BiConsumer<Long, Long> action) throws IOException {
+        for (long number : segmentNumbers()) {
+            if (number >= segment) {
+                continue;
+            }
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(segmentPath(number)));
+            while (data.remaining() >= RECORD_BYTES) {
+                long id = data.getLong();
+                int version = data.getInt();
+                int stock = data.getInt();
+                action.accept(id, StockCells.pack(version, stock));
+            }
+        }
+    }
+    
+    void deleteSegmentsUpTo(long lastSegment) throws IOException {
+        for (long number : segmentNumbers()) {
+            if (number <= lastSegment) {
+                Files.deleteIfExists(segmentPath(number));
+            }
+        }
+    }
+    
+    private void writeLoop() {
+        while (running || !queue.isEmpty()) {
+            Object item = queue.poll();
+            try {
+                if (item == null) {
+                    flush();
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                } else if (item instanceof Entry entry) {
+                    if (buffer.remaining() < RECORD_BYTES) {
+                        flush();
+                    }
+                    buffer.putLong(entry.id())
+                            .putInt(StockCells.versionOf(entry.packed()))
+                            .putInt(StockCells.stockOf(entry.packed()));
+                } else if (item instanceof Rotation rotation) {
+                    flush();
+                    channel.close();
+                    long closed = segment;
+                    segment = closed + 1;
+                    channel = openSegment(segment);
+                    rotation.closed().complete(closed);
+                }
+            } catch (IOException e) {
+                log.error("재고 로그 기록 실패: {}", e.getMessage(), e);
+                if (item instanceof Rotation rotation) {
+                    rotation.closed().completeExceptionally(e);
+                }
+            }
+        }
+        
+        try {
+            flush();
+            channel.close();
+        } catch (IOException e) {
+            log.error("재고 로그 종료 실패: {}", e.getMessage(), e);
+        }
+    }
+    
+    private void flush() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+    
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(segmentPath(number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+    
+    private Path segmentPath(long number) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%019d", number) + SEGMENT_SUFFIX);
+    }
+    
+    private List<Long> segmentNumbers() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.valueOf(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+    
+    private record Entry(long id, long packed) {
+    }
+    
+    private record Rotation(CompletableFuture<Long> closed) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.study.redis_test.journal.controller;
+
+import com.study.redis_test.dto.*;
+import com.study.redis_test.journal.service.StockJournalService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/journal/products")
+@RequiredArgsConstructor
+public class ProductJournalController {
+    
+    private final StockJournalService stockJournalService;
+    
+    @PatchMapping("/{id}/stock")
+    public ResponseEntity<StockUpdateResponse> updateStock(
+            @PathVariable Long id,
+            @RequestBody Map<String, Integer> request) {
+        Integer quantity = request.get("quantity");
+        if (quantity == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        StockUpdateResponse response = stockJournalService.updateStock(id, quantity);
+        return ResponseEntity.ok(response);
+    }
+    
+    @PostMapping("/{id}/concurrent-test")
+    public ResponseEntity<ConcurrentTestResult> testConcurrentStockUpdate(
+            @PathVariable Long id,
+            @Valid @RequestBody ConcurrentTestRequest request) {
+        ConcurrentTestResult result = stockJournalService.testConcurrentStockUpdate(id, request);
+        return ResponseEntity.ok(result);
+    }
+    
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+    }
+}
@@ -0,0 +1,151 @@
+package com.study.redis_test.journal.service;
+
+import com.study.redis_test.dto.StockUpdateResponse;
+import com.study.redis_test.service.CoalescedStockWriter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockJournal {
+    
+    private final CoalescedStockWriter coalescedStockWriter;
+    
+    private final BlockingQueue<JournalEntry> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private volatile boolean running = true;
+    
+    @Value("${stock.journal.window-ms:5}")
+    private long windowMs;
+    
+    @Value("${stock.journal.batch-size:200}")
+    private int batchSize;
+    
+    @PostConstruct
+    public void start() {
+        worker.execute(this::drainLoop);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        running = false;
+        worker.shutdown();
+        try {
+            worker.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        // 시간 안에 처리하지 못했거나 drain 루프가 끝난 뒤 들어온 요청은 기다리는 호출자가 없도록 실패로 끝낸다
+        JournalEntry entry;
+        while ((entry = queue.poll()) != null) {
+            entry.future().completeExceptionally(new IllegalStateException("재고 저널이 종료되었습니다"));
+        }
+    }
+    
+    public CompletableFuture<StockUpdateResponse> submit(Long id, Integer quantity) {
+        JournalEntry entry = new JournalEntry(id, quantity, new CompletableFuture<>());
+        if (!running) {
+            entry.future().completeExceptionally(new IllegalStateException("재고 저널이 종료되었습니다"));
+            return entry.future();
+        }
+        queue.add(entry);
+        
+        // 위 검사와 add 사이에 종료되어 drain 루프가 이미 끝났다면 아무도 꺼내지 않으므로 직접 실패시킨다.
+        // 루프가 먼저 꺼내 갔다면 remove 가 false 이므로 두 번 완료되지 않는다
+        if (!running && queue.remove(entry)) {
+            entry.future().completeExceptionally(new IllegalStateException("재고 저널이 종료되었습니다"));
+        }
+        return entry.future();
+    }
+    
+    private void drainLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                JournalEntry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                
+                // 첫 요청 이후 window 동안 batch-size 까지 모아서 한 번에 처리
+                List<JournalEntry> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMs);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        queue.drainTo(batch, batchSize - batch.size());
+                        break;
+                    }
+                    JournalEntry next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                
+                applyBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("재고 저널 처리 중 오류 발생", e);
+            }
+        }
+    }
+    
+    private void applyBatch(List<JournalEntry> batch) {
+        Map<Long, List<JournalEntry>> entriesByProduct = new LinkedHashMap<>();
+        for (JournalEntry entry : batch) {
+            entriesByProduct.computeIfAbsent(entry.productId(), key -> new ArrayList<>()).add(entry);
+        }
+        
+        entriesByProduct.forEach(this::applyProductEntries);
+    }
+    
+    // 행을 잠가 읽지 않고, 합친 변경량을 조건부 UPDATE 한 문장으로 반영한 결과로 요청마다 성공/거절을 정한다
+    private void applyProductEntries(Long id, List<JournalEntry> entries) {
+        List<CoalescedStockWriter.Outcome> outcomes;
+        try {
+            outcomes = coalescedStockWriter.apply(id, entries.stream().map(JournalEntry::quantity).toList());
+        } catch (Exception e) {
+            entries.forEach(entry -> entry.future().completeExceptionally(e));
+            return;
+        }
+        
+        log.debug("재고 저널 반영: 상품ID={}, 요청수={}", id, entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            CompletableFuture<StockUpdateResponse> future = entries.get(i).future();
+            CoalescedStockWriter.Outcome outcome = outcomes.get(i);
+            if (outcome.applied()) {
+                future.complete(StockUpdateResponse.of(id, outcome.stockQty()));
+            } else {
+                future.completeExceptionally(new IllegalArgumentException(outcome.rejection()));
+            }
+        }
+    }
+    
+    private record JournalEntry(Long productId, Integer quantity, CompletableFuture<StockUpdateResponse> future) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.study.redis_test.journal.service;
+
+import com.study.redis_test.cache.service.ProductCacheService;
+import com.study.redis_test.dto.*;
+import com.study.redis_test.repository.ProductPlainRepository;
+import com.study.redis_test.harness.ConcurrentTestRunner;
+import com.study.redis_test.soldout.service.SoldOutRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletionException;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockJournalService {
+    
+    private final ProductPlainRepository productRepository;
+    private final StockJournal stockJournal;
+    private final ConcurrentTestRunner concurrentTestRunner;
+    private final SoldOutRegistry soldOutRegistry;
+    
+    // 요청 스레드는 트랜잭션 없이 저널 결과만 기다린다 (DB 커넥션은 저널 워커만 사용)
+    public StockUpdateResponse updateStock(Long id, Integer quantity) {
+        soldOutRegistry.checkAvailable(ProductCacheService.PLAIN, id, quantity);
+        try {
+            StockUpdateResponse response = stockJournal.submit(id, quantity).join();
+            soldOutRegistry.onStockChanged(ProductCacheService.PLAIN, id, response.getStockQty() - quantity,
+                    response.getStockQty());
+            return response;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    // 요청 수만큼 스레드를 두어야 저널 윈도 안에 여러 요청이 모여 한 번에 합산되는 것을 볼 수 있다
+    public ConcurrentTestResult testConcurrentStockUpdate(Long id, ConcurrentTestRequest request) {
+        return concurrentTestRunner.run(request, request.getConcurrentCount(), "WRITE_BEHIND_JOURNAL",
+                () -> updateStock(id, request.getQuantity()),
+                () -> productRepository.findStockQtyById(id)
+                        .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id)));
+    }
+}
@@ -0,0 +1,206 @@
+package com.study.redis_test.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Component
+@RequiredArgsConstructor
+public class StockMetrics {
+    
+    private static final String ALL_KEYS = "all";
+    
+    private final MeterRegistry meterRegistry;
+    
+    // 요청마다 builder 로 register() 를 부르지 않도록 이름과 태그 조합별로 만든 미터를 재사용한다
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+    
+    // 키별 게이지는 대기 중인 요청이 있는 동안만 등록해 두고, 키가 비면 레지스트리에서 지운다
+    private final Map<String, Gauge> keyGauges = new ConcurrentHashMap<>();
+    
+    // 켜면 상품마다 히스토그램 시계열이 생기므로 특정 상품을 들여다볼 때만 켠다
+    @Value("${stock.metrics.key-tag-enabled:false}")
+    private boolean keyTagEnabled;
+    
+    public void recordLockWait(String lockType, String key, long nanos, boolean acquired) {
+        String keyTag = keyTag(key);
+        timers.computeIfAbsent("stock.lock.wait|" + lockType + "|" + keyTag + "|" + acquired,
+                        id -> Timer.builder("stock.lock.wait")
+                                .description("락 획득까지 대기한 시간")
+                                .tag("lockType", lockType)
+                                .tag("key", keyTag)
+                                .tag("acquired", String.valueOf(acquired))
+                                .publishPercentileHistogram()
+                                .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    public void recordLockHold(String lockType, String key, long nanos) {
+        String keyTag = keyTag(key);
+        timers.computeIfAbsent("stock.lock.hold|" + lockType + "|" + keyTag,
+                        id -> Timer.builder("stock.lock.hold")
+                                .description("락을 잡고 있던 시간")
+                                .tag("lockType", lockType)
+                                .tag("key", keyTag)
+                                .publishPercentileHistogram()
+                                .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    public void incrementLockTimeout(String lockType, String key) {
+        keyCounter("stock.lock.timeout", "대기 시간 안에 락을 얻지 못한 횟수", lockType, key).increment();
+    }
+    
+    public void incrementLeaseExpired(String lockType, String key) {
+        keyCounter("stock.lock.lease.expired", "작업이 끝나기 전에 lease 가 만료되어 락이 풀린 횟수", lockType, key).increment();
+    }
+    
+    public void incrementLockHandoff(String lockType, String key) {
+        keyCounter("stock.lock.handoff", "Redis 락을 풀지 않고 같은 노드의 다음 대기자에게 넘긴 횟수", lockType, key).increment();
+    }
+    
+    public void incrementLockRejected(String lockType, String key) {
+        keyCounter("stock.lock.rejected", "대기열이 가득 차 락을 기다리지 않고 거절한 횟수", lockType, key).increment();
+    }
+    
+    public void incrementSoldOutRejected(String table) {
+        counters.computeIfAbsent("stock.soldout.rejected|" + table,
+                        id -> Counter.builder("stock.soldout.rejected")
+                                .description("품절 표시된 상품의 차감 요청을 락과 DB 없이 거절한 횟수")
+                                .tag("table", table)
+                                .register(meterRegistry))
+                .increment();
+    }
+    
+    public void recordOversold(String lockType, int quantity) {
+        counters.computeIfAbsent("stock.oversold|" + lockType,
+                        id -> Counter.builder("stock.oversold")
+                                .description("DB 재고보다 많이 팔려 DB 에 반영하지 못하고 남긴 수량")
+                                .tag("lockType", lockType)
+                                .register(meterRegistry))
+                .increment(quantity);
+    }
+    
+    public void registerLockQueueDepth(String lockType, Supplier<Number> totalDepth) {
+        Gauge.builder("stock.lock.queue.depth.total", totalDepth)
+                .description("락을 기다리는 요청 수 (모든 키 합계)")
+                .tag("lockType", lockType)
+                .register(meterRegistry);
+    }
+    
+    // 키의 대기 수가 0 에서 늘거나 0 으로 줄 때 호출한다. key 태그가 꺼져 있으면 합계 게이지만 사용한다
+    public void syncLockQueueDepth(String lockType, String key, Supplier<Number> depth) {
+        syncKeyGauge("stock.lock.queue.depth", "키별로 락을 기다리는 요청 수", lockType, key, depth);
+    }
+    
+    public void registerMailboxDepth(String lockType, Supplier<Number> totalDepth) {
+        Gauge.builder("stock.actor.mailbox.depth.total", totalDepth)
+                .description("메일박스에 쌓여 처리를 기다리는 변경 요청 수 (모든 상품 합계)")
+                .tag("lockType", lockType)
+                .register(meterRegistry);
+    }
+    
+    public void syncMailboxDepth(String lockType, String key, Supplier<Number> depth) {
+        syncKeyGauge("stock.actor.mailbox.depth", "상품별 메일박스에 쌓인 변경 요청 수", lockType, key, depth);
+    }
+    
+    public void recordDrainBatchSize(String lockType, int size) {
+        summaries.computeIfAbsent("stock.actor.drain.batch.size|" + lockType,
+                        id -> DistributionSummary.builder("stock.actor.drain.batch.size")
+                                .description("메일박스를 한 번 비울 때 묶어서 반영한 요청 수")
+                                .tag("lockType", lockType)
+                                .publishPercentileHistogram()
+                                .register(meterRegistry))
+                .record(size);
+    }
+    
+    public void incrementRetryEscalation(String lockType, String operation) {
+        counters.computeIfAbsent("stock.retry.escalation|" + lockType + "|" + operation,
+                        id -> Counter.builder("stock.retry.escalation")
+                                .description("충돌률이 높아 재시도 대신 비관적 락 경로로 넘긴 횟수")
+                                .tag("lockType", lockType)
+                                .tag("operation", operation)
+                                .register(meterRegistry))
+                .increment();
+    }
+    
+    public void recordRetryAttempts(String lockType, String operation, int attempts, boolean succeeded) {
+        summaries.computeIfAbsent("stock.retry.attempts|" + lockType + "|" + operation + "|" + succeeded,
+                        id -> DistributionSummary.builder("stock.retry.attempts")
+                                .description("호출 한 번에 사용한 시도 횟수")
+                                .tag("lockType", lockType)
+                                .tag("operation", operation)
+                                .tag("succeeded", String.valueOf(succeeded))
+                                .publishPercentileHistogram()
+                                .register(meterRegistry))
+                .record(attempts);
+    }
+    
+    public void recordTransaction(String name, long nanos, boolean committed) {
+        String outcome = committed ? "commit" : "rollback";
+        timers.computeIfAbsent("stock.transaction.duration|" + name + "|" + outcome,
+                        id -> Timer.builder("stock.transaction.duration")
+                                .description("트랜잭션 시작부터 커밋/롤백까지 걸린 시간")
+                                .tag("name", name)
+                                .tag("outcome", outcome)
+                                .publishPercentileHistogram()
+                                .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    public void registerReplicaLag(String replica, Supplier<Number> lagSeconds) {
+        Gauge.builder("stock.datasource.replica.lag", lagSeconds)
+                .description("복제본의 복제 지연 (초, 확인 실패 시 NaN)")
+                .baseUnit("seconds")
+                .tag("replica", replica)
+                .register(meterRegistry);
+    }
+    
+    private Counter keyCounter(String name, String description, String lockType, String key) {
+        String keyTag = keyTag(key);
+        return counters.computeIfAbsent(name + "|" + lockType + "|" + keyTag,
+                id -> Counter.builder(name)
+                        .description(description)
+                        .tag("lockType", lockType)
+                        .tag("key", keyTag)
+                        .register(meterRegistry));
+    }
+    
+    // 등록/해제를 한 곳에서 직렬화하고 호출 시점의 대기 수로 판단하므로, 0 과 1 사이를 오가는 호출이 엇갈려도 마지막 상태가 남는다
+    private void syncKeyGauge(String name, String description, String lockType, String key, Supplier<Number> depth) {
+        if (!keyTagEnabled) {
+            return;
+        }
+        String gaugeKey = name + "|" + lockType + "|" + key;
+        synchronized (keyGauges) {
+            if (depth.get().intValue() > 0) {
+                keyGauges.computeIfAbsent(gaugeKey, id -> Gauge.builder(name, depth)
+                        .description(description)
+                        .tag("lockType", lockType)
+                        .tag("key", key)
+                        .register(meterRegistry));
+                return;
+            }
+            Gauge gauge = keyGauges.remove(gaugeKey);
+            if (gauge != null) {
+                meterRegistry.remove(gauge);
+            }
+        }
+    }
+    
+    private String keyTag(String key) {
+        return keyTagEnabled ? key : ALL_KEYS;
+    }
+}
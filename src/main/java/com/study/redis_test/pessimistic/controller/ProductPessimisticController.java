@@ -1,5 +1,6 @@
 package com.study.redis_test.pessimistic.controller;
 
+import com.study.redis_test.controller.NdjsonStreamWriter;
 import com.study.redis_test.dto.*;
 import com.study.redis_test.pessimistic.service.ProductPessimisticService;
 import jakarta.validation.Valid;
@@ -7,9 +8,11 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/pessimistic/products")
@@ -17,6 +20,7 @@ import java.util.Map;
 public class ProductPessimisticController {
     
     private final ProductPessimisticService productService;
+    private final NdjsonStreamWriter ndjsonStreamWriter;
     
     @PostMapping
     public ResponseEntity<ProductPlainResponse> createProduct(@Valid @RequestBody ProductCreateRequest request) {
@@ -42,6 +46,19 @@ public class ProductPessimisticController {
         return ResponseEntity.ok(products);
     }
     
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageResponse<ProductPlainResponse>> getProductsPage(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        CursorPageResponse<ProductPlainResponse> page = productService.getProductsAfter(cursor, size);
+        return ResponseEntity.ok(page);
+    }
+    
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllProducts() {
+        return ndjsonStreamWriter.stream(productService::streamAllProducts);
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<ProductPlainResponse> updateProduct(
             @PathVariable Long id,
@@ -69,6 +86,30 @@ public class ProductPessimisticController {
         return ResponseEntity.ok(response);
     }
     
+    // 락/DB 대기 중에는 요청 스레드를 반환하고, 처리가 끝나면 비동기로 응답한다
+    @PatchMapping("/{id}/stock/async")
+    public CompletableFuture<ResponseEntity<ProductPlainResponse>> updateStockAsync(
+            @PathVariable Long id,
+            @RequestBody Map<String, Integer> request) {
+        Integer quantity = request.get("quantity");
+        if (quantity == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        
+        return productService.updateStockAsync(id, quantity)
+                .thenApply(ResponseEntity::ok);
+    }
+    
+    // 여러 상품 재고를 한 번에 변경한다. 하나라도 실패하면 전부 취소되고 409 와 항목별 결과를 돌려준다
+    @PostMapping("/stock/batch")
+    public ResponseEntity<StockBatchResponse> updateStockBatch(@Valid @RequestBody StockBatchRequest request) {
+        StockBatchResponse response = productService.updateStockBatch(request);
+        if (!response.isApplied()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+    
     @PostMapping("/{id}/concurrent-test")
     public ResponseEntity<ConcurrentTestResult> testConcurrentStockUpdate(
             @PathVariable Long id,
@@ -77,6 +118,14 @@ public class ProductPessimisticController {
         return ResponseEntity.ok(result);
     }
     
+    @PostMapping("/{id}/concurrent-test/async")
+    public ResponseEntity<ConcurrentTestResult> testConcurrentStockUpdateAsync(
+            @PathVariable Long id,
+            @Valid @RequestBody ConcurrentTestRequest request) {
+        ConcurrentTestResult result = productService.testConcurrentStockUpdateAsync(id, request);
+        return ResponseEntity.ok(result);
+    }
+    
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException e) {
         return ResponseEntity.badRequest()
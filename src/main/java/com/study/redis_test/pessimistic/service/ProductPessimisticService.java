@@ -1,21 +1,30 @@
 package com.study.redis_test.pessimistic.service;
 
+import com.study.redis_test.cache.service.ProductCacheService;
 import com.study.redis_test.dto.*;
 import com.study.redis_test.entity.ProductPlain;
 import com.study.redis_test.repository.ProductPlainRepository;
+import com.study.redis_test.harness.ConcurrentTestRunner;
+import com.study.redis_test.harness.OperationTimer;
+import com.study.redis_test.service.StockBatchPlan;
+import com.study.redis_test.service.StockDbExecutor;
+import com.study.redis_test.metrics.StockMetrics;
+import com.study.redis_test.soldout.service.SoldOutRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -23,8 +32,15 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class ProductPessimisticService {
     
+    private static final int MAX_PAGE_SIZE = 1000;
+    
     private final ProductPlainRepository productRepository;
     private final TransactionTemplate transactionTemplate;
+    private final ProductCacheService productCacheService;
+    private final ConcurrentTestRunner concurrentTestRunner;
+    private final StockMetrics stockMetrics;
+    private final StockDbExecutor stockDbExecutor;
+    private final SoldOutRegistry soldOutRegistry;
     
     @Transactional
     public ProductPlainResponse createProduct(ProductCreateRequest request) {
@@ -38,21 +54,27 @@ public class ProductPessimisticService {
                 .priceKrw(request.getPriceKrw())
                 .stockQty(request.getStockQty())
                 .build();
-                
+        
         ProductPlain savedProduct = productRepository.save(product);
         return ProductPlainResponse.from(savedProduct);
     }
     
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public ProductPlainResponse getProductById(Long id) {
-        ProductPlain product = productRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
-        return ProductPlainResponse.from(product);
+        return productCacheService.getById(ProductCacheService.PLAIN, id, ProductPlainResponse.class, () -> {
+            ProductPlain product = productRepository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
+            return ProductPlainResponse.from(product);
+        }, response -> 0L);
     }
     
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public ProductPlainResponse getProductBySku(String sku) {
-        ProductPlain product = productRepository.findBySku(sku)
-                .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + sku));
-        return ProductPlainResponse.from(product);
+        return productCacheService.getBySku(ProductCacheService.PLAIN, sku, ProductPlainResponse.class, () -> {
+            ProductPlain product = productRepository.findBySku(sku)
+                    .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + sku));
+            return ProductPlainResponse.from(product);
+        }, ProductPlainResponse::getId, response -> 0L);
     }
     
     public List<ProductPlainResponse> getAllProducts() {
@@ -61,6 +83,22 @@ public class ProductPessimisticService {
                 .collect(Collectors.toList());
     }
     
+    // id 기준 keyset 페이지네이션: OFFSET 없이 cursor 다음 행부터 size 개만 읽는다
+    public CursorPageResponse<ProductPlainResponse> getProductsAfter(Long cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        List<ProductPlainResponse> products = productRepository.findByIdGreaterThanOrderByIdAsc(
+                        cursor == null ? 0L : cursor, Limit.of(pageSize + 1)).stream()
+                .map(ProductPlainResponse::from)
+                .collect(Collectors.toList());
+        return CursorPageResponse.of(products, pageSize, ProductPlainResponse::getId);
+    }
+    
+    public void streamAllProducts(Consumer<ProductPlainResponse> consumer) {
+        try (Stream<ProductPlainResponse> products = productRepository.streamAllAsResponse()) {
+            products.forEach(consumer);
+        }
+    }
+    
     @Transactional
     public ProductPlainResponse updateProduct(Long id, ProductUpdateRequest request) {
         ProductPlain product = productRepository.findByIdWithPessimisticLock(id)
@@ -71,6 +109,8 @@ public class ProductPessimisticService {
         product.setStockQty(request.getStockQty());
         
         ProductPlain updatedProduct = productRepository.save(product);
+        productCacheService.evict(ProductCacheService.PLAIN, id);
+        soldOutRegistry.onStockReset(ProductCacheService.PLAIN, id, updatedProduct.getStockQty());
         return ProductPlainResponse.from(updatedProduct);
     }
     
@@ -80,12 +120,14 @@ public class ProductPessimisticService {
             throw new IllegalArgumentException("상품을 찾을 수 없습니다: " + id);
         }
         productRepository.deleteById(id);
+        productCacheService.evict(ProductCacheService.PLAIN, id);
     }
     
     @Transactional
     public ProductPlainResponse updateStock(Long id, Integer quantity) {
-        ProductPlain product = productRepository.findByIdWithPessimisticLock(id)
-                .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
+        // 품절 표시된 상품은 행 락을 기다리지 않고 바로 거절한다
+        soldOutRegistry.checkAvailable(ProductCacheService.PLAIN, id, quantity);
+        ProductPlain product = findByIdWithPessimisticLock(id);
         
         int newStock = product.getStockQty() + quantity;
         if (newStock < 0) {
@@ -94,64 +136,91 @@ public class ProductPessimisticService {
         
         product.setStockQty(newStock);
         ProductPlain updatedProduct = productRepository.save(product);
+        productCacheService.evictStock(ProductCacheService.PLAIN, id);
+        soldOutRegistry.onStockChanged(ProductCacheService.PLAIN, id, newStock - quantity, newStock);
         return ProductPlainResponse.from(updatedProduct);
     }
     
-    public ConcurrentTestResult testConcurrentStockUpdate(Long id, ConcurrentTestRequest request) {
-        long startTime = System.currentTimeMillis();
-        AtomicInteger successCount = new AtomicInteger(0);
-        AtomicInteger failCount = new AtomicInteger(0);
-        List<String> errors = new ArrayList<>();
-        
-        ExecutorService executor = Executors.newFixedThreadPool(10);
-        
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
+    // 행 락 대기는 JDBC 안에서 일어나므로 요청 스레드 대신 고정 크기 DB 풀 스레드가 기다린다.
+    // 같은 빈 안의 호출이라 @Transactional 이 적용되지 않으므로 트랜잭션은 transactionTemplate 으로 연다
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<ProductPlainResponse> updateStockAsync(Long id, Integer quantity) {
+        soldOutRegistry.checkAvailable(ProductCacheService.PLAIN, id, quantity);
+        return stockDbExecutor.supplyAsync(() -> transactionTemplate.execute(status -> updateStock(id, quantity)));
+    }
+    
+    // 여러 상품을 id 순서로 한 번에 잠그고, 하나라도 실패하면 아무것도 바꾸지 않는다
+    @Transactional
+    public StockBatchResponse updateStockBatch(StockBatchRequest request) {
+        List<ProductPlain> products = findAllByIdWithPessimisticLock(StockBatchPlan.sortedIds(request));
+        Map<Long, ProductPlain> productsById = products.stream()
+                .collect(Collectors.toMap(ProductPlain::getId, Function.identity()));
         
-        for (int i = 0; i < request.getConcurrentCount(); i++) {
-            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                try {
-                    transactionTemplate.execute(status -> {
-                        ProductPlain product = productRepository.findByIdWithPessimisticLock(id)
-                                .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
-                        
-                        int newStock = product.getStockQty() + request.getQuantity();
-                        if (newStock < 0) {
-                            throw new IllegalArgumentException("재고가 부족합니다. 현재 재고: " + product.getStockQty());
-                        }
-                        
-                        product.setStockQty(newStock);
-                        productRepository.save(product);
-                        return null;
-                    });
-                    successCount.incrementAndGet();
-                } catch (Exception e) {
-                    failCount.incrementAndGet();
-                    synchronized (errors) {
-                        errors.add(e.getMessage());
-                    }
-                }
-            }, executor);
-            futures.add(future);
+        StockBatchPlan plan = StockBatchPlan.of(request, products.stream()
+                .collect(Collectors.toMap(ProductPlain::getId, ProductPlain::getStockQty)));
+        if (plan.isApplicable()) {
+            plan.getFinalStocks().forEach((id, stockQty) -> {
+                ProductPlain product = productsById.get(id);
+                soldOutRegistry.onStockChanged(ProductCacheService.PLAIN, id, product.getStockQty(), stockQty);
+                product.setStockQty(stockQty);
+                productCacheService.evictStock(ProductCacheService.PLAIN, id);
+            });
+            productRepository.saveAll(products);
         }
-        
-        // 모든 스레드 완료 대기
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-        executor.shutdown();
-        
-        long endTime = System.currentTimeMillis();
-        
-        // 최종 재고 확인
-        ProductPlain finalProduct = productRepository.findById(id)
+        return plan.toResponse();
+    }
+    
+    private List<ProductPlain> findAllByIdWithPessimisticLock(List<Long> ids) {
+        long start = System.nanoTime();
+        try {
+            return productRepository.findAllByIdInWithPessimisticLock(ids);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            OperationTimer.recordLockWait(elapsed);
+            stockMetrics.recordLockWait("PESSIMISTIC_LOCK", "batch", elapsed, true);
+        }
+    }
+    
+    // SELECT ... FOR UPDATE 가 행 락을 얻을 때까지 막히는 시간을 락 대기 시간으로 기록한다
+    private ProductPlain findByIdWithPessimisticLock(Long id) {
+        long start = System.nanoTime();
+        try {
+            return productRepository.findByIdWithPessimisticLock(id)
+                    .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            OperationTimer.recordLockWait(elapsed);
+            stockMetrics.recordLockWait("PESSIMISTIC_LOCK", "product:" + id, elapsed, true);
+        }
+    }
+    
+    public ConcurrentTestResult testConcurrentStockUpdate(Long id, ConcurrentTestRequest request) {
+        return concurrentTestRunner.run(request, 10, "PESSIMISTIC_LOCK",
+                () -> transactionTemplate.execute(status -> {
+                    ProductPlain product = findByIdWithPessimisticLock(id);
+                    
+                    int newStock = product.getStockQty() + request.getQuantity();
+                    if (newStock < 0) {
+                        throw new IllegalArgumentException("재고가 부족합니다. 현재 재고: " + product.getStockQty());
+                    }
+                    
+                    product.setStockQty(newStock);
+                    productRepository.save(product);
+                    productCacheService.evictStock(ProductCacheService.PLAIN, id);
+                    return null;
+                }),
+                () -> findStockQty(id));
+    }
+    
+    // 호출 스레드 하나가 요청을 모두 비동기로 보내고 future 로만 완료를 기다린다 (요청 수만큼 스레드를 만들지 않음)
+    public ConcurrentTestResult testConcurrentStockUpdateAsync(Long id, ConcurrentTestRequest request) {
+        return concurrentTestRunner.runAsync(request, "PESSIMISTIC_LOCK_ASYNC",
+                () -> updateStockAsync(id, request.getQuantity()),
+                () -> findStockQty(id));
+    }
+    
+    private Integer findStockQty(Long id) {
+        return productRepository.findStockQtyById(id)
                 .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
-        
-        return ConcurrentTestResult.builder()
-                .totalRequests(request.getConcurrentCount())
-                .successCount(successCount.get())
-                .failCount(failCount.get())
-                .totalExecutionTimeMs(endTime - startTime)
-                .finalStockQty(finalProduct.getStockQty())
-                .errors(errors)
-                .lockType("PESSIMISTIC_LOCK")
-                .build();
     }
 }
\ No newline at end of file
@@ -1,15 +1,19 @@
 package com.study.redis_test.redislock.controller;
 
+import com.study.redis_test.controller.NdjsonStreamWriter;
 import com.study.redis_test.dto.*;
 import com.study.redis_test.redislock.service.ProductRedisLockService;
+import com.study.redis_test.service.LockQueueFullException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/redis-lock/products")
@@ -17,6 +21,7 @@ import java.util.Map;
 public class ProductRedisLockController {
     
     private final ProductRedisLockService productService;
+    private final NdjsonStreamWriter ndjsonStreamWriter;
     
     @PostMapping
     public ResponseEntity<ProductPlainResponse> createProduct(@Valid @RequestBody ProductCreateRequest request) {
@@ -42,6 +47,19 @@ public class ProductRedisLockController {
         return ResponseEntity.ok(products);
     }
     
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageResponse<ProductPlainResponse>> getProductsPage(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        CursorPageResponse<ProductPlainResponse> page = productService.getProductsAfter(cursor, size);
+        return ResponseEntity.ok(page);
+    }
+    
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllProducts() {
+        return ndjsonStreamWriter.stream(productService::streamAllProducts);
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<ProductPlainResponse> updateProduct(
             @PathVariable Long id,
@@ -69,6 +87,30 @@ public class ProductRedisLockController {
         return ResponseEntity.ok(response);
     }
     
+    // 락/DB 대기 중에는 요청 스레드를 반환하고, 처리가 끝나면 비동기로 응답한다
+    @PatchMapping("/{id}/stock/async")
+    public CompletableFuture<ResponseEntity<ProductPlainResponse>> updateStockAsync(
+            @PathVariable Long id,
+            @RequestBody Map<String, Integer> request) {
+        Integer quantity = request.get("quantity");
+        if (quantity == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        
+        return productService.updateStockAsync(id, quantity)
+                .thenApply(ResponseEntity::ok);
+    }
+    
+    // 여러 상품 재고를 한 번에 변경한다. 하나라도 실패하면 전부 취소되고 409 와 항목별 결과를 돌려준다
+    @PostMapping("/stock/batch")
+    public ResponseEntity<StockBatchResponse> updateStockBatch(@Valid @RequestBody StockBatchRequest request) {
+        StockBatchResponse response = productService.updateStockBatch(request);
+        if (!response.isApplied()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+    
     @PostMapping("/{id}/concurrent-test")
     public ResponseEntity<ConcurrentTestResult> testConcurrentStockUpdate(
             @PathVariable Long id,
@@ -77,12 +119,27 @@ public class ProductRedisLockController {
         return ResponseEntity.ok(result);
     }
     
+    @PostMapping("/{id}/concurrent-test/async")
+    public ResponseEntity<ConcurrentTestResult> testConcurrentStockUpdateAsync(
+            @PathVariable Long id,
+            @Valid @RequestBody ConcurrentTestRequest request) {
+        ConcurrentTestResult result = productService.testConcurrentStockUpdateAsync(id, request);
+        return ResponseEntity.ok(result);
+    }
+    
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException e) {
         return ResponseEntity.badRequest()
                 .body(Map.of("error", e.getMessage()));
     }
     
+    // 대기열이 가득 차면 스레드를 오래 붙잡지 않고 바로 429 로 응답한다
+    @ExceptionHandler(LockQueueFullException.class)
+    public ResponseEntity<Map<String, String>> handleLockQueueFull(LockQueueFullException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(Map.of("error", "요청이 몰려 처리할 수 없습니다. 잠시 후 다시 시도해주세요."));
+    }
+    
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Map<String, String>> handleRuntimeException(RuntimeException e) {
         if (e.getMessage() != null && e.getMessage().contains("Could not acquire lock")) {
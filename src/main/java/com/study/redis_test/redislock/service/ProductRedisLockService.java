@@ -1,21 +1,28 @@
 package com.study.redis_test.redislock.service;
 
+import com.study.redis_test.cache.service.ProductCacheService;
 import com.study.redis_test.dto.*;
 import com.study.redis_test.entity.ProductPlain;
 import com.study.redis_test.repository.ProductPlainRepository;
-import com.study.redis_test.service.RedisLockService;
+import com.study.redis_test.service.LockedTransactionTemplate;
+import com.study.redis_test.service.StockBatchPlan;
+import com.study.redis_test.harness.ConcurrentTestRunner;
+import com.study.redis_test.soldout.service.SoldOutRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -23,8 +30,14 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class ProductRedisLockService {
     
+    private static final int MAX_PAGE_SIZE = 1000;
+    
     private final ProductPlainRepository productRepository;
-    private final RedisLockService redisLockService;
+    private final LockedTransactionTemplate lockedTransactionTemplate;
+    private final ProductCacheService productCacheService;
+    private final ConcurrentTestRunner concurrentTestRunner;
+    private final ApplicationContext applicationContext;
+    private final SoldOutRegistry soldOutRegistry;
     
     @Transactional
     public ProductPlainResponse createProduct(ProductCreateRequest request) {
@@ -38,21 +51,27 @@ public class ProductRedisLockService {
                 .priceKrw(request.getPriceKrw())
                 .stockQty(request.getStockQty())
                 .build();
-                
+        
         ProductPlain savedProduct = productRepository.save(product);
         return ProductPlainResponse.from(savedProduct);
     }
     
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public ProductPlainResponse getProductById(Long id) {
-        ProductPlain product = productRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
-        return ProductPlainResponse.from(product);
+        return productCacheService.getById(ProductCacheService.PLAIN, id, ProductPlainResponse.class, () -> {
+            ProductPlain product = productRepository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
+            return ProductPlainResponse.from(product);
+        }, response -> 0L);
     }
     
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public ProductPlainResponse getProductBySku(String sku) {
-        ProductPlain product = productRepository.findBySku(sku)
-                .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + sku));
-        return ProductPlainResponse.from(product);
+        return productCacheService.getBySku(ProductCacheService.PLAIN, sku, ProductPlainResponse.class, () -> {
+            ProductPlain product = productRepository.findBySku(sku)
+                    .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + sku));
+            return ProductPlainResponse.from(product);
+        }, ProductPlainResponse::getId, response -> 0L);
     }
     
     public List<ProductPlainResponse> getAllProducts() {
@@ -61,11 +80,27 @@ public class ProductRedisLockService {
                 .collect(Collectors.toList());
     }
     
-    @Transactional
+    // id 기준 keyset 페이지네이션: OFFSET 없이 cursor 다음 행부터 size 개만 읽는다
+    public CursorPageResponse<ProductPlainResponse> getProductsAfter(Long cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        List<ProductPlainResponse> products = productRepository.findByIdGreaterThanOrderByIdAsc(
+                        cursor == null ? 0L : cursor, Limit.of(pageSize + 1)).stream()
+                .map(ProductPlainResponse::from)
+                .collect(Collectors.toList());
+        return CursorPageResponse.of(products, pageSize, ProductPlainResponse::getId);
+    }
+    
+    public void streamAllProducts(Consumer<ProductPlainResponse> consumer) {
+        try (Stream<ProductPlainResponse> products = productRepository.streamAllAsResponse()) {
+            products.forEach(consumer);
+        }
+    }
+    
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ProductPlainResponse updateProduct(Long id, ProductUpdateRequest request) {
         String lockKey = "product:lock:" + id;
         
-        return redisLockService.executeWithLock(lockKey, () -> {
+        return lockedTransactionTemplate.execute(lockKey, () -> {
             ProductPlain product = productRepository.findById(id)
                     .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
             
@@ -74,6 +109,8 @@ public class ProductRedisLockService {
             product.setStockQty(request.getStockQty());
             
             ProductPlain updatedProduct = productRepository.save(product);
+            productCacheService.evict(ProductCacheService.PLAIN, id);
+            soldOutRegistry.onStockReset(ProductCacheService.PLAIN, id, updatedProduct.getStockQty());
             return ProductPlainResponse.from(updatedProduct);
         });
     }
@@ -84,70 +121,90 @@ public class ProductRedisLockService {
             throw new IllegalArgumentException("상품을 찾을 수 없습니다: " + id);
         }
         productRepository.deleteById(id);
+        productCacheService.evict(ProductCacheService.PLAIN, id);
     }
     
-    @Transactional
+    // 락을 먼저 잡고 그 안에서 트랜잭션을 커밋한 뒤 락을 푼다 (트랜잭션 안에서 락을 잡으면 커밋 전에 락이 풀린다)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ProductPlainResponse updateStock(Long id, Integer quantity) {
+        // 품절 표시된 상품은 Redis 락을 잡지 않고 바로 거절한다
+        soldOutRegistry.checkAvailable(ProductCacheService.PLAIN, id, quantity);
         String lockKey = "product:stock:lock:" + id;
         
-        return redisLockService.executeWithLock(lockKey, () -> {
-            ProductPlain product = productRepository.findById(id)
-                    .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
-            
-            int newStock = product.getStockQty() + quantity;
-            if (newStock < 0) {
-                throw new IllegalArgumentException("재고가 부족합니다. 현재 재고: " + product.getStockQty());
-            }
-            
-            product.setStockQty(newStock);
-            ProductPlain updatedProduct = productRepository.save(product);
-            return ProductPlainResponse.from(updatedProduct);
-        });
+        return lockedTransactionTemplate.execute(lockKey, () -> applyStockUpdate(id, quantity));
     }
     
-    public ConcurrentTestResult testConcurrentStockUpdate(Long id, ConcurrentTestRequest request) {
-        long startTime = System.currentTimeMillis();
-        AtomicInteger successCount = new AtomicInteger(0);
-        AtomicInteger failCount = new AtomicInteger(0);
-        List<String> errors = new ArrayList<>();
-        
-        ExecutorService executor = Executors.newFixedThreadPool(request.getConcurrentCount());
+    // 락 대기 동안 요청 스레드를 잡지 않고, 락을 얻은 뒤에만 DB 풀에서 트랜잭션을 실행한다
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<ProductPlainResponse> updateStockAsync(Long id, Integer quantity) {
+        soldOutRegistry.checkAvailable(ProductCacheService.PLAIN, id, quantity);
+        String lockKey = "product:stock:lock:" + id;
         
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        return lockedTransactionTemplate.executeAsync(lockKey, () -> applyStockUpdate(id, quantity));
+    }
+    
+    private ProductPlainResponse applyStockUpdate(Long id, Integer quantity) {
+        ProductPlain product = productRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
         
-        for (int i = 0; i < request.getConcurrentCount(); i++) {
-            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                try {
-                    updateStock(id, request.getQuantity());
-                    successCount.incrementAndGet();
-                } catch (Exception e) {
-                    failCount.incrementAndGet();
-                    synchronized (errors) {
-                        errors.add(e.getMessage());
-                    }
-                }
-            }, executor);
-            futures.add(future);
+        int newStock = product.getStockQty() + quantity;
+        if (newStock < 0) {
+            throw new IllegalArgumentException("재고가 부족합니다. 현재 재고: " + product.getStockQty());
         }
         
-        // 모든 스레드 완료 대기
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-        executor.shutdown();
-        
-        long endTime = System.currentTimeMillis();
+        product.setStockQty(newStock);
+        ProductPlain updatedProduct = productRepository.save(product);
+        productCacheService.evictStock(ProductCacheService.PLAIN, id);
+        soldOutRegistry.onStockChanged(ProductCacheService.PLAIN, id, newStock - quantity, newStock);
+        return ProductPlainResponse.from(updatedProduct);
+    }
+    
+    // 상품별 락을 id 순서로 한 번에 잡은 뒤 트랜잭션을 시작하고, 커밋이 끝난 다음 락을 푼다
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public StockBatchResponse updateStockBatch(StockBatchRequest request) {
+        List<Long> ids = StockBatchPlan.sortedIds(request);
+        List<String> lockKeys = ids.stream()
+                .map(id -> "product:stock:lock:" + id)
+                .toList();
         
-        // 최종 재고 확인
-        ProductPlain finalProduct = productRepository.findById(id)
+        return lockedTransactionTemplate.execute(lockKeys, () -> {
+            List<ProductPlain> products = productRepository.findAllById(ids);
+            Map<Long, ProductPlain> productsById = products.stream()
+                    .collect(Collectors.toMap(ProductPlain::getId, Function.identity()));
+            
+            StockBatchPlan plan = StockBatchPlan.of(request, products.stream()
+                    .collect(Collectors.toMap(ProductPlain::getId, ProductPlain::getStockQty)));
+            if (plan.isApplicable()) {
+                plan.getFinalStocks().forEach((id, stockQty) -> {
+                    ProductPlain product = productsById.get(id);
+                    soldOutRegistry.onStockChanged(ProductCacheService.PLAIN, id, product.getStockQty(), stockQty);
+                    product.setStockQty(stockQty);
+                    productCacheService.evictStock(ProductCacheService.PLAIN, id);
+                });
+                productRepository.saveAll(products);
+            }
+            return plan.toResponse();
+        });
+    }
+    
+    public ConcurrentTestResult testConcurrentStockUpdate(Long id, ConcurrentTestRequest request) {
+        // this 로 호출하면 프록시를 거치지 않아 실제 요청과 다른 경로를 재게 되므로 빈을 통해 호출한다
+        ProductRedisLockService productService = applicationContext.getBean(ProductRedisLockService.class);
+        return concurrentTestRunner.run(request, request.getConcurrentCount(), "REDIS_DISTRIBUTED_LOCK",
+                () -> productService.updateStock(id, request.getQuantity()),
+                () -> findStockQty(id));
+    }
+    
+    // 호출 스레드 하나가 요청을 모두 비동기로 보내고 future 로만 완료를 기다린다 (요청 수만큼 스레드를 만들지 않음)
+    public ConcurrentTestResult testConcurrentStockUpdateAsync(Long id, ConcurrentTestRequest request) {
+        ProductRedisLockService productService = applicationContext.getBean(ProductRedisLockService.class);
+        return concurrentTestRunner.runAsync(request, "REDIS_DISTRIBUTED_LOCK_ASYNC",
+                () -> productService.updateStockAsync(id, request.getQuantity()),
+                () -> findStockQty(id));
+    }
+    
+    private Integer findStockQty(Long id) {
+        return productRepository.findStockQtyById(id)
                 .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
-        
-        return ConcurrentTestResult.builder()
-                .totalRequests(request.getConcurrentCount())
-                .successCount(successCount.get())
-                .failCount(failCount.get())
-                .totalExecutionTimeMs(endTime - startTime)
-                .finalStockQty(finalProduct.getStockQty())
-                .errors(errors)
-                .lockType("REDIS_DISTRIBUTED_LOCK")
-                .build();
     }
 }
\ No newline at end of file
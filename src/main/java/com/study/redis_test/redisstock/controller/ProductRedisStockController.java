@@ -0,0 +1,73 @@
+package com.study.redis_test.redisstock.controller;
+
+import com.study.redis_test.dto.*;
+import com.study.redis_test.redisstock.service.HotStockShardService;
+import com.study.redis_test.redisstock.service.RedisStockService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/redis-stock/products")
+@RequiredArgsConstructor
+public class ProductRedisStockController {
+    
+    private final RedisStockService redisStockService;
+    private final HotStockShardService hotStockShardService;
+    
+    @GetMapping("/{id}")
+    public ResponseEntity<ProductPlainResponse> getProduct(@PathVariable Long id) {
+        ProductPlainResponse response = redisStockService.getProductById(id);
+        return ResponseEntity.ok(response);
+    }
+    
+    @PatchMapping("/{id}/stock")
+    public ResponseEntity<StockUpdateResponse> updateStock(
+            @PathVariable Long id,
+            @RequestBody Map<String, Integer> request) {
+        Integer quantity = request.get("quantity");
+        if (quantity == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        StockUpdateResponse response = redisStockService.updateStock(id, quantity);
+        return ResponseEntity.ok(response);
+    }
+    
+    // 재고를 buckets 개의 버킷으로 나누어 차감 경합을 분산한다
+    @PostMapping("/{id}/hot")
+    public ResponseEntity<StockUpdateResponse> markHot(
+            @PathVariable Long id,
+            @RequestBody Map<String, Integer> request) {
+        Integer buckets = request.get("buckets");
+        if (buckets == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        int stockQty = hotStockShardService.markHot(id, buckets);
+        return ResponseEntity.ok(StockUpdateResponse.of(id, stockQty));
+    }
+    
+    @DeleteMapping("/{id}/hot")
+    public ResponseEntity<StockUpdateResponse> unmarkHot(@PathVariable Long id) {
+        int stockQty = hotStockShardService.unmarkHot(id);
+        return ResponseEntity.ok(StockUpdateResponse.of(id, stockQty));
+    }
+    
+    @PostMapping("/{id}/concurrent-test")
+    public ResponseEntity<ConcurrentTestResult> testConcurrentStockUpdate(
+            @PathVariable Long id,
+            @Valid @RequestBody ConcurrentTestRequest request) {
+        ConcurrentTestResult result = redisStockService.testConcurrentStockUpdate(id, request);
+        return ResponseEntity.ok(result);
+    }
+    
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+    }
+}
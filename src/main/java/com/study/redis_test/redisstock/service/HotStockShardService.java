@@ -0,0 +1,303 @@
+package com.study.redis_test.redisstock.service;
+
+import com.study.redis_test.entity.ProductStockShard;
+import com.study.redis_test.repository.ProductPlainRepository;
+import com.study.redis_test.repository.ProductStockShardRepository;
+import com.study.redis_test.datasource.DataSourceRouting;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+// 플래시 세일처럼 한 상품에 요청이 몰릴 때 재고를 N개 버킷으로 나누어 관리한다.
+// 한 상품의 버킷 키는 모두 {상품ID} 해시 태그를 써서 한 슬롯에 있고, 차감은 스크립트 하나가 버킷을 넘나들며 원자적으로 처리한다.
+// Redis 는 명령을 하나씩 실행하므로 버킷으로 나눠도 Redis 안의 경합은 단일 카운터와 같다. 버킷별 분포와 라우팅 방식을 비교하기 위한 구성이다.
+// 지정/해제는 상품 ID 집합과 단일 카운터까지 한 스크립트로 다루므로, 다른 Redis 재고 스크립트처럼 단일 노드 Redis 를 전제한다.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HotStockShardService {
+    
+    public static final String HOT_SET_KEY = "product:stock:hot";
+    
+    private static final String REBALANCE_LOCK_KEY = "lock:product:stock:hot:rebalance";
+    
+    private static final int MIN_BUCKETS = 2;
+    private static final int MAX_BUCKETS = 64;
+    
+    private static final DefaultRedisScript<Long> SPLIT_SCRIPT = script("scripts/shard_split.lua");
+    private static final DefaultRedisScript<Long> UPDATE_SCRIPT = script("scripts/shard_update.lua");
+    private static final DefaultRedisScript<Long> MERGE_SCRIPT = script("scripts/shard_merge.lua");
+    private static final DefaultRedisScript<Long> REBALANCE_SCRIPT = script("scripts/shard_rebalance.lua");
+    
+    public enum Routing {
+        RANDOM,
+        AFFINE
+    }
+    
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ProductPlainRepository productRepository;
+    private final ProductStockShardRepository shardRepository;
+    private final RedissonClient redissonClient;
+    
+    // 상품별 버킷 수. 스크립트가 불일치를 알리면 Redis 에서 다시 읽는다
+    private final Map<Long, Integer> bucketCounts = new ConcurrentHashMap<>();
+    
+    @Value("${stock.hot.routing:RANDOM}")
+    private Routing routing;
+    
+    @Value("${stock.redis.counter-ttl-seconds:60}")
+    private long counterTtlSeconds;
+    
+    private static DefaultRedisScript<Long> script(String path) {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        script.setResultType(Long.class);
+        return script;
+    }
+    
+    public static String countKey(Long id) {
+        return "product:stock:shard:{" + id + "}:count";
+    }
+    
+    public static String bucketKey(Long id, int bucket) {
+        return "product:stock:shard:{" + id + "}:" + bucket;
+    }
+    
+    // 버킷에서 차감됐지만 아직 DB 에 flush 되지 않은 변경량. 버킷 키와 같은 슬롯에 두어 한 스크립트로 함께 바꾼다
+    public static String bucketPendingKey(Long id, int bucket) {
+        return bucketKey(id, bucket) + ":pending";
+    }
+    
+    public int markHot(Long id, int buckets) {
+        if (buckets < MIN_BUCKETS || buckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException("버킷 수는 " + MIN_BUCKETS + " 이상 " + MAX_BUCKETS + " 이하여야 합니다");
+        }
+        Integer dbStock = DataSourceRouting.readFromPrimary(() -> productRepository.findStockQtyById(id))
+                .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
+        
+        List<String> keys = new ArrayList<>(List.of(countKey(id), RedisStockService.stockKey(id),
+                RedisStockService.DIRTY_SET_KEY, HOT_SET_KEY, RedisStockService.pendingKey(id)));
+        keys.addAll(bucketKeys(id, buckets, 0));
+        
+        // 단일 카운터의 미반영 값까지 스크립트 안에서 옮기므로 분할 도중의 차감이 사라지지 않는다
+        Long total = stringRedisTemplate.execute(SPLIT_SCRIPT, keys, String.valueOf(dbStock), String.valueOf(id));
+        if (total == null || total < 0) {
+            throw new IllegalArgumentException("이미 핫 상품으로 지정되어 있습니다: " + id);
+        }
+        bucketCounts.put(id, buckets);
+        
+        log.info("핫 상품 지정: 상품ID={}, 버킷={}, 총재고={}", id, buckets, total);
+        return total.intValue();
+    }
+    
+    @Transactional
+    public int unmarkHot(Long id) {
+        int buckets = bucketCount(id);
+        if (buckets == 0) {
+            throw new IllegalArgumentException("핫 상품이 아닙니다: " + id);
+        }
+        
+        List<String> keys = new ArrayList<>(List.of(countKey(id), RedisStockService.stockKey(id),
+                RedisStockService.DIRTY_SET_KEY, HOT_SET_KEY, RedisStockService.pendingKey(id)));
+        keys.addAll(bucketKeys(id, buckets, 0));
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            keys.add(bucketPendingKey(id, bucket));
+        }
+        
+        Long total = stringRedisTemplate.execute(MERGE_SCRIPT, keys, String.valueOf(id), String.valueOf(counterTtlSeconds));
+        bucketCounts.remove(id);
+        if (total == null) {
+            throw new IllegalArgumentException("핫 상품 해제 중 버킷 수가 바뀌었습니다. 다시 시도해 주세요: " + id);
+        }
+        
+        // 합친 값은 단일 카운터로 돌아가 write-behind 로 product_plain 에 반영된다
+        shardRepository.deleteByProductId(id);
+        log.info("핫 상품 해제: 상품ID={}, 총재고={}", id, total);
+        return total.intValue();
+    }
+    
+    // 이 노드가 핫 상품으로 알고 있는지 (Redis 조회 없음)
+    public boolean isKnownHot(Long id) {
+        return bucketCounts.containsKey(id);
+    }
+    
+    // 핫 상품이 아니면 null. 성공하면 변경 후 총 재고를, 재고가 모자라면 -(총 재고) - 1 을 돌려준다 (단일 카운터와 같은 규약)
+    public Long update(Long id, Integer quantity) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            int buckets = attempt == 0 ? bucketCount(id) : refreshBucketCount(id);
+            if (buckets == 0) {
+                return null;
+            }
+            
+            // 버킷 수가 바뀌었으면 (해제 또는 다시 지정) null 이므로 Redis 에서 다시 읽는다
+            Long result = stringRedisTemplate.execute(UPDATE_SCRIPT, updateKeys(id, buckets, firstBucket(buckets)),
+                    String.valueOf(quantity));
+            if (result != null) {
+                return result;
+            }
+        }
+        throw new IllegalStateException("핫 상품 버킷 구성이 변경 중입니다: " + id);
+    }
+    
+    // 버킷 수 키, first 버킷부터의 버킷 키, 같은 순서의 버킷별 미반영 변경량 키
+    private static List<String> updateKeys(Long id, int buckets, int first) {
+        List<String> keys = new ArrayList<>(1 + buckets * 2);
+        keys.add(countKey(id));
+        keys.addAll(bucketKeys(id, buckets, first));
+        for (int i = 0; i < buckets; i++) {
+            keys.add(bucketPendingKey(id, (first + i) % buckets));
+        }
+        return keys;
+    }
+    
+    // flush 주기에 버킷별 미반영 변경량을 꺼내 상품별로 합친다. 차감 경로는 DIRTY 집합을 건드리지 않으므로 핫 상품 목록을 돈다
+    public Map<Long, Integer> drainPending() {
+        Set<String> hotIds = stringRedisTemplate.opsForSet().members(HOT_SET_KEY);
+        if (hotIds == null || hotIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        for (String hotId : hotIds) {
+            Long id = Long.valueOf(hotId);
+            int buckets = refreshBucketCount(id);
+            int delta = 0;
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                String pending = stringRedisTemplate.opsForValue().getAndDelete(bucketPendingKey(id, bucket));
+                delta += pending == null ? 0 : Integer.parseInt(pending);
+            }
+            if (delta != 0) {
+                deltas.put(id, delta);
+            }
+        }
+        return deltas;
+    }
+    
+    // 핫 상품이 아니면 null
+    public Integer getTotalStock(Long id) {
+        List<Integer> buckets = readBuckets(id);
+        return buckets.isEmpty() ? null : buckets.stream().mapToInt(Integer::intValue).sum();
+    }
+    
+    public List<Integer> readBuckets(Long id) {
+        int buckets = refreshBucketCount(id);
+        if (buckets == 0) {
+            return Collections.emptyList();
+        }
+        return readBuckets(id, buckets);
+    }
+    
+    private List<Integer> readBuckets(Long id, int buckets) {
+        List<String> values = stringRedisTemplate.opsForValue().multiGet(bucketKeys(id, buckets, 0));
+        if (values == null) {
+            return Collections.emptyList();
+        }
+        return values.stream()
+                .map(value -> value == null ? 0 : Integer.parseInt(value))
+                .toList();
+    }
+    
+    // flush 주기에 버킷 값을 샤드 테이블에 그대로 기록한다 (호출 측 트랜잭션 안에서 실행).
+    // 버킷 분포를 확인하기 위한 기록이며, product_plain 재고는 drainPending 의 변경량으로만 바뀐다
+    public void writeShardRows(Long id, List<Integer> buckets) {
+        List<ProductStockShard> rows = shardRepository.findByProductIdOrderByBucketNoAsc(id);
+        for (int bucket = 0; bucket < buckets.size(); bucket++) {
+            ProductStockShard row = bucket < rows.size() ? rows.get(bucket) : ProductStockShard.builder()
+                    .productId(id)
+                    .bucketNo(bucket)
+                    .build();
+            row.setStockQty(buckets.get(bucket));
+            shardRepository.save(row);
+        }
+        for (int bucket = buckets.size(); bucket < rows.size(); bucket++) {
+            shardRepository.delete(rows.get(bucket));
+        }
+    }
+    
+    // 차감이 특정 버킷에 쏠려 비어 버린 버킷이 생기면 총량은 그대로 두고 다시 고르게 나눈다.
+    // 모든 노드에서 같은 주기로 실행되므로 락을 얻은 노드 하나만 처리한다
+    @Scheduled(fixedDelayString = "${stock.hot.rebalance-interval-ms:1000}")
+    public void rebalance() {
+        RLock lock = redissonClient.getLock(REBALANCE_LOCK_KEY);
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            Set<String> hotIds = stringRedisTemplate.opsForSet().members(HOT_SET_KEY);
+            if (hotIds == null) {
+                return;
+            }
+            
+            for (String hotId : hotIds) {
+                Long id = Long.valueOf(hotId);
+                int buckets = refreshBucketCount(id);
+                if (buckets == 0) {
+                    continue;
+                }
+                try {
+                    List<String> keys = new ArrayList<>(List.of(countKey(id)));
+                    keys.addAll(bucketKeys(id, buckets, 0));
+                    Long result = stringRedisTemplate.execute(REBALANCE_SCRIPT, keys);
+                    if (result != null && result == 1) {
+                        log.debug("핫 상품 버킷 재분배: 상품ID={}", id);
+                    }
+                } catch (Exception e) {
+                    log.warn("핫 상품 버킷 재분배 실패: 상품ID={}, error={}", id, e.getMessage());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private int bucketCount(Long id) {
+        Integer cached = bucketCounts.get(id);
+        return cached != null ? cached : refreshBucketCount(id);
+    }
+    
+    private int refreshBucketCount(Long id) {
+        String count = stringRedisTemplate.opsForValue().get(countKey(id));
+        int buckets = count == null ? 0 : Integer.parseInt(count);
+        if (buckets == 0) {
+            bucketCounts.remove(id);
+        } else {
+            bucketCounts.put(id, buckets);
+        }
+        return buckets;
+    }
+    
+    // RANDOM 은 요청마다 임의의 버킷, AFFINE 은 같은 스레드가 같은 버킷을 먼저 쓴다
+    private int firstBucket(int buckets) {
+        if (routing == Routing.AFFINE) {
+            return (int) (Thread.currentThread().threadId() % buckets);
+        }
+        return ThreadLocalRandom.current().nextInt(buckets);
+    }
+    
+    // first 버킷부터 시작해 나머지 버킷을 순서대로 돌며 키 목록을 만든다
+    private static List<String> bucketKeys(Long id, int buckets, int first) {
+        List<String> keys = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            keys.add(bucketKey(id, (first + i) % buckets));
+        }
+        return keys;
+    }
+}
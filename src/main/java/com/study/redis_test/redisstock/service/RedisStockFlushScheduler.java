@@ -0,0 +1,172 @@
+package com.study.redis_test.redisstock.service;
+
+import com.study.redis_test.cache.service.ProductCacheService;
+import com.study.redis_test.datasource.DataSourceRouting;
+import com.study.redis_test.metrics.StockMetrics;
+import com.study.redis_test.repository.ProductPlainRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisStockFlushScheduler {
+    
+    // 상품ID -> DB 재고가 모자라 반영하지 못한 누적 수량
+    public static final String OVERSOLD_KEY = "product:stock:oversold";
+    
+    private static final DefaultRedisScript<Long> REBASE_SCRIPT = new DefaultRedisScript<>();
+    
+    static {
+        REBASE_SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/stock_rebase.lua")));
+        REBASE_SCRIPT.setResultType(Long.class);
+    }
+    
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ProductPlainRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductCacheService productCacheService;
+    private final HotStockShardService hotStockShardService;
+    private final StockMetrics stockMetrics;
+    
+    @Value("${stock.redis.flush-batch-size:500}")
+    private long flushBatchSize;
+    
+    @Value("${stock.redis.counter-ttl-seconds:60}")
+    private long counterTtlSeconds;
+    
+    // 변경된 상품 ID만 꺼내 쌓인 변경량을 한 번에 더하므로 여러 번의 차감이 한 번의 UPDATE로 합쳐진다.
+    // 카운터의 절대값으로 덮어쓰지 않으므로 그 사이 다른 전략이 DB 재고를 바꿔도 사라지지 않는다
+    @Scheduled(fixedDelayString = "${stock.redis.flush-interval-ms:1000}")
+    public void flush() {
+        List<String> productIds = stringRedisTemplate.opsForSet().pop(RedisStockService.DIRTY_SET_KEY, flushBatchSize);
+        
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        if (productIds != null) {
+            for (String productId : productIds) {
+                Long id = Long.valueOf(productId);
+                String pending = stringRedisTemplate.opsForValue().getAndDelete(RedisStockService.pendingKey(id));
+                deltas.put(id, pending == null ? 0 : Integer.parseInt(pending));
+            }
+        }
+        // 핫 상품 버킷의 변경량은 DIRTY 집합이 아니라 핫 상품 목록에서 모은다
+        hotStockShardService.drainPending().forEach((id, delta) -> deltas.merge(id, delta, Integer::sum));
+        if (deltas.isEmpty()) {
+            return;
+        }
+        
+        List<Long> counterIds = new ArrayList<>();
+        Map<Long, Integer> oversold = new LinkedHashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                counterIds.clear();
+                oversold.clear();
+                deltas.forEach((productId, delta) -> {
+                    if (delta != 0) {
+                        int unapplied = applyDelta(productId, delta);
+                        if (unapplied > 0) {
+                            oversold.put(productId, unapplied);
+                        }
+                    }
+                    
+                    // 핫 상품은 버킷별 값을 샤드 테이블에 남긴다. product_plain 에는 위의 변경량만 더한다
+                    List<Integer> buckets = hotStockShardService.readBuckets(productId);
+                    if (!buckets.isEmpty()) {
+                        hotStockShardService.writeShardRows(productId, buckets);
+                    } else {
+                        counterIds.add(productId);
+                    }
+                    productCacheService.evictStock(ProductCacheService.PLAIN, productId);
+                });
+            });
+            log.debug("Redis 재고 DB 반영 완료: {}건", deltas.size());
+        } catch (Exception e) {
+            // 꺼낸 변경량을 되돌려 다음 주기에 다시 시도한다. 핫 상품의 변경량도 단일 카운터 쪽 변경량으로 되돌려 DIRTY 경로로 반영한다
+            deltas.forEach((productId, delta) -> {
+                if (delta != 0) {
+                    stringRedisTemplate.opsForValue().increment(RedisStockService.pendingKey(productId), delta);
+                }
+            });
+            stringRedisTemplate.opsForSet().add(RedisStockService.DIRTY_SET_KEY,
+                    deltas.keySet().stream().map(String::valueOf).toArray(String[]::new));
+            log.warn("Redis 재고 DB 반영 실패, 다음 주기에 재시도: {}", e.getMessage());
+            return;
+        }
+        
+        oversold.forEach(this::recordOversold);
+        counterIds.forEach(this::rebase);
+    }
+    
+    // 반영하지 못한 (초과 판매된) 수량을 돌려준다
+    private int applyDelta(Long productId, int delta) {
+        if (productRepository.addStockQty(productId, delta) == 1) {
+            return 0;
+        }
+        // 그 사이 다른 전략이 같은 재고를 차감해 Redis 가 DB 보다 많이 판 경우. 남은 재고만 0 으로 맞추고 나머지는 따로 남긴다
+        Integer dbStock = productRepository.findStockQtyById(productId).orElse(null);
+        if (dbStock == null) {
+            log.warn("Redis 재고 반영 대상 상품이 없습니다: 상품ID={}, 변경량={}", productId, delta);
+            return 0;
+        }
+        productRepository.addStockQty(productId, -dbStock);
+        return -delta - dbStock;
+    }
+    
+    // 커밋된 뒤에만 남겨 롤백 후 재시도에서 두 번 쌓이지 않게 한다. 보정(환불, 재입고)이 끝나면 운영자가 필드를 지운다
+    private void recordOversold(Long productId, int quantity) {
+        stockMetrics.recordOversold("REDIS_LUA_ATOMIC", quantity);
+        log.error("Redis 재고 초과 판매 감지: 상품ID={}, 반영하지 못한 수량={}", productId, quantity);
+        try {
+            stringRedisTemplate.opsForHash().increment(OVERSOLD_KEY, String.valueOf(productId), quantity);
+        } catch (Exception e) {
+            log.warn("초과 판매 수량 기록 실패: 상품ID={}, 수량={}, error={}", productId, quantity, e.getMessage());
+        }
+    }
+    
+    // 커밋된 DB 재고 + 남은 변경량으로 카운터를 다시 맞춰, 다른 전략의 변경이 카운터에도 보이게 한다
+    private void rebase(Long productId) {
+        try {
+            Integer dbStock = DataSourceRouting.readFromPrimary(() -> productRepository.findStockQtyById(productId))
+                    .orElse(null);
+            if (dbStock == null) {
+                stringRedisTemplate.delete(RedisStockService.stockKey(productId));
+                return;
+            }
+            stringRedisTemplate.execute(REBASE_SCRIPT,
+                    List.of(RedisStockService.stockKey(productId), RedisStockService.pendingKey(productId)),
+                    String.valueOf(dbStock), String.valueOf(counterTtlSeconds));
+        } catch (Exception e) {
+            // 카운터는 TTL 이 지나면 DB 에서 다시 읽으므로 여기서 실패해도 오래 어긋나지 않는다
+            log.warn("Redis 재고 카운터 재설정 실패: 상품ID={}, error={}", productId, e.getMessage());
+        }
+    }
+    
+    @PreDestroy
+    public void flushOnShutdown() {
+        // 핫 상품 버킷의 변경량은 DIRTY 집합 크기에 잡히지 않으므로 먼저 한 번 반영한다
+        flush();
+        Long remaining = stringRedisTemplate.opsForSet().size(RedisStockService.DIRTY_SET_KEY);
+        while (remaining != null && remaining > 0) {
+            flush();
+            Long next = stringRedisTemplate.opsForSet().size(RedisStockService.DIRTY_SET_KEY);
+            if (next != null && next >= remaining) {
+                break;
+            }
+            remaining = next;
+        }
+    }
+}
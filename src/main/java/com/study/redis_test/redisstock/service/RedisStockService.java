@@ -0,0 +1,129 @@
+package com.study.redis_test.redisstock.service;
+
+import com.study.redis_test.dto.*;
+import com.study.redis_test.entity.ProductPlain;
+import com.study.redis_test.repository.ProductPlainRepository;
+import com.study.redis_test.harness.ConcurrentTestRunner;
+import com.study.redis_test.datasource.DataSourceRouting;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RedisStockService {
+    
+    public static final String STOCK_KEY_PREFIX = "product:stock:qty:";
+    public static final String DIRTY_SET_KEY = "product:stock:dirty";
+    public static final String PENDING_KEY_PREFIX = "product:stock:pending:";
+    
+    private static final DefaultRedisScript<Long> STOCK_UPDATE_SCRIPT = new DefaultRedisScript<>();
+    
+    static {
+        STOCK_UPDATE_SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/stock_update.lua")));
+        STOCK_UPDATE_SCRIPT.setResultType(Long.class);
+    }
+    
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ProductPlainRepository productRepository;
+    private final ConcurrentTestRunner concurrentTestRunner;
+    private final HotStockShardService hotStockShardService;
+    
+    @Value("${stock.redis.counter-ttl-seconds:60}")
+    private long counterTtlSeconds;
+    
+    public static String stockKey(Long id) {
+        return STOCK_KEY_PREFIX + id;
+    }
+    
+    // 카운터에 반영됐지만 아직 DB 에 flush 되지 않은 변경량의 합. flush 는 절대값 대신 이 값을 더한다
+    public static String pendingKey(Long id) {
+        return PENDING_KEY_PREFIX + id;
+    }
+    
+    @Transactional(readOnly = true)
+    public ProductPlainResponse getProductById(Long id) {
+        ProductPlain product = productRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
+        
+        ProductPlainResponse response = ProductPlainResponse.from(product);
+        String cachedStock = stringRedisTemplate.opsForValue().get(stockKey(id));
+        if (cachedStock != null) {
+            // 아직 flush 되지 않은 변경이 있을 수 있으므로 Redis 값을 우선한다
+            response.setStockQty(Integer.valueOf(cachedStock));
+        } else {
+            // 핫 상품이면 버킷 합계를 돌려준다
+            Integer hotStock = hotStockShardService.getTotalStock(id);
+            response.setStockQty(hotStock != null ? hotStock : product.getStockQty() + pendingDelta(id));
+        }
+        return response;
+    }
+    
+    public Integer getStock(Long id) {
+        String cachedStock = stringRedisTemplate.opsForValue().get(stockKey(id));
+        if (cachedStock != null) {
+            return Integer.valueOf(cachedStock);
+        }
+        Integer hotStock = hotStockShardService.getTotalStock(id);
+        return hotStock != null ? hotStock : loadStockFromDatabase(id) + pendingDelta(id);
+    }
+    
+    private int pendingDelta(Long id) {
+        String pending = stringRedisTemplate.opsForValue().get(pendingKey(id));
+        return pending == null ? 0 : Integer.parseInt(pending);
+    }
+    
+    public StockUpdateResponse updateStock(Long id, Integer quantity) {
+        Long result = hotStockShardService.isKnownHot(id) ? null : executeStockUpdate(id, quantity, "");
+        if (result == null) {
+            // 핫 상품이면 버킷에서 처리한다
+            result = hotStockShardService.update(id, quantity);
+        }
+        if (result == null) {
+            // 카운터가 없으면 DB 재고로 초기화하고 같은 스크립트 안에서 바로 차감한다
+            result = executeStockUpdate(id, quantity, String.valueOf(loadStockFromDatabase(id)));
+            if (result == null) {
+                // 그 사이 다른 요청이 핫 상품으로 지정한 경우
+                result = hotStockShardService.update(id, quantity);
+            }
+            if (result == null) {
+                throw new IllegalStateException("재고 카운터를 초기화할 수 없습니다: " + id);
+            }
+        }
+        
+        if (result < 0) {
+            throw new IllegalArgumentException("재고가 부족합니다. 현재 재고: " + (-result - 1));
+        }
+        
+        log.debug("Redis 재고 업데이트: 상품ID={}, 변경량={}, 최종재고={}", id, quantity, result);
+        return StockUpdateResponse.of(id, result.intValue());
+    }
+    
+    private Long executeStockUpdate(Long id, Integer quantity, String initialStock) {
+        return stringRedisTemplate.execute(
+                STOCK_UPDATE_SCRIPT,
+                List.of(stockKey(id), DIRTY_SET_KEY, HotStockShardService.countKey(id), pendingKey(id)),
+                String.valueOf(quantity), initialStock, String.valueOf(id), String.valueOf(counterTtlSeconds));
+    }
+    
+    private Integer loadStockFromDatabase(Long id) {
+        ProductPlain product = DataSourceRouting.readFromPrimary(() -> productRepository.findById(id))
+                .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
+        return product.getStockQty();
+    }
+    
+    public ConcurrentTestResult testConcurrentStockUpdate(Long id, ConcurrentTestRequest request) {
+        return concurrentTestRunner.run(request, request.getConcurrentCount(), "REDIS_LUA_ATOMIC",
+                () -> updateStock(id, request.getQuantity()),
+                () -> getStock(id));
+    }
+}
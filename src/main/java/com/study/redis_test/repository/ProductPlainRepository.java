@@ -1,14 +1,22 @@
 package com.study.redis_test.repository;
 
+import com.study.redis_test.dto.ProductPlainResponse;
 import com.study.redis_test.entity.ProductPlain;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductPlainRepository extends JpaRepository<ProductPlain, Long> {
@@ -19,9 +27,41 @@ public interface ProductPlainRepository extends JpaRepository<ProductPlain, Long
     @Query("SELECT p FROM ProductPlain p WHERE p.id = :id")
     Optional<ProductPlain> findByIdWithPessimisticLock(@Param("id") Long id);
     
+    // 여러 트랜잭션이 같은 순서로 행 락을 잡도록 id 순으로 잠근다
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM ProductPlain p WHERE p.id IN :ids ORDER BY p.id")
+    List<ProductPlain> findAllByIdInWithPessimisticLock(@Param("ids") Collection<Long> ids);
+    
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT p FROM ProductPlain p WHERE p.sku = :sku")
     Optional<ProductPlain> findBySkuWithPessimisticLock(@Param("sku") String sku);
     
     boolean existsBySku(String sku);
+    
+    List<ProductPlain> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+    
+    // MySQL 드라이버는 fetch size 가 Integer.MIN_VALUE 일 때만 결과를 행 단위로 스트리밍한다
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "" + Integer.MIN_VALUE))
+    @Query("SELECT new com.study.redis_test.dto.ProductPlainResponse(p.id, p.sku, p.name, p.priceKrw, p.stockQty, p.createdAt, p.updatedAt) " +
+           "FROM ProductPlain p ORDER BY p.id")
+    Stream<ProductPlainResponse> streamAllAsResponse();
+    
+    // [id, stockQty] 를 id 순으로 반환한다
+    @Query("SELECT p.id, p.stockQty FROM ProductPlain p ORDER BY p.id")
+    List<Object[]> findAllStockQty();
+    
+    @Query("SELECT p.stockQty FROM ProductPlain p WHERE p.id = :id")
+    Optional<Integer> findStockQtyById(@Param("id") Long id);
+    
+    @Query("SELECT COALESCE(SUM(p.stockQty), 0) FROM ProductPlain p WHERE p.id BETWEEN :fromId AND :toId")
+    Long sumStockQtyByIdBetween(@Param("fromId") Long fromId, @Param("toId") Long toId);
+    
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE ProductPlain p SET p.stockQty = :stockQty WHERE p.id = :id")
+    int updateStockQty(@Param("id") Long id, @Param("stockQty") Integer stockQty);
+    
+    // stock_qty 가 UNSIGNED 라 음수 결과를 계산하면 MySQL 오류가 나므로 하한 검사는 비교식으로 작성한다
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE ProductPlain p SET p.stockQty = p.stockQty + :delta WHERE p.id = :id AND p.stockQty >= -:delta")
+    int addStockQty(@Param("id") Long id, @Param("delta") Integer delta);
 }
\ No newline at end of file
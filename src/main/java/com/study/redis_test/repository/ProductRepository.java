@@ -1,14 +1,21 @@
 package com.study.redis_test.repository;
 
+import com.study.redis_test.dto.ProductResponse;
 import com.study.redis_test.entity.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
@@ -19,5 +26,29 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.id = :id")
     Optional<Product> findByIdWithOptimisticLock(@Param("id") Long id);
     
+    // 충돌이 잦은 상품은 재시도 대신 행 락으로 처리한다
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findByIdWithPessimisticLock(@Param("id") Long id);
+    
+    @Lock(LockModeType.OPTIMISTIC)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Product> findAllByIdInWithOptimisticLock(@Param("ids") Collection<Long> ids);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Product> findAllByIdInWithPessimisticLock(@Param("ids") Collection<Long> ids);
+    
     boolean existsBySku(String sku);
+    
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+    
+    @Query("SELECT COALESCE(SUM(p.stockQty), 0) FROM Product p WHERE p.id BETWEEN :fromId AND :toId")
+    Long sumStockQtyByIdBetween(@Param("fromId") Long fromId, @Param("toId") Long toId);
+    
+    // MySQL 드라이버는 fetch size 가 Integer.MIN_VALUE 일 때만 결과를 행 단위로 스트리밍한다
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "" + Integer.MIN_VALUE))
+    @Query("SELECT new com.study.redis_test.dto.ProductResponse(p.id, p.sku, p.name, p.priceKrw, p.stockQty, p.version, p.createdAt, p.updatedAt) " +
+           "FROM Product p ORDER BY p.id")
+    Stream<ProductResponse> streamAllAsResponse();
 }
\ No newline at end of file
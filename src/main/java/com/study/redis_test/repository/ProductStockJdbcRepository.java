@@ -0,0 +1,43 @@
+package com.study.redis_test.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+// JPQL UPDATE 는 바뀐 값을 돌려주지 않으므로, 조건부 UPDATE 한 문장으로 바뀐 재고까지 받아야 하는 곳은 JDBC 로 실행한다
+@Repository
+@RequiredArgsConstructor
+public class ProductStockJdbcRepository {
+    
+    // MySQL 에는 UPDATE ... RETURNING 이 없어 LAST_INSERT_ID(expr) 로 바뀐 재고를 남긴다. 이 값은 UPDATE 의 OK 패킷에 실려 오므로
+    // 드라이버의 generated keys 로 추가 왕복 없이 받는다. 하한 검사는 addStockQty 와 같이 UNSIGNED 컬럼에 맞춘 비교식이다
+    private static final String ADD_STOCK_QTY_RETURNING_SQL =
+            "UPDATE product_plain SET stock_qty = LAST_INSERT_ID(stock_qty + ?) WHERE id = ? AND stock_qty >= -?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    // 반영하면 바뀐 재고를, 재고가 모자라거나 상품이 없으면 null 을 돌려준다
+    public Integer addStockQtyReturning(Long id, int delta) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int updatedRows = jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(ADD_STOCK_QTY_RETURNING_SQL,
+                    Statement.RETURN_GENERATED_KEYS);
+            statement.setInt(1, delta);
+            statement.setLong(2, id);
+            statement.setInt(3, delta);
+            return statement;
+        }, keyHolder);
+        if (updatedRows == 0) {
+            return null;
+        }
+        
+        // 드라이버는 last insert id 가 0 이면 키를 돌려주지 않으므로, 반영됐는데 키가 없으면 재고가 0 이 된 것이다
+        Number stockQty = keyHolder.getKey();
+        return stockQty == null ? 0 : stockQty.intValue();
+    }
+}
@@ -0,0 +1,20 @@
+package com.study.redis_test.repository;
+
+import com.study.redis_test.entity.ProductStockShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProductStockShardRepository extends JpaRepository<ProductStockShard, Long> {
+    
+    List<ProductStockShard> findByProductIdOrderByBucketNoAsc(Long productId);
+    
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM ProductStockShard s WHERE s.productId = :productId")
+    int deleteByProductId(@Param("productId") Long productId);
+}
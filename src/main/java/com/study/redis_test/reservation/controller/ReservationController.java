@@ -0,0 +1,51 @@
+package com.study.redis_test.reservation.controller;
+
+import com.study.redis_test.dto.ReservationRequest;
+import com.study.redis_test.dto.ReservationResponse;
+import com.study.redis_test.dto.ReservationStockResponse;
+import com.study.redis_test.reservation.service.ReservationService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reservations")
+@RequiredArgsConstructor
+public class ReservationController {
+    
+    private final ReservationService reservationService;
+    
+    @PostMapping
+    public ResponseEntity<ReservationResponse> reserve(@Valid @RequestBody ReservationRequest request) {
+        ReservationResponse response = reservationService.reserve(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+    
+    @PostMapping("/{reservationId}/confirm")
+    public ResponseEntity<Void> confirm(@PathVariable String reservationId) {
+        reservationService.confirm(reservationId);
+        return ResponseEntity.noContent().build();
+    }
+    
+    @DeleteMapping("/{reservationId}")
+    public ResponseEntity<Void> release(@PathVariable String reservationId) {
+        reservationService.release(reservationId);
+        return ResponseEntity.noContent().build();
+    }
+    
+    @GetMapping("/products/{id}/stock")
+    public ResponseEntity<ReservationStockResponse> getStock(@PathVariable Long id) {
+        ReservationStockResponse response = reservationService.getStock(id);
+        return ResponseEntity.ok(response);
+    }
+    
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+    }
+}
@@ -0,0 +1,179 @@
+package com.study.redis_test.reservation.service;
+
+import com.study.redis_test.cache.service.ProductCacheService;
+import com.study.redis_test.datasource.DataSourceRouting;
+import com.study.redis_test.entity.ProductPlain;
+import com.study.redis_test.repository.ProductPlainRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReservationScheduler {
+    
+    private static final DefaultRedisScript<Long> EXPIRE_SCRIPT = script("scripts/reservation_expire.lua");
+    private static final DefaultRedisScript<Long> FLUSH_TAKE_SCRIPT = script("scripts/reservation_flush_take.lua");
+    private static final DefaultRedisScript<Long> FLUSH_DONE_SCRIPT = script("scripts/reservation_flush_done.lua");
+    private static final DefaultRedisScript<Long> REBASE_SCRIPT = script("scripts/reservation_rebase.lua");
+    
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ProductPlainRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductCacheService productCacheService;
+    
+    @Value("${stock.reservation.sweep-batch-size:500}")
+    private long sweepBatchSize;
+    
+    @Value("${stock.reservation.flush-batch-size:500}")
+    private long flushBatchSize;
+    
+    private static DefaultRedisScript<Long> script(String path) {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        script.setResultType(Long.class);
+        return script;
+    }
+    
+    // 만료 시각 정렬 집합에서 기한이 지난 예약만 꺼내 묶음 단위로 가용 수량에 되돌린다
+    @Scheduled(fixedDelayString = "${stock.reservation.sweep-interval-ms:1000}")
+    public void sweepExpired() {
+        String now = String.valueOf(System.currentTimeMillis());
+        long total = 0;
+        Long expired;
+        do {
+            expired = stringRedisTemplate.execute(
+                    EXPIRE_SCRIPT,
+                    List.of(ReservationService.DEADLINE_KEY),
+                    now,
+                    String.valueOf(sweepBatchSize),
+                    ReservationService.ENTRY_KEY_PREFIX,
+                    ReservationService.STOCK_KEY_PREFIX);
+            total += expired == null ? 0 : expired;
+        } while (expired != null && expired >= sweepBatchSize);
+        
+        if (total > 0) {
+            log.debug("만료된 예약 반환: {}건", total);
+        }
+    }
+    
+    // 상품별로 쌓인 확정 수량을 한 번에 빼므로 여러 건의 확정이 UPDATE 한 번으로 합쳐진다.
+    // Redis 의 onHand 로 덮어쓰지 않고 조건부로 빼므로, 그 사이 다른 전략이 바꾼 DB 재고가 사라지거나 음수가 되지 않는다
+    @Scheduled(fixedDelayString = "${stock.reservation.flush-interval-ms:1000}")
+    public void flushConfirmed() {
+        List<String> productIds = stringRedisTemplate.opsForSet().pop(ReservationService.DIRTY_SET_KEY, flushBatchSize);
+        if (productIds == null || productIds.isEmpty()) {
+            return;
+        }
+        
+        Map<Long, Integer> confirmed = new LinkedHashMap<>();
+        for (String productId : productIds) {
+            Long id = Long.valueOf(productId);
+            Long quantity = stringRedisTemplate.execute(FLUSH_TAKE_SCRIPT, List.of(ReservationService.stockKey(id)));
+            if (quantity != null && quantity != 0) {
+                confirmed.put(id, quantity.intValue());
+            }
+        }
+        if (confirmed.isEmpty()) {
+            return;
+        }
+        
+        try {
+            transactionTemplate.executeWithoutResult(status -> confirmed.forEach((productId, quantity) -> {
+                applyConfirmed(productId, quantity);
+                productCacheService.evictStock(ProductCacheService.PLAIN, productId);
+            }));
+            log.debug("확정된 예약 DB 반영 완료: {}건", confirmed.size());
+        } catch (Exception e) {
+            // 꺼낸 확정 수량을 되돌려 다음 주기에 다시 시도한다
+            confirmed.forEach((productId, quantity) -> finishFlush(productId, quantity, false));
+            stringRedisTemplate.opsForSet().add(ReservationService.DIRTY_SET_KEY,
+                    confirmed.keySet().stream().map(String::valueOf).toArray(String[]::new));
+            log.warn("확정된 예약 DB 반영 실패, 다음 주기에 재시도: {}", e.getMessage());
+            return;
+        }
+        
+        confirmed.forEach((productId, quantity) -> finishFlush(productId, quantity, true));
+        rebase(confirmed.keySet());
+    }
+    
+    // 예약 재고는 처음 예약할 때만 DB 에서 읽으므로, 다른 전략이 바꾼 재고를 주기적으로 onHand 에 반영한다
+    @Scheduled(fixedDelayString = "${stock.reservation.refresh-interval-ms:5000}")
+    public void refreshOnHand() {
+        Set<String> productIds = stringRedisTemplate.opsForSet().members(ReservationService.LOADED_SET_KEY);
+        if (productIds == null || productIds.isEmpty()) {
+            return;
+        }
+        
+        List<Long> ids = productIds.stream().map(Long::valueOf).toList();
+        for (int from = 0; from < ids.size(); from += (int) flushBatchSize) {
+            rebase(ids.subList(from, (int) Math.min(from + flushBatchSize, ids.size())));
+        }
+    }
+    
+    private void applyConfirmed(Long productId, int quantity) {
+        if (productRepository.addStockQty(productId, -quantity) == 1) {
+            return;
+        }
+        // onHand 를 다시 맞추기 전에 다른 전략이 같은 재고를 차감해 예약이 DB 보다 많이 확정된 경우. 남은 재고만 0 으로 맞추고 남긴다
+        Integer dbStock = productRepository.findStockQtyById(productId).orElse(null);
+        if (dbStock == null) {
+            log.warn("확정된 예약 반영 대상 상품이 없습니다: 상품ID={}, 수량={}", productId, quantity);
+            return;
+        }
+        log.error("예약 재고 초과 확정 감지: 상품ID={}, DB재고={}, 확정수량={}", productId, dbStock, quantity);
+        productRepository.addStockQty(productId, -dbStock);
+    }
+    
+    private void finishFlush(Long productId, int quantity, boolean committed) {
+        try {
+            stringRedisTemplate.execute(FLUSH_DONE_SCRIPT, List.of(ReservationService.stockKey(productId)),
+                    String.valueOf(quantity), committed ? "1" : "0");
+        } catch (Exception e) {
+            log.error("확정 수량 flush 상태 정리 실패: 상품ID={}, 수량={}, committed={}, error={}", productId, quantity, committed, e.getMessage());
+        }
+    }
+    
+    // DB 재고를 읽기 전에 epoch 를 보고, 그 사이 flush 가 커밋됐으면 스크립트가 맞추지 않고 건너뛴다
+    private void rebase(Collection<Long> productIds) {
+        try {
+            List<Object> epochs = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                productIds.forEach(productId -> stringConnection.hGet(ReservationService.stockKey(productId), "epoch"));
+                return null;
+            });
+            Map<Long, Integer> stocks = DataSourceRouting.readFromPrimary(() -> productRepository.findAllById(productIds)).stream()
+                    .collect(Collectors.toMap(ProductPlain::getId, ProductPlain::getStockQty));
+            
+            int i = 0;
+            for (Long productId : productIds) {
+                Object epoch = epochs.get(i++);
+                Integer stockQty = stocks.get(productId);
+                if (stockQty == null) {
+                    continue;
+                }
+                stringRedisTemplate.execute(REBASE_SCRIPT, List.of(ReservationService.stockKey(productId)),
+                        String.valueOf(stockQty), epoch == null ? "0" : (String) epoch);
+            }
+        } catch (Exception e) {
+            log.warn("예약 재고 onHand 재설정 실패, 다음 주기에 재시도: {}", e.getMessage());
+        }
+    }
+}
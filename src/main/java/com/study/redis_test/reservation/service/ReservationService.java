@@ -0,0 +1,157 @@
+package com.study.redis_test.reservation.service;
+
+import com.study.redis_test.dto.ReservationRequest;
+import com.study.redis_test.dto.ReservationResponse;
+import com.study.redis_test.dto.ReservationStockResponse;
+import com.study.redis_test.repository.ProductPlainRepository;
+import com.study.redis_test.datasource.DataSourceRouting;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+
+// 결제 중 재고를 잡아 두는 예약. 가용/예약 수량은 Redis 에서만 바뀌고, 확정된 수량만 주기적으로 product_plain 에 반영된다.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReservationService {
+    
+    public static final String STOCK_KEY_PREFIX = "product:reservation:stock:";
+    public static final String ENTRY_KEY_PREFIX = "product:reservation:entry:";
+    public static final String DEADLINE_KEY = "product:reservation:deadlines";
+    public static final String DIRTY_SET_KEY = "product:reservation:dirty";
+    public static final String LOADED_SET_KEY = "product:reservation:loaded";
+    
+    private static final String ON_HAND = "onHand";
+    private static final String HELD = "held";
+    
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> RESERVE_SCRIPT = new DefaultRedisScript<>();
+    private static final DefaultRedisScript<Long> SETTLE_SCRIPT = new DefaultRedisScript<>();
+    
+    static {
+        RESERVE_SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/reservation_reserve.lua")));
+        RESERVE_SCRIPT.setResultType(List.class);
+        SETTLE_SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/reservation_settle.lua")));
+        SETTLE_SCRIPT.setResultType(Long.class);
+    }
+    
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ProductPlainRepository productRepository;
+    
+    @Value("${stock.reservation.default-ttl-seconds:300}")
+    private long defaultTtlSeconds;
+    
+    @Value("${stock.reservation.max-ttl-seconds:1800}")
+    private long maxTtlSeconds;
+    
+    public static String stockKey(Long productId) {
+        return STOCK_KEY_PREFIX + productId;
+    }
+    
+    public static String entryKey(String reservationId) {
+        return ENTRY_KEY_PREFIX + reservationId;
+    }
+    
+    // 가용 수량 확인, 예약 수량 증가, 만료 시각 등록을 스크립트 하나로 원자적으로 처리한다
+    public ReservationResponse reserve(ReservationRequest request) {
+        Long productId = request.getProductId();
+        long ttlSeconds = Math.min(request.getTtlSeconds() == null ? defaultTtlSeconds : request.getTtlSeconds(), maxTtlSeconds);
+        long expiresAtMillis = System.currentTimeMillis() + ttlSeconds * 1000;
+        String reservationId = UUID.randomUUID().toString();
+        
+        List<?> result = executeReserve(productId, request.getQuantity(), expiresAtMillis, reservationId);
+        if (((Long) result.get(0)) < 0) {
+            // 처음 예약하는 상품이면 DB 재고를 올린 뒤 한 번 더 시도한다
+            loadStock(productId);
+            result = executeReserve(productId, request.getQuantity(), expiresAtMillis, reservationId);
+        }
+        
+        long status = (Long) result.get(0);
+        if (status < 0) {
+            throw new IllegalStateException("예약 재고를 적재하지 못했습니다: " + productId);
+        }
+        int available = ((Long) result.get(1)).intValue();
+        if (status == 0) {
+            throw new IllegalArgumentException("재고가 부족합니다. 현재 재고: " + available);
+        }
+        
+        log.debug("재고 예약: 상품ID={}, 수량={}, 예약ID={}, 남은 가용 수량={}", productId, request.getQuantity(), reservationId, available);
+        return ReservationResponse.builder()
+                .reservationId(reservationId)
+                .productId(productId)
+                .quantity(request.getQuantity())
+                .availableQty(available)
+                .expiresAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAtMillis), ZoneId.systemDefault()))
+                .build();
+    }
+    
+    // 예약 수량을 실제 차감으로 바꾼다. DB 반영은 ReservationScheduler 가 상품별로 묶어서 한다
+    public void confirm(String reservationId) {
+        settle(reservationId, "CONFIRM");
+    }
+    
+    public void release(String reservationId) {
+        settle(reservationId, "RELEASE");
+    }
+    
+    // HMGET 한 번으로 실제/예약 수량을 함께 읽는다
+    public ReservationStockResponse getStock(Long productId) {
+        List<Object> values = stringRedisTemplate.opsForHash().multiGet(stockKey(productId), List.of(ON_HAND, HELD));
+        if (values.get(0) == null) {
+            loadStock(productId);
+            values = stringRedisTemplate.opsForHash().multiGet(stockKey(productId), List.of(ON_HAND, HELD));
+        }
+        
+        int onHand = Integer.parseInt((String) values.get(0));
+        int held = values.get(1) == null ? 0 : Integer.parseInt((String) values.get(1));
+        return ReservationStockResponse.builder()
+                .productId(productId)
+                .onHandQty(onHand)
+                .availableQty(onHand - held)
+                .heldQty(held)
+                .build();
+    }
+    
+    private List<?> executeReserve(Long productId, Integer quantity, long expiresAtMillis, String reservationId) {
+        return stringRedisTemplate.execute(
+                RESERVE_SCRIPT,
+                List.of(stockKey(productId), entryKey(reservationId), DEADLINE_KEY),
+                String.valueOf(productId),
+                String.valueOf(quantity),
+                String.valueOf(expiresAtMillis),
+                reservationId);
+    }
+    
+    private void settle(String reservationId, String mode) {
+        Long settled = stringRedisTemplate.execute(
+                SETTLE_SCRIPT,
+                List.of(entryKey(reservationId), DEADLINE_KEY, DIRTY_SET_KEY),
+                reservationId,
+                STOCK_KEY_PREFIX,
+                mode);
+        if (settled == null || settled == 0) {
+            throw new IllegalArgumentException("예약을 찾을 수 없거나 이미 만료되었습니다: " + reservationId);
+        }
+        log.debug("예약 {}: 예약ID={}", "CONFIRM".equals(mode) ? "확정" : "취소", reservationId);
+    }
+    
+    // 이미 올라가 있으면 덮어쓰지 않으므로 동시에 여러 요청이 적재해도 안전하다.
+    // 이후에는 ReservationScheduler 가 주기적으로 DB 재고에 맞춘다
+    private void loadStock(Long productId) {
+        Integer stockQty = DataSourceRouting.readFromPrimary(() -> productRepository.findStockQtyById(productId))
+                .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + productId));
+        stringRedisTemplate.opsForHash().putIfAbsent(stockKey(productId), ON_HAND, String.valueOf(stockQty));
+        stringRedisTemplate.opsForSet().add(LOADED_SET_KEY, String.valueOf(productId));
+    }
+}
@@ -0,0 +1,57 @@
+package com.study.redis_test.retry;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 상품별 최근 충돌률을 지수 이동 평균으로 추정한다. 시도마다 충돌이면 1, 성공이면 0 을 반영한다
+@Component
+public class ContentionEstimator {
+    
+    // double 값을 비트로 담아 CAS 로 갱신한다.
+    // 한동안 시도가 없던 상품의 값은 더 이상 현재 충돌률을 나타내지 않으므로 버리고 0 부터 다시 추정한다
+    private Cache<Long, AtomicLong> rates;
+    
+    @Value("${stock.optimistic.retry.ewma-alpha:0.2}")
+    private double alpha;
+    
+    @Value("${stock.optimistic.retry.contention-max-keys:10000}")
+    private long maxKeys;
+    
+    @Value("${stock.optimistic.retry.contention-idle-seconds:60}")
+    private long idleSeconds;
+    
+    @PostConstruct
+    public void init() {
+        rates = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofSeconds(idleSeconds))
+                .build();
+    }
+    
+    public double conflictRate(Long key) {
+        AtomicLong rate = rates.getIfPresent(key);
+        return rate == null ? 0.0 : Double.longBitsToDouble(rate.get());
+    }
+    
+    public void recordConflict(Long key) {
+        update(key, 1.0);
+    }
+    
+    public void recordSuccess(Long key) {
+        update(key, 0.0);
+    }
+    
+    private void update(Long key, double sample) {
+        AtomicLong rate = rates.get(key, k -> new AtomicLong(Double.doubleToLongBits(0.0)));
+        rate.updateAndGet(bits -> {
+            double current = Double.longBitsToDouble(bits);
+            return Double.doubleToLongBits(current + alpha * (sample - current));
+        });
+    }
+}
@@ -0,0 +1,28 @@
+package com.study.redis_test.retry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// 지수 증가 상한 안에서 0부터 무작위로 기다려(full jitter) 재시도 시점이 다시 겹치지 않게 한다.
+// 충돌률이 낮으면 상한을 줄이고 높으면 늘린다.
+@Component
+@ConditionalOnProperty(name = "stock.optimistic.retry.policy", havingValue = "EXPONENTIAL_JITTER", matchIfMissing = true)
+public class ExponentialJitterBackoffPolicy implements RetryBackoffPolicy {
+    
+    @Value("${stock.optimistic.retry.base-delay-ms:5}")
+    private long baseDelayMs;
+    
+    @Value("${stock.optimistic.retry.max-delay-ms:200}")
+    private long maxDelayMs;
+    
+    @Override
+    public long delayMillis(int attempt, double conflictRate) {
+        double exponential = baseDelayMs * Math.pow(2, Math.min(attempt - 1, 20));
+        // 충돌률 0 이면 0.5배, 1 이면 2.5배
+        double cap = Math.min(maxDelayMs, exponential * (0.5 + 2 * conflictRate));
+        return ThreadLocalRandom.current().nextLong((long) cap + 1);
+    }
+}
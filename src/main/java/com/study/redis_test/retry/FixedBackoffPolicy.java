@@ -0,0 +1,19 @@
+package com.study.redis_test.retry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// 기존 @Retryable(backoff = @Backoff(delay = 50)) 과 같은 고정 지연
+@Component
+@ConditionalOnProperty(name = "stock.optimistic.retry.policy", havingValue = "FIXED")
+public class FixedBackoffPolicy implements RetryBackoffPolicy {
+    
+    @Value("${stock.optimistic.retry.fixed-delay-ms:50}")
+    private long delayMs;
+    
+    @Override
+    public long delayMillis(int attempt, double conflictRate) {
+        return delayMs;
+    }
+}
@@ -0,0 +1,91 @@
+package com.study.redis_test.retry;
+
+import com.study.redis_test.harness.OperationTimer;
+import com.study.redis_test.metrics.StockMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+// 낙관적 락 재시도를 직접 수행한다. 시도마다 새 트랜잭션으로 호출해야 한다.
+// 상품의 충돌률이 escalation-threshold 이상이면 더 기다리지 않고 비관적 락 경로로 넘긴다.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OptimisticRetryExecutor {
+    
+    private static final String LOCK_TYPE = "OPTIMISTIC_WITH_RETRY";
+    
+    private final RetryBackoffPolicy backoffPolicy;
+    private final ContentionEstimator contentionEstimator;
+    private final StockMetrics stockMetrics;
+    
+    @Value("${stock.optimistic.retry.max-attempts:10}")
+    private int maxAttempts;
+    
+    @Value("${stock.optimistic.retry.escalation-threshold:0.6}")
+    private double escalationThreshold;
+    
+    public <T> T execute(String operation, Long key, Supplier<T> optimistic, Supplier<T> escalation) {
+        if (contentionEstimator.conflictRate(key) >= escalationThreshold) {
+            return escalate(operation, key, 0, escalation);
+        }
+        
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = optimistic.get();
+                contentionEstimator.recordSuccess(key);
+                recordAttempts(operation, attempt, true);
+                return result;
+            } catch (OptimisticLockingFailureException e) {
+                contentionEstimator.recordConflict(key);
+                double conflictRate = contentionEstimator.conflictRate(key);
+                if (conflictRate >= escalationThreshold) {
+                    return escalate(operation, key, attempt, escalation);
+                }
+                if (attempt >= maxAttempts) {
+                    recordAttempts(operation, attempt, false);
+                    throw e;
+                }
+                sleep(backoffPolicy.delayMillis(attempt, conflictRate));
+            }
+        }
+    }
+    
+    // 비관적 락 경로는 충돌하지 않으므로 성공 표본으로 반영해 충돌률이 다시 내려갈 수 있게 한다
+    private <T> T escalate(String operation, Long key, int failedAttempts, Supplier<T> escalation) {
+        log.debug("충돌률 초과로 비관적 락 경로로 전환: key={}, 실패 시도={}", key, failedAttempts);
+        stockMetrics.incrementRetryEscalation(LOCK_TYPE, operation);
+        OperationTimer.recordEscalation();
+        
+        boolean succeeded = false;
+        try {
+            T result = escalation.get();
+            succeeded = true;
+            return result;
+        } finally {
+            contentionEstimator.recordSuccess(key);
+            recordAttempts(operation, failedAttempts + 1, succeeded);
+        }
+    }
+    
+    private void recordAttempts(String operation, int attempts, boolean succeeded) {
+        OperationTimer.recordRetries(attempts - 1);
+        stockMetrics.recordRetryAttempts(LOCK_TYPE, operation, attempts, succeeded);
+    }
+    
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("재시도 대기 중 인터럽트가 발생했습니다", e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.study.redis_test.retry;
+
+// 낙관적 락 충돌 후 다음 시도까지 기다릴 시간을 정한다 (stock.optimistic.retry.policy 로 선택)
+public interface RetryBackoffPolicy {
+    
+    // attempt: 실패한 시도 번호 (1부터), conflictRate: 해당 상품의 최근 충돌률 (0~1)
+    long delayMillis(int attempt, double conflictRate);
+}
@@ -0,0 +1,93 @@
+package com.study.redis_test.service;
+
+import com.study.redis_test.cache.service.ProductCacheService;
+import com.study.redis_test.repository.ProductPlainRepository;
+import com.study.redis_test.repository.ProductStockJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 같은 상품에 모인 변경 요청을 도착 순서대로 판정하되, DB 에는 합친 변경량을 조건부 UPDATE 한 문장으로 반영한다.
+// 행을 미리 잠가 읽지 않으므로 다른 전략이 같은 행을 바꿔도 그 값 위에 더해지고, 요청별 재고도 그 문장이 돌려준 값에서 계산한다
+@Component
+@RequiredArgsConstructor
+public class CoalescedStockWriter {
+    
+    private final ProductStockJdbcRepository productStockJdbcRepository;
+    private final ProductPlainRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductCacheService productCacheService;
+    
+    // 요청 순서대로 바뀐 재고나 거절 사유를 돌려준다. 상품이 없거나 DB 오류가 나면 예외를 던지고 아무것도 반영하지 않는다
+    public List<Outcome> apply(Long id, List<Integer> quantities) {
+        return transactionTemplate.execute(status -> {
+            int delta = quantities.stream().mapToInt(Integer::intValue).sum();
+            Integer stockQty = productStockJdbcRepository.addStockQtyReturning(id, delta);
+            List<Outcome> outcomes = stockQty != null
+                    ? settle(id, stockQty - delta, quantities)
+                    : applyEach(id, quantities);
+            
+            if (outcomes.stream().anyMatch(Outcome::applied)) {
+                productCacheService.evictStock(ProductCacheService.PLAIN, id);
+            }
+            return outcomes;
+        });
+    }
+    
+    // 합친 변경량이 반영된 경우. 반영 전 재고부터 순서대로 다시 계산해, 중간에 음수가 되는 요청은 거절하고 그만큼 되돌린다
+    private List<Outcome> settle(Long id, int stockBefore, List<Integer> quantities) {
+        List<Outcome> outcomes = new ArrayList<>(quantities.size());
+        int stock = stockBefore;
+        int rejected = 0;
+        for (Integer quantity : quantities) {
+            int newStock = stock + quantity;
+            if (newStock < 0) {
+                outcomes.add(Outcome.reject("재고가 부족합니다. 현재 재고: " + stock));
+                rejected += quantity;
+                continue;
+            }
+            stock = newStock;
+            outcomes.add(Outcome.accept(newStock));
+        }
+        
+        // 거절된 요청은 모두 차감이므로 되돌리는 변경은 양수이고 조건에 걸리지 않는다
+        if (rejected != 0) {
+            productRepository.addStockQty(id, -rejected);
+        }
+        return outcomes;
+    }
+    
+    // 합친 변경량으로는 재고가 모자란 경우. 요청마다 조건부 UPDATE 를 실행해 그 결과로 판정한다
+    private List<Outcome> applyEach(Long id, List<Integer> quantities) {
+        List<Outcome> outcomes = new ArrayList<>(quantities.size());
+        for (Integer quantity : quantities) {
+            Integer stockQty = productStockJdbcRepository.addStockQtyReturning(id, quantity);
+            if (stockQty != null) {
+                outcomes.add(Outcome.accept(stockQty));
+                continue;
+            }
+            Integer current = productRepository.findStockQtyById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
+            outcomes.add(Outcome.reject("재고가 부족합니다. 현재 재고: " + current));
+        }
+        return outcomes;
+    }
+    
+    public record Outcome(Integer stockQty, String rejection) {
+        
+        static Outcome accept(int stockQty) {
+            return new Outcome(stockQty, null);
+        }
+        
+        static Outcome reject(String rejection) {
+            return new Outcome(null, rejection);
+        }
+        
+        public boolean applied() {
+            return rejection == null;
+        }
+    }
+}
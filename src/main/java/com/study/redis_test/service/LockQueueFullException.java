@@ -0,0 +1,9 @@
+package com.study.redis_test.service;
+
+// 같은 키의 락 대기열이 가득 차 대기하지 않고 바로 거절한 경우
+public class LockQueueFullException extends RuntimeException {
+    
+    public LockQueueFullException(String lockKey, int depth) {
+        super("Lock queue is full for key: " + lockKey + " (depth: " + depth + ")");
+    }
+}
@@ -0,0 +1,49 @@
+package com.study.redis_test.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+// 락 → 트랜잭션 시작 → 커밋 → 락 해제 순서를 보장하는 실행 템플릿.
+// 트랜잭션 안에서 락을 잡으면 커밋 전에 락이 풀려 다음 요청이 커밋되지 않은 이전 값을 읽을 수 있다.
+@Component
+public class LockedTransactionTemplate {
+    
+    private static final String TRANSACTION_NAME = "LockedTransactionTemplate.execute";
+    
+    private final RedisLockService redisLockService;
+    private final TransactionTemplate transactionTemplate;
+    
+    public LockedTransactionTemplate(RedisLockService redisLockService, PlatformTransactionManager transactionManager) {
+        this.redisLockService = redisLockService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setName(TRANSACTION_NAME);
+    }
+    
+    public <T> T execute(String lockKey, Supplier<T> action) {
+        requireNoActiveTransaction(lockKey);
+        return redisLockService.executeWithLock(lockKey, () -> transactionTemplate.execute(status -> action.get()));
+    }
+    
+    public <T> T execute(Collection<String> lockKeys, Supplier<T> action) {
+        requireNoActiveTransaction(lockKeys.toString());
+        return redisLockService.executeWithMultiLock(lockKeys, () -> transactionTemplate.execute(status -> action.get()));
+    }
+    
+    // 트랜잭션은 DB 풀 스레드에서 시작되므로 호출자의 트랜잭션과 섞이지 않는다
+    public <T> CompletableFuture<T> executeAsync(String lockKey, Supplier<T> action) {
+        return redisLockService.executeWithLockAsync(lockKey, () -> transactionTemplate.execute(status -> action.get()));
+    }
+    
+    // 바깥 트랜잭션에 합류하면 커밋이 락 해제 뒤로 밀리므로 허용하지 않는다
+    private static void requireNoActiveTransaction(String lockKey) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("락은 트랜잭션 밖에서 잡아야 합니다: " + lockKey);
+        }
+    }
+}
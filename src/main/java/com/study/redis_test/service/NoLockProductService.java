@@ -1,22 +1,18 @@
 package com.study.redis_test.service;
 
+import com.study.redis_test.cache.service.ProductCacheService;
 import com.study.redis_test.dto.ConcurrentTestRequest;
 import com.study.redis_test.dto.ConcurrentTestResult;
 import com.study.redis_test.dto.ProductPlainResponse;
 import com.study.redis_test.entity.ProductPlain;
 import com.study.redis_test.repository.ProductPlainRepository;
+import com.study.redis_test.harness.ConcurrentTestRunner;
+import com.study.redis_test.soldout.service.SoldOutRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicInteger;
-
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -24,9 +20,20 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class NoLockProductService {
     
     private final ProductPlainRepository productRepository;
+    private final ProductCacheService productCacheService;
+    private final ConcurrentTestRunner concurrentTestRunner;
+    private final SoldOutRegistry soldOutRegistry;
+    
+    // 캐시를 거치지 않고 매번 DB 에서 읽는다 (부하 테스트의 읽기 요청용)
+    public ProductPlainResponse getProductById(Long id) {
+        ProductPlain product = productRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
+        return ProductPlainResponse.from(product);
+    }
     
     @Transactional
     public ProductPlainResponse updateStockWithoutLock(Long id, Integer quantity) {
+        soldOutRegistry.checkAvailable(ProductCacheService.PLAIN, id, quantity);
         ProductPlain product = productRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
         
@@ -44,6 +51,8 @@ public class NoLockProductService {
         
         product.setStockQty(newStock);
         ProductPlain updatedProduct = productRepository.save(product);
+        productCacheService.evictStock(ProductCacheService.PLAIN, id);
+        soldOutRegistry.onStockChanged(ProductCacheService.PLAIN, id, newStock - quantity, newStock);
         
         log.debug("락 없이 재고 업데이트: 상품ID={}, 변경량={}, 최종재고={}", 
                 id, quantity, updatedProduct.getStockQty());
@@ -52,48 +61,9 @@ public class NoLockProductService {
     }
     
     public ConcurrentTestResult testConcurrentStockUpdate(Long id, ConcurrentTestRequest request) {
-        long startTime = System.currentTimeMillis();
-        AtomicInteger successCount = new AtomicInteger(0);
-        AtomicInteger failCount = new AtomicInteger(0);
-        List<String> errors = new ArrayList<>();
-        
-        ExecutorService executor = Executors.newFixedThreadPool(request.getConcurrentCount());
-        
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-        
-        for (int i = 0; i < request.getConcurrentCount(); i++) {
-            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                try {
-                    updateStockWithoutLock(id, request.getQuantity());
-                    successCount.incrementAndGet();
-                } catch (Exception e) {
-                    failCount.incrementAndGet();
-                    synchronized (errors) {
-                        errors.add(e.getMessage());
-                    }
-                }
-            }, executor);
-            futures.add(future);
-        }
-        
-        // 모든 스레드 완료 대기
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-        executor.shutdown();
-        
-        long endTime = System.currentTimeMillis();
-        
-        // 최종 재고 확인
-        ProductPlain finalProduct = productRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
-        
-        return ConcurrentTestResult.builder()
-                .totalRequests(request.getConcurrentCount())
-                .successCount(successCount.get())
-                .failCount(failCount.get())
-                .totalExecutionTimeMs(endTime - startTime)
-                .finalStockQty(finalProduct.getStockQty())
-                .errors(errors)
-                .lockType("NO_LOCK")
-                .build();
+        return concurrentTestRunner.run(request, request.getConcurrentCount(), "NO_LOCK",
+                () -> updateStockWithoutLock(id, request.getQuantity()),
+                () -> productRepository.findStockQtyById(id)
+                        .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id)));
     }
 }
\ No newline at end of file
@@ -1,30 +1,37 @@
 package com.study.redis_test.service;
 
+import com.study.redis_test.cache.service.ProductCacheService;
 import com.study.redis_test.dto.ProductCreateRequest;
 import com.study.redis_test.dto.ProductResponse;
 import com.study.redis_test.dto.ProductUpdateRequest;
 import com.study.redis_test.dto.ConcurrentTestRequest;
 import com.study.redis_test.dto.ConcurrentTestResult;
+import com.study.redis_test.dto.CursorPageResponse;
+import com.study.redis_test.dto.StockBatchRequest;
+import com.study.redis_test.dto.StockBatchResponse;
 import com.study.redis_test.entity.Product;
 import com.study.redis_test.repository.ProductRepository;
+import com.study.redis_test.harness.ConcurrentTestRunner;
+import com.study.redis_test.retry.OptimisticRetryExecutor;
+import com.study.redis_test.soldout.service.SoldOutRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationContext;
 import org.springframework.dao.OptimisticLockingFailureException;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -32,9 +39,16 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class ProductService {
     
+    private static final int MAX_PAGE_SIZE = 1000;
+    
     private final ProductRepository productRepository;
     private final TransactionTemplate transactionTemplate;
     private final ApplicationContext applicationContext;
+    private final ProductCacheService productCacheService;
+    private final ConcurrentTestRunner concurrentTestRunner;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
+    private final StockDbExecutor stockDbExecutor;
+    private final SoldOutRegistry soldOutRegistry;
     
     @Transactional
     public ProductResponse createProduct(ProductCreateRequest request) {
@@ -48,21 +62,27 @@ public class ProductService {
                 .priceKrw(request.getPriceKrw())
                 .stockQty(request.getStockQty())
                 .build();
-                
+        
         Product savedProduct = productRepository.save(product);
         return ProductResponse.from(savedProduct);
     }
     
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public ProductResponse getProductById(Long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
-        return ProductResponse.from(product);
+        return productCacheService.getById(ProductCacheService.OPTLOCK, id, ProductResponse.class, () -> {
+            Product product = productRepository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
+            return ProductResponse.from(product);
+        }, ProductResponse::getVersion);
     }
     
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public ProductResponse getProductBySku(String sku) {
-        Product product = productRepository.findBySku(sku)
-                .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + sku));
-        return ProductResponse.from(product);
+        return productCacheService.getBySku(ProductCacheService.OPTLOCK, sku, ProductResponse.class, () -> {
+            Product product = productRepository.findBySku(sku)
+                    .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + sku));
+            return ProductResponse.from(product);
+        }, ProductResponse::getId, ProductResponse::getVersion);
     }
     
     public List<ProductResponse> getAllProducts() {
@@ -71,6 +91,22 @@ public class ProductService {
                 .collect(Collectors.toList());
     }
     
+    // id 기준 keyset 페이지네이션: OFFSET 없이 cursor 다음 행부터 size 개만 읽는다
+    public CursorPageResponse<ProductResponse> getProductsAfter(Long cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        List<ProductResponse> products = productRepository.findByIdGreaterThanOrderByIdAsc(
+                        cursor == null ? 0L : cursor, Limit.of(pageSize + 1)).stream()
+                .map(ProductResponse::from)
+                .collect(Collectors.toList());
+        return CursorPageResponse.of(products, pageSize, ProductResponse::getId);
+    }
+    
+    public void streamAllProducts(Consumer<ProductResponse> consumer) {
+        try (Stream<ProductResponse> products = productRepository.streamAllAsResponse()) {
+            products.forEach(consumer);
+        }
+    }
+    
     @Transactional
     public ProductResponse updateProduct(Long id, ProductUpdateRequest request) {
         Product product = productRepository.findById(id)
@@ -85,6 +121,8 @@ public class ProductService {
         product.setStockQty(request.getStockQty());
         
         Product updatedProduct = productRepository.save(product);
+        productCacheService.evict(ProductCacheService.OPTLOCK, id);
+        soldOutRegistry.onStockReset(ProductCacheService.OPTLOCK, id, updatedProduct.getStockQty());
         return ProductResponse.from(updatedProduct);
     }
     
@@ -94,17 +132,33 @@ public class ProductService {
             throw new IllegalArgumentException("상품을 찾을 수 없습니다: " + id);
         }
         productRepository.deleteById(id);
+        productCacheService.evict(ProductCacheService.OPTLOCK, id);
     }
     
-    @Transactional
-    @Retryable(
-        value = OptimisticLockingFailureException.class,
-        maxAttempts = 10,
-        backoff = @Backoff(delay = 50)
-    )
+    // 시도마다 새 트랜잭션을 열어야 하므로 재시도는 트랜잭션 밖에서 OptimisticRetryExecutor 가 맡는다
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ProductResponse updateStock(Long id, Integer quantity) {
         log.debug("Updating stock for product {} with quantity {}", id, quantity);
-        Product product = productRepository.findByIdWithOptimisticLock(id)
+        soldOutRegistry.checkAvailable(ProductCacheService.OPTLOCK, id, quantity);
+        ProductResponse response = optimisticRetryExecutor.execute("updateStock", id,
+                () -> transactionTemplate.execute(status -> applyStockUpdate(id, quantity,
+                        productRepository.findByIdWithOptimisticLock(id))),
+                () -> transactionTemplate.execute(status -> applyStockUpdate(id, quantity,
+                        productRepository.findByIdWithPessimisticLock(id))));
+        soldOutRegistry.onStockChanged(ProductCacheService.OPTLOCK, id, response.getStockQty() - quantity,
+                response.getStockQty());
+        return response;
+    }
+    
+    // 재시도 대기와 JDBC 는 요청 스레드 대신 고정 크기 DB 풀 스레드에서 실행한다
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<ProductResponse> updateStockAsync(Long id, Integer quantity) {
+        soldOutRegistry.checkAvailable(ProductCacheService.OPTLOCK, id, quantity);
+        return stockDbExecutor.supplyAsync(() -> updateStock(id, quantity));
+    }
+    
+    private ProductResponse applyStockUpdate(Long id, Integer quantity, Optional<Product> found) {
+        Product product = found
                 .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
         
         int newStock = product.getStockQty() + quantity;
@@ -114,122 +168,64 @@ public class ProductService {
         
         product.setStockQty(newStock);
         Product updatedProduct = productRepository.save(product);
+        productCacheService.evictStock(ProductCacheService.OPTLOCK, id);
         return ProductResponse.from(updatedProduct);
     }
     
-    public ConcurrentTestResult testConcurrentStockUpdate(Long id, ConcurrentTestRequest request) {
-        long startTime = System.currentTimeMillis();
-        AtomicInteger successCount = new AtomicInteger(0);
-        AtomicInteger failCount = new AtomicInteger(0);
-        AtomicInteger retryCount = new AtomicInteger(0);
-        List<String> errors = new ArrayList<>();
-        
-        ExecutorService executor = Executors.newFixedThreadPool(10);
-        
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-        
-        for (int i = 0; i < request.getConcurrentCount(); i++) {
-            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                try {
-                    ProductService productService = applicationContext.getBean(ProductService.class);
-                    productService.updateStock(id, request.getQuantity());
-                    successCount.incrementAndGet();
-                } catch (Exception e) {
-                    failCount.incrementAndGet();
-                    synchronized (errors) {
-                        errors.add("오류: " + e.getMessage());
-                    }
-                }
-            }, executor);
-            futures.add(future);
-        }
-        
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-        executor.shutdown();
-        
-        long endTime = System.currentTimeMillis();
-        
-        Product finalProduct = productRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
-        
-        return ConcurrentTestResult.builder()
-                .totalRequests(request.getConcurrentCount())
-                .successCount(successCount.get())
-                .failCount(failCount.get())
-                .totalExecutionTimeMs(endTime - startTime)
-                .finalStockQty(finalProduct.getStockQty())
-                .errors(errors)
-                .lockType("OPTIMISTIC_WITH_RETRY")
-                .build();
+    // 버전 충돌이 나면 묶음 전체를 새 트랜잭션으로 다시 시도한다. 충돌률은 묶음에서 가장 작은 상품 ID 로 추적하고,
+    // 잦으면 정렬된 순서로 행 락을 잡는 경로로 넘긴다
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public StockBatchResponse updateStockBatch(StockBatchRequest request) {
+        List<Long> ids = StockBatchPlan.sortedIds(request);
+        return optimisticRetryExecutor.execute("updateStockBatch", ids.get(0),
+                () -> transactionTemplate.execute(status -> applyStockBatch(request,
+                        productRepository.findAllByIdInWithOptimisticLock(ids))),
+                () -> transactionTemplate.execute(status -> applyStockBatch(request,
+                        productRepository.findAllByIdInWithPessimisticLock(ids))));
     }
     
-    public ConcurrentTestResult testTrueConcurrentStockUpdate(Long id, ConcurrentTestRequest request) {
-        long startTime = System.currentTimeMillis();
-        AtomicInteger successCount = new AtomicInteger(0);
-        AtomicInteger failCount = new AtomicInteger(0);
-        List<String> errors = new ArrayList<>();
-        
-        // 요청 수만큼 스레드 생성 (최대 1000개로 제한)
-        int threadCount = Math.min(request.getConcurrentCount(), 1000);
-        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
-        
-        // CountDownLatch로 모든 스레드가 동시에 시작하도록 제어
-        CountDownLatch startLatch = new CountDownLatch(1);
-        CountDownLatch endLatch = new CountDownLatch(threadCount);
-        
-        for (int i = 0; i < threadCount; i++) {
-            executor.submit(() -> {
-                try {
-                    // 모든 스레드가 여기서 대기
-                    startLatch.await();
-                    
-                    // 동시에 실행
-                    ProductService productService = applicationContext.getBean(ProductService.class);
-                    productService.updateStock(id, request.getQuantity());
-                    successCount.incrementAndGet();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    failCount.incrementAndGet();
-                    synchronized (errors) {
-                        errors.add("인터럽트 오류: " + e.getMessage());
-                    }
-                } catch (Exception e) {
-                    failCount.incrementAndGet();
-                    synchronized (errors) {
-                        errors.add("오류: " + e.getMessage());
-                    }
-                } finally {
-                    endLatch.countDown();
-                }
+    private StockBatchResponse applyStockBatch(StockBatchRequest request, List<Product> products) {
+        Map<Long, Product> productsById = products.stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        
+        StockBatchPlan plan = StockBatchPlan.of(request, products.stream()
+                .collect(Collectors.toMap(Product::getId, Product::getStockQty)));
+        if (plan.isApplicable()) {
+            plan.getFinalStocks().forEach((id, stockQty) -> {
+                Product product = productsById.get(id);
+                soldOutRegistry.onStockChanged(ProductCacheService.OPTLOCK, id, product.getStockQty(), stockQty);
+                product.setStockQty(stockQty);
+                productCacheService.evictStock(ProductCacheService.OPTLOCK, id);
             });
+            productRepository.saveAll(products);
         }
-        
-        // 모든 스레드가 준비되면 동시에 시작
-        startLatch.countDown();
-        
-        try {
-            // 모든 스레드가 완료될 때까지 대기
-            endLatch.await();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.error("대기 중 인터럽트 발생", e);
-        }
-        
-        executor.shutdown();
-        
-        long endTime = System.currentTimeMillis();
-        
-        Product finalProduct = productRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id));
-        
-        return ConcurrentTestResult.builder()
-                .totalRequests(threadCount)
-                .successCount(successCount.get())
-                .failCount(failCount.get())
-                .totalExecutionTimeMs(endTime - startTime)
-                .finalStockQty(finalProduct.getStockQty())
-                .errors(errors)
-                .lockType("OPTIMISTIC_WITH_RETRY_TRUE_CONCURRENT")
-                .build();
+        return plan.toResponse();
+    }
+    
+    public ConcurrentTestResult testConcurrentStockUpdate(Long id, ConcurrentTestRequest request) {
+        ProductService productService = applicationContext.getBean(ProductService.class);
+        return concurrentTestRunner.run(request, 10, "OPTIMISTIC_WITH_RETRY",
+                () -> productService.updateStock(id, request.getQuantity()),
+                () -> findStockQty(id));
+    }
+    
+    public ConcurrentTestResult testTrueConcurrentStockUpdate(Long id, ConcurrentTestRequest request) {
+        ProductService productService = applicationContext.getBean(ProductService.class);
+        return concurrentTestRunner.runTogether(request, "OPTIMISTIC_WITH_RETRY_TRUE_CONCURRENT",
+                () -> productService.updateStock(id, request.getQuantity()),
+                () -> findStockQty(id));
+    }
+    
+    // 호출 스레드 하나가 요청을 모두 비동기로 보내고 future 로만 완료를 기다린다 (요청 수만큼 스레드를 만들지 않음)
+    public ConcurrentTestResult testConcurrentStockUpdateAsync(Long id, ConcurrentTestRequest request) {
+        return concurrentTestRunner.runAsync(request, "OPTIMISTIC_WITH_RETRY_ASYNC",
+                () -> updateStockAsync(id, request.getQuantity()),
+                () -> findStockQty(id));
+    }
+    
+    private Integer findStockQty(Long id) {
+        return productRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("상품을 찾을 수 없습니다: " + id))
+                .getStockQty();
     }
 }
\ No newline at end of file
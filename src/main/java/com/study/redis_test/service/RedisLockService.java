@@ -1,12 +1,30 @@
 package com.study.redis_test.service;
 
+import com.study.redis_test.harness.OperationTimer;
+import com.study.redis_test.metrics.StockMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RLock;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 @Slf4j
@@ -15,35 +33,377 @@ import java.util.function.Supplier;
 public class RedisLockService {
     
     private final RedissonClient redissonClient;
+    private final StockMetrics stockMetrics;
+    private final StockDbExecutor stockDbExecutor;
+    
+    private static final String LOCK_TYPE = "REDIS_DISTRIBUTED_LOCK";
     
     private static final long DEFAULT_WAIT_TIME = 10L;
     private static final long DEFAULT_LEASE_TIME = 3L;
+    private static final String MULTI_LOCK_METRIC_KEY = "multi";
+    
+    // Redis 락 소유자 id. 스레드 id(양수)와 겹치지 않도록 음수를 사용한다
+    private final AtomicLong ownerIds = new AtomicLong();
+    
+    private StripedLocalLock localLock;
+    private String renewScript;
+    
+    // 키별로 락을 기다리는 요청 수 (이 노드 기준)
+    private final ConcurrentHashMap<String, AtomicInteger> queueDepths = new ConcurrentHashMap<>();
+    
+    // true 면 Redisson fair lock 으로 요청 순서(FIFO)대로 락을 준다
+    @Value("${stock.redis-lock.fair:false}")
+    private boolean fair;
+    
+    // 키별 대기 수가 이 값을 넘으면 기다리지 않고 LockQueueFullException 으로 거절한다 (0 이면 제한 없음)
+    @Value("${stock.redis-lock.max-queue-depth:0}")
+    private int maxQueueDepth;
+    
+    @Value("${stock.redis-lock.local-striping.enabled:true}")
+    private boolean localStripingEnabled;
+    
+    @Value("${stock.redis-lock.local-striping.stripes:256}")
+    private int stripeCount;
+    
+    @Value("${stock.redis-lock.local-striping.max-handoffs:32}")
+    private int maxHandoffs;
+    
+    @PostConstruct
+    public void init() {
+        if (localStripingEnabled) {
+            localLock = new StripedLocalLock(stripeCount);
+        }
+        try {
+            renewScript = new ClassPathResource("scripts/lock_renew.lua").getContentAsString(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        stockMetrics.registerLockQueueDepth(LOCK_TYPE,
+                () -> queueDepths.values().stream().mapToInt(AtomicInteger::get).sum());
+    }
     
     public <T> T executeWithLock(String lockKey, Supplier<T> supplier) {
         return executeWithLock(lockKey, DEFAULT_WAIT_TIME, DEFAULT_LEASE_TIME, TimeUnit.SECONDS, supplier);
     }
     
     public <T> T executeWithLock(String lockKey, long waitTime, long leaseTime, TimeUnit timeUnit, Supplier<T> supplier) {
-        RLock lock = redissonClient.getLock(lockKey);
+        if (localLock != null) {
+            return executeWithLocalHandoff(lockKey, waitTime, leaseTime, timeUnit, supplier);
+        }
+        
+        RLock lock = getLock(lockKey);
         boolean acquired = false;
+        long acquiredAt = 0L;
         
+        enterQueue(lockKey);
         try {
-            acquired = lock.tryLock(waitTime, leaseTime, timeUnit);
+            long waitStart = System.nanoTime();
+            try {
+                acquired = lock.tryLock(waitTime, leaseTime, timeUnit);
+            } finally {
+                leaveQueue(lockKey);
+            }
+            acquiredAt = System.nanoTime();
+            recordLockWait(lockKey, acquiredAt - waitStart, acquired);
             if (!acquired) {
                 throw new RuntimeException("Could not acquire lock for key: " + lockKey);
             }
             
             log.debug("Lock acquired for key: {}", lockKey);
             return supplier.get();
+        
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Thread interrupted while acquiring lock for key: " + lockKey, e);
+        } finally {
+            if (acquired) {
+                stockMetrics.recordLockHold(LOCK_TYPE, lockKey, System.nanoTime() - acquiredAt);
+                if (lock.isHeldByCurrentThread()) {
+                    lock.unlock();
+                    log.debug("Lock released for key: {}", lockKey);
+                } else {
+                    // 작업 도중 lease 가 만료되어 다른 스레드가 락을 가져갈 수 있었던 경우
+                    stockMetrics.incrementLeaseExpired(LOCK_TYPE, lockKey);
+                    log.warn("Lock lease expired before release for key: {}", lockKey);
+                }
+            }
+        }
+    }
+    
+    // 로컬 stripe 락을 먼저 잡고, 키마다 한 스레드만 Redis 락을 얻는다.
+    // 같은 키의 로컬 대기자가 있으면 Redis 락을 풀지 않고 다음 스레드에 넘겨 Redis 왕복과 pub/sub 대기를 줄인다.
+    private <T> T executeWithLocalHandoff(String lockKey, long waitTime, long leaseTime, TimeUnit timeUnit, Supplier<T> supplier) {
+        long waitStart = System.nanoTime();
+        long deadline = waitStart + timeUnit.toNanos(waitTime);
+        long leaseNanos = timeUnit.toNanos(leaseTime);
+        RLock lock = getLock(lockKey);
+        
+        enterQueue(lockKey);
+        StripedLocalLock.KeyState state = localLock.enter(lockKey);
+        boolean localAcquired = false;
+        boolean acquired = false;
+        long acquiredAt = 0L;
+        
+        try {
+            try {
+                localAcquired = state.stripe.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (localAcquired) {
+                    if (state.distributedHeld) {
+                        stockMetrics.incrementLockHandoff(LOCK_TYPE, lockKey);
+                        acquired = true;
+                    } else {
+                        long ownerId = -ownerIds.incrementAndGet();
+                        acquired = lock.tryLockAsync(Math.max(deadline - System.nanoTime(), 0L), leaseNanos, TimeUnit.NANOSECONDS, ownerId)
+                                .toCompletableFuture()
+                                .get();
+                        if (acquired) {
+                            state.ownerId = ownerId;
+                            state.heldSince = System.nanoTime();
+                            state.handoffs = 0;
+                            state.distributedHeld = true;
+                        }
+                    }
+                }
+            } finally {
+                leaveQueue(lockKey);
+            }
             
+            acquiredAt = System.nanoTime();
+            recordLockWait(lockKey, acquiredAt - waitStart, acquired);
+            if (!acquired) {
+                throw new RuntimeException("Could not acquire lock for key: " + lockKey);
+            }
+            
+            state.depth++;
+            log.debug("Lock acquired for key: {}", lockKey);
+            return supplier.get();
+        
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new RuntimeException("Thread interrupted while acquiring lock for key: " + lockKey, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Could not acquire lock for key: " + lockKey, e.getCause());
+        } finally {
+            if (acquired) {
+                stockMetrics.recordLockHold(LOCK_TYPE, lockKey, System.nanoTime() - acquiredAt);
+                if (--state.depth == 0) {
+                    releaseOrHandOff(lockKey, lock, state, leaseNanos);
+                }
+            }
+            if (localAcquired) {
+                state.stripe.unlock();
+            }
+            Long orphanedOwner = localLock.exit(lockKey, state);
+            if (orphanedOwner != null) {
+                // 넘겨받기로 했던 대기자가 시간 초과로 빠져나간 경우
+                unlockDistributed(lockKey, lock, orphanedOwner);
+            }
+        }
+    }
+    
+    public <T> CompletableFuture<T> executeWithLockAsync(String lockKey, Supplier<T> supplier) {
+        return executeWithLockAsync(lockKey, DEFAULT_WAIT_TIME, TimeUnit.SECONDS, supplier);
+    }
+    
+    // 락을 기다리는 동안 스레드를 잡지 않는다. Redisson 비동기 API 로 락을 얻은 뒤 작업만 StockDbExecutor 에서 실행하고 비동기로 푼다.
+    // 로컬 stripe 락은 스레드에 묶인 ReentrantLock 이라 이 경로는 stripe 를 거치지 않는다.
+    // 락을 얻은 뒤에도 작업은 StockDbExecutor 큐에서 기다릴 수 있어 고정 lease 로는 작업 시작 전에 만료될 수 있으므로,
+    // leaseTime 없이 watchdog 으로 잡아 풀 때까지 연장한다. 노드가 죽으면 watchdog 타임아웃(기본 30초) 뒤에 풀린다.
+    public <T> CompletableFuture<T> executeWithLockAsync(String lockKey, long waitTime, TimeUnit timeUnit, Supplier<T> supplier) {
+        try {
+            enterQueue(lockKey);
+        } catch (LockQueueFullException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        
+        RLock lock = getLock(lockKey);
+        long ownerId = -ownerIds.incrementAndGet();
+        long waitStart = System.nanoTime();
+        
+        return lock.tryLockAsync(waitTime, -1, timeUnit, ownerId)
+                .toCompletableFuture()
+                .whenComplete((acquired, e) -> leaveQueue(lockKey))
+                .thenCompose(acquired -> {
+                    long acquiredAt = System.nanoTime();
+                    stockMetrics.recordLockWait(LOCK_TYPE, lockKey, acquiredAt - waitStart, acquired);
+                    if (!acquired) {
+                        stockMetrics.incrementLockTimeout(LOCK_TYPE, lockKey);
+                        return CompletableFuture.<T>failedFuture(new RuntimeException("Could not acquire lock for key: " + lockKey));
+                    }
+                    
+                    log.debug("Lock acquired for key: {}", lockKey);
+                    CompletableFuture<T> work = stockDbExecutor.supplyAsync(supplier);
+                    return work
+                            .handle((result, e) -> null)
+                            .thenCompose(ignored -> unlockDistributedAsync(lockKey, lock, ownerId, acquiredAt))
+                            .thenCompose(ignored -> work);
+                });
+    }
+    
+    // 여러 키를 정렬된 순서로 함께 잠근다. 모든 호출이 같은 순서로 잠그므로 교착 상태가 생기지 않는다.
+    // 로컬 stripe 순서는 키 순서와 다를 수 있어 이 경로는 stripe 를 거치지 않고 바로 Redis 락을 잡는다.
+    public <T> T executeWithMultiLock(Collection<String> lockKeys, Supplier<T> supplier) {
+        List<String> sortedKeys = lockKeys.stream()
+                .distinct()
+                .sorted()
+                .toList();
+        RLock multiLock = redissonClient.getMultiLock(sortedKeys.stream()
+                .map(this::getLock)
+                .toArray(RLock[]::new));
+        boolean acquired = false;
+        long acquiredAt = 0L;
+        
+        List<String> entered = new ArrayList<>(sortedKeys.size());
+        try {
+            for (String lockKey : sortedKeys) {
+                enterQueue(lockKey);
+                entered.add(lockKey);
+            }
+            
+            long waitStart = System.nanoTime();
+            try {
+                acquired = multiLock.tryLock(DEFAULT_WAIT_TIME, DEFAULT_LEASE_TIME, TimeUnit.SECONDS);
+            } finally {
+                entered.forEach(this::leaveQueue);
+                entered.clear();
+            }
+            acquiredAt = System.nanoTime();
+            recordLockWait(MULTI_LOCK_METRIC_KEY, acquiredAt - waitStart, acquired);
+            if (!acquired) {
+                throw new RuntimeException("Could not acquire lock for keys: " + lockKeys);
+            }
+            
+            log.debug("Multi lock acquired for keys: {}", lockKeys);
+            return supplier.get();
+        
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Thread interrupted while acquiring lock for keys: " + lockKeys, e);
         } finally {
-            if (acquired && lock.isHeldByCurrentThread()) {
-                lock.unlock();
-                log.debug("Lock released for key: {}", lockKey);
+            entered.forEach(this::leaveQueue);
+            if (acquired) {
+                stockMetrics.recordLockHold(LOCK_TYPE, MULTI_LOCK_METRIC_KEY, System.nanoTime() - acquiredAt);
+                try {
+                    multiLock.unlock();
+                    log.debug("Multi lock released for keys: {}", lockKeys);
+                } catch (IllegalMonitorStateException e) {
+                    stockMetrics.incrementLeaseExpired(LOCK_TYPE, MULTI_LOCK_METRIC_KEY);
+                    log.warn("Lock lease expired before release for keys: {}", lockKeys);
+                }
+            }
+        }
+    }
+    
+    private RLock getLock(String lockKey) {
+        return fair ? redissonClient.getFairLock(lockKey) : redissonClient.getLock(lockKey);
+    }
+    
+    // 대기열이 가득 차 있으면 스레드를 붙잡아 두지 않고 바로 거절한다
+    private void enterQueue(String lockKey) {
+        boolean[] created = {false};
+        int[] depth = {0};
+        queueDepths.compute(lockKey, (key, counter) -> {
+            AtomicInteger current = counter;
+            if (current == null) {
+                current = new AtomicInteger();
+                created[0] = true;
             }
+            depth[0] = current.incrementAndGet();
+            return current;
+        });
+        if (created[0]) {
+            stockMetrics.syncLockQueueDepth(LOCK_TYPE, lockKey, () -> queueDepth(lockKey));
+        }
+        
+        if (maxQueueDepth > 0 && depth[0] > maxQueueDepth) {
+            leaveQueue(lockKey);
+            stockMetrics.incrementLockRejected(LOCK_TYPE, lockKey);
+            throw new LockQueueFullException(lockKey, depth[0] - 1);
+        }
+    }
+    
+    private void leaveQueue(String lockKey) {
+        boolean[] emptied = {false};
+        queueDepths.computeIfPresent(lockKey, (key, counter) -> {
+            emptied[0] = counter.decrementAndGet() == 0;
+            return emptied[0] ? null : counter;
+        });
+        // 대기가 없는 키의 게이지는 지워 상품 수만큼 시계열이 쌓이지 않게 한다
+        if (emptied[0]) {
+            stockMetrics.syncLockQueueDepth(LOCK_TYPE, lockKey, () -> queueDepth(lockKey));
+        }
+    }
+    
+    private int queueDepth(String lockKey) {
+        AtomicInteger counter = queueDepths.get(lockKey);
+        return counter == null ? 0 : counter.get();
+    }
+    
+    private void releaseOrHandOff(String lockKey, RLock lock, StripedLocalLock.KeyState state, long leaseNanos) {
+        boolean waitersPresent = state.refs.get() > 1;
+        boolean leaseRemaining = System.nanoTime() - state.heldSince < leaseNanos / 2;
+        if (waitersPresent && leaseRemaining && state.handoffs < maxHandoffs) {
+            // 넘기기 전에 아직 이 노드가 락을 가졌는지 확인하고 lease 를 처음 길이로 되돌려, 다음 스레드도 전체 lease 로 시작하게 한다
+            if (renewLease(lockKey, state.ownerId, leaseNanos)) {
+                state.heldSince = System.nanoTime();
+                state.handoffs++;
+                return;
+            }
+            // 이미 만료되어 다른 노드가 가져갔을 수 있으므로 넘기지 않고, 다음 스레드가 Redis 락을 새로 얻게 한다
+            state.distributedHeld = false;
+            stockMetrics.incrementLeaseExpired(LOCK_TYPE, lockKey);
+            log.warn("Lock lease expired before hand-off for key: {}", lockKey);
+            return;
+        }
+        
+        state.distributedHeld = false;
+        unlockDistributed(lockKey, lock, state.ownerId);
+    }
+    
+    // 소유 확인과 lease 연장을 스크립트 하나로 처리한다. 필드 이름은 Redisson 락 해시의 "클라이언트 id:스레드 id" 형식을 따른다
+    private boolean renewLease(String lockKey, long ownerId, long leaseNanos) {
+        try {
+            Long renewed = redissonClient.getScript(StringCodec.INSTANCE).eval(lockKey, RScript.Mode.READ_WRITE,
+                    renewScript, RScript.ReturnType.INTEGER, List.of(lockKey),
+                    redissonClient.getId() + ":" + ownerId, String.valueOf(TimeUnit.NANOSECONDS.toMillis(leaseNanos)));
+            return renewed != null && renewed == 1L;
+        } catch (Exception e) {
+            log.warn("Lock lease renewal failed for key: {}, error={}", lockKey, e.getMessage());
+            return false;
+        }
+    }
+    
+    private void unlockDistributed(String lockKey, RLock lock, long ownerId) {
+        if (lock.isHeldByThread(ownerId)) {
+            lock.unlockAsync(ownerId).toCompletableFuture().join();
+            log.debug("Lock released for key: {}", lockKey);
+        } else {
+            stockMetrics.incrementLeaseExpired(LOCK_TYPE, lockKey);
+            log.warn("Lock lease expired before release for key: {}", lockKey);
+        }
+    }
+    
+    private CompletableFuture<Void> unlockDistributedAsync(String lockKey, RLock lock, long ownerId, long acquiredAt) {
+        stockMetrics.recordLockHold(LOCK_TYPE, lockKey, System.nanoTime() - acquiredAt);
+        return lock.unlockAsync(ownerId)
+                .toCompletableFuture()
+                .handle((ignored, e) -> {
+                    if (e != null) {
+                        // 작업 도중 lease 가 만료되어 다른 요청이 락을 가져갈 수 있었던 경우
+                        stockMetrics.incrementLeaseExpired(LOCK_TYPE, lockKey);
+                        log.warn("Lock lease expired before release for key: {}", lockKey);
+                    } else {
+                        log.debug("Lock released for key: {}", lockKey);
+                    }
+                    return null;
+                });
+    }
+    
+    private void recordLockWait(String lockKey, long waitNanos, boolean acquired) {
+        OperationTimer.recordLockWait(waitNanos);
+        stockMetrics.recordLockWait(LOCK_TYPE, lockKey, waitNanos, acquired);
+        if (!acquired) {
+            stockMetrics.incrementLockTimeout(LOCK_TYPE, lockKey);
         }
     }
     
@@ -53,4 +413,4 @@ public class RedisLockService {
             return null;
         });
     }
-}
\ No newline at end of file
+}
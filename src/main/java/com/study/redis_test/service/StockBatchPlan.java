@@ -0,0 +1,95 @@
+package com.study.redis_test.service;
+
+import com.study.redis_test.dto.StockBatchRequest;
+import com.study.redis_test.dto.StockBatchResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// 여러 상품의 재고 변경을 요청 순서대로 계산해 보고, 하나라도 실패하면 전부 반영하지 않는다.
+// 락/조회 방식은 전략마다 다르므로 계산만 맡고 저장은 호출 측에서 한다.
+public final class StockBatchPlan {
+    
+    private final boolean applicable;
+    private final Map<Long, Integer> finalStocks;
+    private final List<StockBatchResponse.ItemResult> results;
+    
+    private StockBatchPlan(boolean applicable, Map<Long, Integer> finalStocks, List<StockBatchResponse.ItemResult> results) {
+        this.applicable = applicable;
+        this.finalStocks = finalStocks;
+        this.results = results;
+    }
+    
+    // 락 획득 순서로 쓸 중복 없는 오름차순 ID 목록
+    public static List<Long> sortedIds(StockBatchRequest request) {
+        return request.getItems().stream()
+                .map(StockBatchRequest.Item::getId)
+                .distinct()
+                .sorted()
+                .toList();
+    }
+    
+    public static StockBatchPlan of(StockBatchRequest request, Map<Long, Integer> currentStocks) {
+        Map<Long, Integer> stocks = new TreeMap<>(currentStocks);
+        List<StockBatchResponse.ItemResult> results = new ArrayList<>();
+        boolean applicable = true;
+        
+        for (StockBatchRequest.Item item : request.getItems()) {
+            Integer current = stocks.get(item.getId());
+            StockBatchResponse.ItemResult.ItemResultBuilder result = StockBatchResponse.ItemResult.builder()
+                    .id(item.getId())
+                    .quantity(item.getQuantity());
+            
+            if (current == null) {
+                applicable = false;
+                results.add(result.status(StockBatchResponse.Status.NOT_FOUND)
+                        .message("상품을 찾을 수 없습니다: " + item.getId())
+                        .build());
+                continue;
+            }
+            
+            int newStock = current + item.getQuantity();
+            if (newStock < 0) {
+                applicable = false;
+                results.add(result.status(StockBatchResponse.Status.INSUFFICIENT_STOCK)
+                        .stockQty(current)
+                        .message("재고가 부족합니다. 현재 재고: " + current)
+                        .build());
+                continue;
+            }
+            
+            stocks.put(item.getId(), newStock);
+            results.add(result.status(StockBatchResponse.Status.APPLIED)
+                    .stockQty(newStock)
+                    .build());
+        }
+        
+        if (!applicable) {
+            results.stream()
+                    .filter(result -> result.getStatus() == StockBatchResponse.Status.APPLIED)
+                    .forEach(result -> {
+                        result.setStatus(StockBatchResponse.Status.ROLLED_BACK);
+                        result.setStockQty(currentStocks.get(result.getId()));
+                    });
+        }
+        return new StockBatchPlan(applicable, stocks, results);
+    }
+    
+    public boolean isApplicable() {
+        return applicable;
+    }
+    
+    // 상품 ID 오름차순
+    public Map<Long, Integer> getFinalStocks() {
+        return finalStocks;
+    }
+    
+    public StockBatchResponse toResponse() {
+        return StockBatchResponse.builder()
+                .applied(applicable)
+                .results(results)
+                .build();
+    }
+}
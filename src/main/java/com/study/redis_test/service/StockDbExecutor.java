@@ -0,0 +1,50 @@
+package com.study.redis_test.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// 비동기 재고 API 의 JDBC 작업만 실행하는 고정 크기 풀.
+// 요청 스레드와 락 대기는 스레드를 잡지 않으므로 동시 요청 수와 관계없이 스레드 수는 이 풀 크기로 제한된다.
+@Slf4j
+@Component
+public class StockDbExecutor {
+    
+    private ExecutorService executor;
+    
+    @Value("${stock.async.db-threads:16}")
+    private int threads;
+    
+    @PostConstruct
+    public void init() {
+        AtomicInteger sequence = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "stock-db-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, executor);
+    }
+}
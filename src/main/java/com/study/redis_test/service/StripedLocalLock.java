@@ -0,0 +1,68 @@
+package com.study.redis_test.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// 같은 노드 안에서 같은 키를 노리는 스레드를 줄 세워, Redis 락은 키마다 한 스레드만 경쟁하게 한다.
+// 락 객체는 고정 크기 stripe 배열에서 나누어 쓰고, 키별 상태는 사용 중일 때만 맵에 남는다.
+class StripedLocalLock {
+    
+    private final ReentrantLock[] stripes;
+    private final ConcurrentHashMap<String, KeyState> states = new ConcurrentHashMap<>();
+    
+    StripedLocalLock(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(stripeCount - 1, 1)) << 1;
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock(true);
+        }
+    }
+    
+    KeyState enter(String key) {
+        return states.compute(key, (k, state) -> {
+            KeyState current = state == null ? new KeyState(stripeFor(k)) : state;
+            current.refs.incrementAndGet();
+            return current;
+        });
+    }
+    
+    // 마지막 참조가 빠질 때 넘겨받을 스레드 없이 남은 Redis 락 소유자 id 를 돌려준다 (없으면 null)
+    Long exit(String key, KeyState state) {
+        Long[] orphanedOwner = {null};
+        states.computeIfPresent(key, (k, current) -> {
+            if (current != state || current.refs.decrementAndGet() > 0) {
+                return current;
+            }
+            if (current.distributedHeld) {
+                orphanedOwner[0] = current.ownerId;
+            }
+            return null;
+        });
+        return orphanedOwner[0];
+    }
+    
+    private ReentrantLock stripeFor(String key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return stripes[hash & (stripes.length - 1)];
+    }
+    
+    static final class KeyState {
+        
+        final ReentrantLock stripe;
+        // enter 후 exit 전인 스레드 수 (대기 중 + 보유 중)
+        final AtomicInteger refs = new AtomicInteger();
+        
+        // 아래 값은 stripe 락을 잡은 스레드만 바꾼다
+        volatile boolean distributedHeld;
+        volatile long ownerId;
+        long heldSince;
+        int handoffs;
+        int depth;
+        
+        KeyState(ReentrantLock stripe) {
+            this.stripe = stripe;
+        }
+    }
+}
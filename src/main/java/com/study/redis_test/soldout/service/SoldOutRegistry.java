@@ -0,0 +1,196 @@
+package com.study.redis_test.soldout.service;
+
+import com.study.redis_test.cache.service.ProductCacheService;
+import com.study.redis_test.datasource.DataSourceRouting;
+import com.study.redis_test.entity.Product;
+import com.study.redis_test.metrics.StockMetrics;
+import com.study.redis_test.repository.ProductPlainRepository;
+import com.study.redis_test.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RSet;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 재고가 0 이 된 상품을 모든 노드에 알려, 품절 이후의 차감 요청은 락이나 DB 를 거치지 않고 메모리에서 바로 거절한다
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SoldOutRegistry {
+    
+    private static final String SOLD_OUT_TOPIC = "product:soldout:events";
+    private static final String SOLD_OUT_SET = "product:soldout";
+    private static final String SOLD_OUT_PREFIX = "SOLD_OUT|";
+    private static final String RESTOCK_PREFIX = "RESTOCK|";
+    
+    private final RedissonClient redissonClient;
+    private final ProductRepository productRepository;
+    private final ProductPlainRepository productPlainRepository;
+    private final StockMetrics stockMetrics;
+    
+    private final Set<String> soldOut = ConcurrentHashMap.newKeySet();
+    
+    private RTopic topic;
+    private RSet<String> members;
+    private int listenerId;
+    
+    @Value("${stock.sold-out.enabled:true}")
+    private boolean enabled;
+    
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        
+        members = redissonClient.getSet(SOLD_OUT_SET, StringCodec.INSTANCE);
+        topic = redissonClient.getTopic(SOLD_OUT_TOPIC, StringCodec.INSTANCE);
+        listenerId = topic.addListener(String.class, (channel, message) -> onMessage(message));
+        reconcile();
+        resync();
+    }
+    
+    @PreDestroy
+    public void destroy() {
+        if (topic != null) {
+            topic.removeListener(listenerId);
+        }
+    }
+    
+    // 차감 요청만 거절한다. 입고(양수)는 그대로 통과시켜 재고가 다시 생기면 표시가 풀리게 한다
+    public void checkAvailable(String table, Long id, Integer quantity) {
+        if (!enabled || quantity >= 0 || !soldOut.contains(key(table, id))) {
+            return;
+        }
+        stockMetrics.incrementSoldOutRejected(table);
+        throw new IllegalArgumentException("재고가 부족합니다. 현재 재고: 0");
+    }
+    
+    // 재고 변경 후 바뀌기 전/후 재고로 호출한다. 0 이 되면 품절로 표시하고, 0 에서 재고가 생기면 표시를 푼다.
+    // 품절 표시는 다른 노드에서 전파될 수 있어 이 노드의 집합이 아직 모를 수 있으므로, 집합이 아니라 0 에서 벗어났는지로 판단한다
+    public void onStockChanged(String table, Long id, int oldStock, int newStock) {
+        if (!enabled) {
+            return;
+        }
+        if (newStock == 0) {
+            runAfterCommit(() -> markSoldOut(table, id));
+        } else if (oldStock == 0 || soldOut.contains(key(table, id))) {
+            runAfterCommit(() -> clear(table, id));
+        }
+    }
+    
+    // 관리자 재고 수정은 드물므로, 이 노드가 표시를 놓쳤더라도 다른 노드를 위해 항상 해제를 전파한다
+    public void onStockReset(String table, Long id, int stockQty) {
+        if (!enabled) {
+            return;
+        }
+        runAfterCommit(stockQty == 0 ? () -> markSoldOut(table, id) : () -> clear(table, id));
+    }
+    
+    // 메시지를 놓친 노드도 주기적으로 Redis 의 품절 집합과 맞춘다
+    @Scheduled(fixedDelayString = "${stock.sold-out.resync-interval-ms:30000}")
+    public void resync() {
+        if (members == null) {
+            return;
+        }
+        try {
+            Set<String> current = members.readAll();
+            soldOut.retainAll(current);
+            soldOut.addAll(current);
+        } catch (Exception e) {
+            log.warn("품절 목록 동기화 실패: {}", e.getMessage());
+        }
+    }
+    
+    // 테이블을 새로 만들어 id 가 재사용되면 지난 실행의 품절 표시가 남아 있을 수 있으므로, 시작할 때 재고가 있는 항목은 지운다
+    private void reconcile() {
+        try {
+            for (String member : members.readAll()) {
+                int separator = member.lastIndexOf(':');
+                String table = member.substring(0, separator);
+                Long id = Long.valueOf(member.substring(separator + 1));
+                Integer stockQty = DataSourceRouting.readFromPrimary(() -> findStockQty(table, id));
+                if (stockQty == null || stockQty > 0) {
+                    members.remove(member);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("품절 목록 정리 실패: {}", e.getMessage());
+        }
+    }
+    
+    private void markSoldOut(String table, Long id) {
+        String member = key(table, id);
+        try {
+            members.add(member);
+            soldOut.add(member);
+            topic.publish(SOLD_OUT_PREFIX + member);
+            
+            // 표시하는 사이 다른 노드에서 재입고가 커밋됐을 수 있으므로, 표시한 뒤 primary 에서 다시 확인해 되돌린다
+            Integer stockQty = DataSourceRouting.readFromPrimary(() -> findStockQty(table, id));
+            if (stockQty == null || stockQty > 0) {
+                clear(table, id);
+                return;
+            }
+            log.info("품절 표시: {}", member);
+        } catch (Exception e) {
+            log.warn("품절 표시 전파 실패: {}, {}", member, e.getMessage());
+        }
+    }
+    
+    private void clear(String table, Long id) {
+        String member = key(table, id);
+        try {
+            soldOut.remove(member);
+            members.remove(member);
+            topic.publish(RESTOCK_PREFIX + member);
+            log.info("품절 해제: {}", member);
+        } catch (Exception e) {
+            log.warn("품절 해제 전파 실패: {}, {}", member, e.getMessage());
+        }
+    }
+    
+    private Integer findStockQty(String table, Long id) {
+        if (ProductCacheService.OPTLOCK.equals(table)) {
+            return productRepository.findById(id).map(Product::getStockQty).orElse(null);
+        }
+        return productPlainRepository.findStockQtyById(id).orElse(null);
+    }
+    
+    private void onMessage(String message) {
+        if (message.startsWith(SOLD_OUT_PREFIX)) {
+            soldOut.add(message.substring(SOLD_OUT_PREFIX.length()));
+        } else if (message.startsWith(RESTOCK_PREFIX)) {
+            soldOut.remove(message.substring(RESTOCK_PREFIX.length()));
+        }
+    }
+    
+    // 트랜잭션 안에서 호출되면 커밋 이후에 표시해야 롤백된 변경으로 품절이 되지 않는다
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+            return;
+        }
+        action.run();
+    }
+    
+    private static String key(String table, Long id) {
+        return table + ":" + id;
+    }
+}
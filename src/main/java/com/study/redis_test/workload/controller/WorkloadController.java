@@ -0,0 +1,39 @@
+package com.study.redis_test.workload.controller;
+
+import com.study.redis_test.dto.WorkloadRequest;
+import com.study.redis_test.dto.WorkloadResult;
+import com.study.redis_test.workload.service.WorkloadService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/workload")
+@RequiredArgsConstructor
+public class WorkloadController {
+    
+    private final WorkloadService workloadService;
+    
+    @GetMapping("/strategies")
+    public ResponseEntity<List<String>> getStrategies() {
+        return ResponseEntity.ok(workloadService.getStrategyNames());
+    }
+    
+    @PostMapping("/{lockType}")
+    public ResponseEntity<WorkloadResult> runWorkload(
+            @PathVariable String lockType,
+            @Valid @RequestBody WorkloadRequest request) {
+        WorkloadResult result = workloadService.run(lockType, request);
+        return ResponseEntity.ok(result);
+    }
+    
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+    }
+}
@@ -0,0 +1,115 @@
+package com.study.redis_test.workload.service;
+
+import com.study.redis_test.actor.service.StockActorService;
+import com.study.redis_test.conditional.service.ProductConditionalUpdateService;
+import com.study.redis_test.dto.WorkloadRequest;
+import com.study.redis_test.dto.WorkloadResult;
+import com.study.redis_test.harness.StockStrategy;
+import com.study.redis_test.harness.WorkloadRunner;
+import com.study.redis_test.inmemory.service.InMemoryStockService;
+import com.study.redis_test.journal.service.StockJournalService;
+import com.study.redis_test.pessimistic.service.ProductPessimisticService;
+import com.study.redis_test.redislock.service.ProductRedisLockService;
+import com.study.redis_test.redisstock.service.RedisStockService;
+import com.study.redis_test.repository.ProductPlainRepository;
+import com.study.redis_test.repository.ProductRepository;
+import com.study.redis_test.service.NoLockProductService;
+import com.study.redis_test.service.ProductService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+
+@Service
+public class WorkloadService {
+    
+    private final WorkloadRunner workloadRunner;
+    private final Map<String, StockStrategy> strategies = new LinkedHashMap<>();
+    
+    public WorkloadService(WorkloadRunner workloadRunner,
+                           ProductService productService,
+                           ProductPessimisticService productPessimisticService,
+                           ProductRedisLockService productRedisLockService,
+                           NoLockProductService noLockProductService,
+                           StockJournalService stockJournalService,
+                           ProductConditionalUpdateService productConditionalUpdateService,
+                           RedisStockService redisStockService,
+                           StockActorService stockActorService,
+                           ObjectProvider<InMemoryStockService> inMemoryStockService,
+                           ProductRepository productRepository,
+                           ProductPlainRepository productPlainRepository) {
+        this.workloadRunner = workloadRunner;
+        
+        register(new StockStrategy("OPTIMISTIC_WITH_RETRY",
+                productService::updateStock,
+                productService::getProductById,
+                productRepository::sumStockQtyByIdBetween));
+        register(new StockStrategy("PESSIMISTIC_LOCK",
+                productPessimisticService::updateStock,
+                productPessimisticService::getProductById,
+                productPlainRepository::sumStockQtyByIdBetween));
+        register(new StockStrategy("REDIS_DISTRIBUTED_LOCK",
+                productRedisLockService::updateStock,
+                productRedisLockService::getProductById,
+                productPlainRepository::sumStockQtyByIdBetween));
+        register(new StockStrategy("NO_LOCK",
+                noLockProductService::updateStockWithoutLock,
+                noLockProductService::getProductById,
+                productPlainRepository::sumStockQtyByIdBetween));
+        register(new StockStrategy("WRITE_BEHIND_JOURNAL",
+                stockJournalService::updateStock,
+                productConditionalUpdateService::getProductById,
+                productPlainRepository::sumStockQtyByIdBetween));
+        register(new StockStrategy("CONDITIONAL_UPDATE",
+                productConditionalUpdateService::updateStock,
+                productConditionalUpdateService::getProductById,
+                productPlainRepository::sumStockQtyByIdBetween));
+        register(new StockStrategy("ACTOR_MAILBOX",
+                stockActorService::awaitStockUpdate,
+                productConditionalUpdateService::getProductById,
+                productPlainRepository::sumStockQtyByIdBetween));
+        // Redis/메모리 값이 DB 보다 앞서 있으므로 재고 합계도 DB 가 아닌 각 전략의 값으로 더한다
+        register(new StockStrategy("REDIS_LUA_ATOMIC",
+                redisStockService::updateStock,
+                redisStockService::getProductById,
+                sumOf(redisStockService::getStock)));
+        inMemoryStockService.ifAvailable(service -> register(new StockStrategy("IN_MEMORY_CAS",
+                service::updateStock,
+                service::getProductById,
+                sumOf(service::getStock))));
+    }
+    
+    private static BinaryOperator<Long> sumOf(Function<Long, Integer> stock) {
+        return (fromId, toId) -> LongStream.rangeClosed(fromId, toId)
+                .mapToObj(id -> {
+                    try {
+                        return stock.apply(id);
+                    } catch (IllegalArgumentException e) {
+                        return 0;
+                    }
+                })
+                .mapToLong(Integer::longValue)
+                .sum();
+    }
+    
+    private void register(StockStrategy strategy) {
+        strategies.put(strategy.lockType(), strategy);
+    }
+    
+    public List<String> getStrategyNames() {
+        return List.copyOf(strategies.keySet());
+    }
+    
+    public WorkloadResult run(String lockType, WorkloadRequest request) {
+        StockStrategy strategy = strategies.get(lockType);
+        if (strategy == null) {
+            throw new IllegalArgumentException("지원하지 않는 전략입니다: " + lockType + " (가능한 값: " + strategies.keySet() + ")");
+        }
+        return workloadRunner.run(strategy, request);
+    }
+}
@@ -0,0 +1,6 @@
+-- KEYS[1] = 캐시 엔트리 키 (hash), KEYS[2] = 무효화 세대 키
+-- ARGV[1] = 세대 키 TTL(초)
+-- 세대를 올려 진행 중인 조회가 이전 값을 다시 넣지 못하게 한 뒤 엔트리를 지운다
+redis.call('INCR', KEYS[2])
+redis.call('EXPIRE', KEYS[2], ARGV[1])
+return redis.call('DEL', KEYS[1])
@@ -0,0 +1,16 @@
+-- KEYS[1] = 캐시 엔트리 키 (hash), KEYS[2] = 무효화 세대 키
+-- ARGV[1] = 직렬화된 응답, ARGV[2] = 엔트리 버전, ARGV[3] = TTL(초), ARGV[4] = DB 조회 전에 읽은 세대
+-- 반환값: 1 = 저장, 0 = 오래된 값이라 거절
+local generation = redis.call('GET', KEYS[2]) or '0'
+if generation ~= ARGV[4] then
+    return 0
+end
+
+local cachedVersion = redis.call('HGET', KEYS[1], 'version')
+if cachedVersion and tonumber(cachedVersion) > tonumber(ARGV[2]) then
+    return 0
+end
+
+redis.call('HSET', KEYS[1], 'version', ARGV[2], 'payload', ARGV[1])
+redis.call('EXPIRE', KEYS[1], ARGV[3])
+return 1
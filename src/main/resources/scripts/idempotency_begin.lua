@@ -0,0 +1,20 @@
+-- KEYS[1] = 멱등 키 엔트리 (hash)
+-- ARGV[1] = 요청 지문, ARGV[2] = 처리 중 상태 TTL(밀리초)
+-- 반환값: {'NEW'} = 처음 본 키라 처리 중으로 기록, {'MISMATCH'} = 같은 키로 다른 요청,
+--        {'PENDING'} = 같은 요청이 아직 처리 중, {'DONE', status, contentType, body} = 저장된 응답
+local entry = redis.call('HMGET', KEYS[1], 'state', 'fingerprint', 'status', 'contentType', 'body')
+if not entry[1] then
+    redis.call('HSET', KEYS[1], 'state', 'PENDING', 'fingerprint', ARGV[1])
+    redis.call('PEXPIRE', KEYS[1], ARGV[2])
+    return {'NEW'}
+end
+
+if entry[2] ~= ARGV[1] then
+    return {'MISMATCH'}
+end
+
+if entry[1] == 'PENDING' then
+    return {'PENDING'}
+end
+
+return {'DONE', entry[3], entry[4] or '', entry[5] or ''}
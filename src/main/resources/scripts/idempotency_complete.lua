@@ -0,0 +1,16 @@
+-- KEYS[1] = 멱등 키 엔트리 (hash)
+-- ARGV[1] = 요청 지문, ARGV[2] = 응답 상태 코드, ARGV[3] = Content-Type, ARGV[4] = 응답 본문, ARGV[5] = TTL(초)
+-- ARGV[2] 가 비어 있으면 응답을 저장하지 않고 키를 지워 같은 키로 다시 시도할 수 있게 한다
+-- 반환값: 1 = 반영, 0 = 처리 중 TTL 이 지나 다른 요청이 키를 가져간 경우
+if redis.call('HGET', KEYS[1], 'fingerprint') ~= ARGV[1] then
+    return 0
+end
+
+if ARGV[2] == '' then
+    redis.call('DEL', KEYS[1])
+    return 1
+end
+
+redis.call('HSET', KEYS[1], 'state', 'DONE', 'status', ARGV[2], 'contentType', ARGV[3], 'body', ARGV[4])
+redis.call('EXPIRE', KEYS[1], ARGV[5])
+return 1
@@ -0,0 +1,8 @@
+-- KEYS[1] = Redisson 락 키
+-- ARGV[1] = 락 소유자 필드 (클라이언트 id:소유자 id), ARGV[2] = 새 lease (ms)
+-- 반환값: 1 = 아직 소유 중이라 lease 를 되돌림, 0 = 이미 만료되어 다른 소유자가 가져갔을 수 있음
+if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 1 then
+    redis.call('PEXPIRE', KEYS[1], ARGV[2])
+    return 1
+end
+return 0
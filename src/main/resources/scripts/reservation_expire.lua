@@ -0,0 +1,15 @@
+-- 만료 시각이 지난 예약을 한 번에 최대 ARGV[2] 건 취소해 가용 수량으로 되돌린다
+-- KEYS[1] = 만료 시각 정렬 집합
+-- ARGV[1] = 현재 시각(epoch 밀리초), ARGV[2] = 최대 처리 건수, ARGV[3] = 예약 엔트리 키 접두사, ARGV[4] = 상품 예약 재고 키 접두사
+-- 반환값: 처리한 예약 수
+local expired = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[2]))
+for _, reservationId in ipairs(expired) do
+    local entryKey = ARGV[3] .. reservationId
+    local entry = redis.call('HMGET', entryKey, 'productId', 'quantity')
+    if entry[1] then
+        redis.call('HINCRBY', ARGV[4] .. entry[1], 'held', -tonumber(entry[2]))
+        redis.call('DEL', entryKey)
+    end
+    redis.call('ZREM', KEYS[1], reservationId)
+end
+return #expired
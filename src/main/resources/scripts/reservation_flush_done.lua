@@ -0,0 +1,11 @@
+-- KEYS[1] = 상품 예약 재고 (hash)
+-- ARGV[1] = reservation_flush_take.lua 로 꺼낸 확정 수량, ARGV[2] = '1' 이면 DB 반영이 커밋됨, '0' 이면 실패
+-- 커밋되면 epoch 를 올려, 커밋 전에 읽은 DB 재고로 onHand 를 맞추려는 시도를 무효로 만든다
+local quantity = tonumber(ARGV[1])
+redis.call('HINCRBY', KEYS[1], 'flushing', -quantity)
+if ARGV[2] == '1' then
+    redis.call('HINCRBY', KEYS[1], 'epoch', 1)
+else
+    redis.call('HINCRBY', KEYS[1], 'confirmed', quantity)
+end
+return 1
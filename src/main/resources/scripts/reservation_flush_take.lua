@@ -0,0 +1,9 @@
+-- KEYS[1] = 상품 예약 재고 (hash: onHand, held, confirmed, flushing, epoch)
+-- 반환값: DB 에 반영할 확정 수량 (0 이면 반영할 것 없음)
+-- 확정 수량을 flushing 으로 옮겨, 반영하는 동안 onHand 를 다시 맞춰도 이 수량을 빠뜨리지 않게 한다
+local confirmed = tonumber(redis.call('HGET', KEYS[1], 'confirmed') or '0')
+if confirmed ~= 0 then
+    redis.call('HINCRBY', KEYS[1], 'confirmed', -confirmed)
+    redis.call('HINCRBY', KEYS[1], 'flushing', confirmed)
+end
+return confirmed
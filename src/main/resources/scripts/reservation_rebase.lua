@@ -0,0 +1,15 @@
+-- KEYS[1] = 상품 예약 재고 (hash)
+-- ARGV[1] = primary 에서 읽은 DB 재고, ARGV[2] = DB 재고를 읽기 전에 본 epoch
+-- 반환값: nil = 적재되지 않았거나 그 사이 flush 가 커밋됨 (다음 주기에 다시 맞춤), 그 외 = 다시 맞춘 onHand
+-- onHand 를 DB 재고에서 아직 반영되지 않은 확정 수량을 뺀 값으로 맞춰, 다른 전략이 바꾼 재고를 예약에도 반영한다
+if redis.call('HEXISTS', KEYS[1], 'onHand') == 0 then
+    return nil
+end
+if (redis.call('HGET', KEYS[1], 'epoch') or '0') ~= ARGV[2] then
+    return nil
+end
+
+local pending = tonumber(redis.call('HGET', KEYS[1], 'confirmed') or '0') + tonumber(redis.call('HGET', KEYS[1], 'flushing') or '0')
+local onHand = tonumber(ARGV[1]) - pending
+redis.call('HSET', KEYS[1], 'onHand', onHand)
+return onHand
@@ -0,0 +1,18 @@
+-- KEYS[1] = 상품 예약 재고 (hash: onHand, held), KEYS[2] = 예약 엔트리 (hash), KEYS[3] = 만료 시각 정렬 집합
+-- ARGV[1] = 상품 ID, ARGV[2] = 수량, ARGV[3] = 만료 시각(epoch 밀리초), ARGV[4] = 예약 ID
+-- 반환값: {-1} = 재고 미적재, {0, 가용 수량} = 재고 부족, {1, 예약 후 가용 수량} = 예약 성공
+local stock = redis.call('HMGET', KEYS[1], 'onHand', 'held')
+if not stock[1] then
+    return {-1}
+end
+
+local quantity = tonumber(ARGV[2])
+local available = tonumber(stock[1]) - tonumber(stock[2] or '0')
+if available < quantity then
+    return {0, available}
+end
+
+redis.call('HINCRBY', KEYS[1], 'held', quantity)
+redis.call('HSET', KEYS[2], 'productId', ARGV[1], 'quantity', ARGV[2])
+redis.call('ZADD', KEYS[3], ARGV[3], ARGV[4])
+return {1, available - quantity}
@@ -0,0 +1,23 @@
+-- 예약 하나를 확정하거나 취소한다
+-- KEYS[1] = 예약 엔트리 (hash), KEYS[2] = 만료 시각 정렬 집합, KEYS[3] = DB 미반영 상품 ID 집합
+-- ARGV[1] = 예약 ID, ARGV[2] = 상품 예약 재고 키 접두사, ARGV[3] = CONFIRM | RELEASE
+-- 반환값: 0 = 예약 없음 (이미 확정/취소/만료), 1 = 처리함
+-- 상품 재고 키는 예약 엔트리의 상품 ID 로 만든다 (단일 Redis 인스턴스 전제)
+local entry = redis.call('HMGET', KEYS[1], 'productId', 'quantity')
+if not entry[1] then
+    return 0
+end
+
+local stockKey = ARGV[2] .. entry[1]
+local quantity = tonumber(entry[2])
+redis.call('HINCRBY', stockKey, 'held', -quantity)
+if ARGV[3] == 'CONFIRM' then
+    redis.call('HINCRBY', stockKey, 'onHand', -quantity)
+    -- 아직 DB 에 반영하지 않은 확정 수량. flush 는 절대값 대신 이 수량만큼 product_plain 에서 뺀다
+    redis.call('HINCRBY', stockKey, 'confirmed', quantity)
+    redis.call('SADD', KEYS[3], entry[1])
+end
+
+redis.call('DEL', KEYS[1])
+redis.call('ZREM', KEYS[2], ARGV[1])
+return 1
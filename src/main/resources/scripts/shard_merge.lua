@@ -0,0 +1,26 @@
+-- KEYS[1] = 버킷 수 키, KEYS[2] = 단일 재고 카운터 키, KEYS[3] = DB 미반영 상품 ID 집합, KEYS[4] = 핫 상품 ID 집합, KEYS[5] = DB 미반영 변경량 키,
+-- KEYS[6..] = 버킷 키, 이어서 같은 순서의 버킷별 DB 미반영 변경량 키
+-- ARGV[1] = 상품 ID, ARGV[2] = 카운터 TTL(초)
+-- 반환값: nil = 핫 상품이 아니거나 버킷 수 불일치, 0 이상 = 합친 총 재고
+local buckets = (#KEYS - 5) / 2
+if tonumber(redis.call('GET', KEYS[1]) or '0') ~= buckets then
+    return nil
+end
+
+local total = 0
+local pending = 0
+for i = 1, buckets do
+    total = total + tonumber(redis.call('GET', KEYS[5 + i]) or '0')
+    pending = pending + tonumber(redis.call('GET', KEYS[5 + buckets + i]) or '0')
+    redis.call('DEL', KEYS[5 + i], KEYS[5 + buckets + i])
+end
+
+-- 버킷에 남아 있던 미반영 변경량은 단일 카운터의 변경량으로 옮겨 다음 flush 에서 DB 에 더한다
+redis.call('SET', KEYS[2], total, 'EX', ARGV[2])
+if pending ~= 0 then
+    redis.call('INCRBY', KEYS[5], pending)
+end
+redis.call('DEL', KEYS[1])
+redis.call('SADD', KEYS[3], ARGV[1])
+redis.call('SREM', KEYS[4], ARGV[1])
+return total
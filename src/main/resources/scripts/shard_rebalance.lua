@@ -0,0 +1,37 @@
+-- KEYS[1] = 버킷 수 키, KEYS[2..] = 버킷 키
+-- 반환값: nil = 핫 상품이 아니거나 버킷 수 불일치, 0 = 고르게 나뉘어 있음, 1 = 다시 나눔
+-- 총량은 그대로이므로 버킷별 DB 미반영 변경량은 건드리지 않는다 (flush 는 상품별 합계만 DB 에 더한다)
+local buckets = #KEYS - 1
+if tonumber(redis.call('GET', KEYS[1]) or '0') ~= buckets then
+    return nil
+end
+
+local total = 0
+local min = nil
+local max = nil
+for i = 1, buckets do
+    local stock = tonumber(redis.call('GET', KEYS[1 + i]) or '0')
+    total = total + stock
+    if min == nil or stock < min then
+        min = stock
+    end
+    if max == nil or stock > max then
+        max = stock
+    end
+end
+
+-- 버킷 간 차이가 평균의 절반을 넘을 때만 다시 고르게 나눈다
+if max - min <= math.max(1, math.floor(total / buckets / 2)) then
+    return 0
+end
+
+local base = math.floor(total / buckets)
+local remainder = total % buckets
+for i = 1, buckets do
+    local qty = base
+    if i <= remainder then
+        qty = qty + 1
+    end
+    redis.call('SET', KEYS[1 + i], qty)
+end
+return 1
@@ -0,0 +1,29 @@
+-- KEYS[1] = 버킷 수 키, KEYS[2] = 단일 재고 카운터 키, KEYS[3] = DB 미반영 상품 ID 집합, KEYS[4] = 핫 상품 ID 집합, KEYS[5] = DB 미반영 변경량 키, KEYS[6..] = 버킷 키
+-- ARGV[1] = 단일 카운터가 없을 때 사용할 DB 재고, ARGV[2] = 상품 ID
+-- 반환값: -1 = 이미 핫 상품, 0 이상 = 분할한 총 재고
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return -1
+end
+
+local total = tonumber(redis.call('GET', KEYS[2]) or '-1')
+if total < 0 then
+    -- 카운터가 만료됐으면 DB 재고에 아직 반영되지 않은 변경량을 더한다
+    total = tonumber(ARGV[1]) + tonumber(redis.call('GET', KEYS[5]) or '0')
+end
+local buckets = #KEYS - 5
+local base = math.floor(total / buckets)
+local remainder = total % buckets
+
+for i = 1, buckets do
+    local qty = base
+    if i <= remainder then
+        qty = qty + 1
+    end
+    redis.call('SET', KEYS[5 + i], qty)
+end
+
+redis.call('SET', KEYS[1], buckets)
+redis.call('DEL', KEYS[2])
+redis.call('SADD', KEYS[3], ARGV[2])
+redis.call('SADD', KEYS[4], ARGV[2])
+return total
@@ -0,0 +1,49 @@
+-- KEYS[1] = 버킷 수 키, KEYS[2..] = 버킷 키 (먼저 시도할 버킷부터), 이어서 같은 순서의 버킷별 DB 미반영 변경량 키
+-- ARGV[1] = 변경량
+-- 반환값: nil = 핫 상품이 아니거나 버킷 수 불일치, 0 이상 = 변경 후 총 재고, 음수 = 재고 부족 (-(총 재고) - 1)
+-- 상품의 키는 모두 같은 해시 태그를 쓰므로 한 스크립트 안에서 버킷을 넘나들며 원자적으로 차감한다
+local buckets = (#KEYS - 1) / 2
+if tonumber(redis.call('GET', KEYS[1]) or '0') ~= buckets then
+    return nil
+end
+
+local stocks = {}
+local total = 0
+for i = 1, buckets do
+    stocks[i] = tonumber(redis.call('GET', KEYS[1 + i]) or '0')
+    total = total + stocks[i]
+end
+
+local delta = tonumber(ARGV[1])
+if total + delta < 0 then
+    return -total - 1
+end
+
+if delta >= 0 then
+    redis.call('INCRBY', KEYS[2], delta)
+    redis.call('INCRBY', KEYS[2 + buckets], delta)
+    return total + delta
+end
+
+-- 한 버킷으로 채울 수 있으면 그 버킷에서만 차감하고, 아니면 앞에서부터 남은 만큼씩 가져온다
+local need = -delta
+for i = 1, buckets do
+    if stocks[i] >= need then
+        redis.call('DECRBY', KEYS[1 + i], need)
+        redis.call('DECRBY', KEYS[1 + buckets + i], need)
+        return total + delta
+    end
+end
+
+for i = 1, buckets do
+    local take = math.min(stocks[i], need)
+    if take > 0 then
+        redis.call('DECRBY', KEYS[1 + i], take)
+        redis.call('DECRBY', KEYS[1 + buckets + i], take)
+        need = need - take
+    end
+    if need == 0 then
+        break
+    end
+end
+return total + delta
@@ -0,0 +1,14 @@
+-- KEYS[1] = 재고 카운터 키, KEYS[2] = DB 미반영 변경량 키
+-- ARGV[1] = flush 직후 DB 재고, ARGV[2] = 카운터 TTL(초)
+-- 반환값: nil = 카운터 없음 (다음 요청에서 DB 로 초기화), 0 이상 = 다시 맞춘 재고
+-- flush 로 DB 에 반영된 뒤 카운터를 DB 재고 + 아직 남은 변경량으로 맞춰 다른 전략의 변경을 카운터에 반영한다
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return nil
+end
+
+local stock = tonumber(ARGV[1]) + tonumber(redis.call('GET', KEYS[2]) or '0')
+if stock < 0 then
+    stock = 0
+end
+redis.call('SET', KEYS[1], stock, 'EX', ARGV[2])
+return stock
@@ -0,0 +1,27 @@
+-- KEYS[1] = 재고 카운터 키, KEYS[2] = DB 미반영 상품 ID 집합, KEYS[3] = 핫 상품 버킷 수 키, KEYS[4] = DB 미반영 변경량 키
+-- ARGV[1] = 변경량, ARGV[2] = 카운터가 없을 때 사용할 DB 재고 (빈 문자열이면 로딩 요청), ARGV[3] = 상품 ID, ARGV[4] = 카운터 TTL(초)
+-- 반환값: nil = 카운터 미적재 또는 핫 상품, 0 이상 = 변경 후 재고, 음수 = 재고 부족 (-(현재 재고) - 1)
+if redis.call('EXISTS', KEYS[3]) == 1 then
+    return nil
+end
+
+local current = redis.call('GET', KEYS[1])
+if not current then
+    if ARGV[2] == '' then
+        return nil
+    end
+    -- DB 에 아직 반영되지 않은 변경량을 더해야 카운터가 만료된 뒤에도 flush 전의 차감이 사라지지 않는다
+    current = tonumber(ARGV[2]) + tonumber(redis.call('GET', KEYS[4]) or '0')
+end
+
+local stock = tonumber(current)
+local newStock = stock + tonumber(ARGV[1])
+if newStock < 0 then
+    return -stock - 1
+end
+
+-- 카운터는 DB 재고의 캐시이므로 TTL 을 두어, 다른 전략이 바꾼 DB 재고를 주기적으로 다시 읽게 한다
+redis.call('SET', KEYS[1], newStock, 'EX', ARGV[4])
+redis.call('INCRBY', KEYS[4], ARGV[1])
+redis.call('SADD', KEYS[2], ARGV[3])
+return newStock
@@ -0,0 +1,55 @@
+package com.study.redis_test.harness;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ZipfKeySamplerTest {
+
+    private static final int SAMPLES = 200_000;
+
+    @Test
+    @DisplayName("순번 k 의 빈도가 1/(k+1)^s 에 비례한다")
+    void followsZipfDistribution() {
+        int[] counts = sample(new ZipfKeySampler(10, 1.0), 10);
+        
+        double harmonic = 0;
+        for (int k = 1; k <= 10; k++) {
+            harmonic += 1.0 / k;
+        }
+        assertThat((double) counts[0] / SAMPLES).isCloseTo(1.0 / harmonic, within(0.01));
+        assertThat((double) counts[1] / SAMPLES).isCloseTo(0.5 / harmonic, within(0.01));
+        assertThat((double) counts[9] / SAMPLES).isCloseTo(0.1 / harmonic, within(0.01));
+    }
+
+    @Test
+    @DisplayName("지수가 0 이면 모든 상품이 고르게 뽑힌다")
+    void zeroExponentIsUniform() {
+        int[] counts = sample(new ZipfKeySampler(4, 0.0), 4);
+        
+        for (int count : counts) {
+            assertThat((double) count / SAMPLES).isCloseTo(0.25, within(0.01));
+        }
+    }
+
+    @Test
+    @DisplayName("상품이 하나면 항상 0 을 뽑는다")
+    void singleKey() {
+        int[] counts = sample(new ZipfKeySampler(1, 1.2), 1);
+        
+        assertThat(counts[0]).isEqualTo(SAMPLES);
+    }
+
+    private static int[] sample(KeySampler sampler, int keyCount) {
+        SplittableRandom random = new SplittableRandom(42);
+        int[] counts = new int[keyCount];
+        for (int i = 0; i < SAMPLES; i++) {
+            counts[sampler.next(random)]++;
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,138 @@
+package com.study.redis_test.idempotency;
+
+import com.study.redis_test.dto.ProductCreateRequest;
+import com.study.redis_test.entity.Product;
+import com.study.redis_test.repository.ProductRepository;
+import com.study.redis_test.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class IdempotencyFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        ProductCreateRequest createRequest = ProductCreateRequest.builder()
+                .sku("TEST-IDEMPOTENCY-" + UUID.randomUUID())
+                .name("멱등 테스트 상품")
+                .priceKrw(10000)
+                .stockQty(100)
+                .build();
+        productId = productService.createProduct(createRequest).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteById(productId);
+    }
+
+    @Test
+    @DisplayName("같은 Idempotency-Key 로 다시 보내면 재고를 다시 바꾸지 않고 저장된 응답을 돌려준다")
+    void replaysStoredResponse() throws Exception {
+        String key = UUID.randomUUID().toString();
+
+        MvcResult first = mockMvc.perform(stockRequest(key, -3))
+                .andExpect(status().isOk())
+                .andReturn();
+        mockMvc.perform(stockRequest(key, -3))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andExpect(result -> assertThat(result.getResponse().getContentAsString())
+                        .isEqualTo(first.getResponse().getContentAsString()));
+
+        assertThat(stockQty()).isEqualTo(97);
+    }
+
+    @Test
+    @DisplayName("같은 키로 다른 본문을 보내면 422 로 거절한다")
+    void rejectsDifferentRequestWithSameKey() throws Exception {
+        String key = UUID.randomUUID().toString();
+
+        mockMvc.perform(stockRequest(key, -1))
+                .andExpect(status().isOk());
+        mockMvc.perform(stockRequest(key, -2))
+                .andExpect(status().isUnprocessableEntity());
+
+        assertThat(stockQty()).isEqualTo(99);
+    }
+
+    @Test
+    @DisplayName("같은 키로 동시에 보낸 요청 중 하나만 재고를 바꾼다")
+    void concurrentRequestsWithSameKeyApplyOnce() throws InterruptedException {
+        String key = UUID.randomUUID().toString();
+        int threadCount = 10;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        AtomicInteger okCount = new AtomicInteger(0);
+        AtomicInteger conflictCount = new AtomicInteger(0);
+
+        for (int i = 0; i < threadCount; i++) {
+            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+                try {
+                    int status = mockMvc.perform(stockRequest(key, -1)).andReturn().getResponse().getStatus();
+                    if (status == 200) {
+                        okCount.incrementAndGet();
+                    } else if (status == 409) {
+                        conflictCount.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    System.err.println("실패: " + e.getMessage());
+                }
+            }, executor);
+            futures.add(future);
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        executor.shutdown();
+
+        assertThat(okCount.get() + conflictCount.get()).isEqualTo(threadCount);
+        assertThat(stockQty()).isEqualTo(99);
+    }
+
+    private RequestBuilder stockRequest(String key, int quantity) {
+        return patch("/api/products/{id}/stock", productId)
+                .header(IdempotencyFilter.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quantity\": " + quantity + "}");
+    }
+
+    private int stockQty() {
+        return productRepository.findById(productId).map(Product::getStockQty).orElseThrow();
+    }
+}
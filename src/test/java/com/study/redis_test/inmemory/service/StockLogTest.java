@@ -0,0 +1,61 @@
+package com.study.redis_test.inmemory.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StockLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("재시작 시 닫히지 않은 세그먼트의 기록을 다시 읽을 수 있다")
+    void replayAfterRestart() throws Exception {
+        StockLog stockLog = new StockLog(directory, false);
+        stockLog.append(1L, StockCells.pack(1, 99));
+        stockLog.append(1L, StockCells.pack(2, 98));
+        stockLog.append(2L, StockCells.pack(1, 5));
+        stockLog.close();
+        
+        Map<Long, Long> latest = new HashMap<>();
+        new StockLog(directory, false).replay(latest::put);
+        
+        assertThat(latest).containsEntry(1L, StockCells.pack(2, 98));
+        assertThat(latest).containsEntry(2L, StockCells.pack(1, 5));
+    }
+
+    @Test
+    @DisplayName("체크포인트 후 삭제한 세그먼트는 재적용하지 않는다")
+    void deletedSegmentsAreNotReplayed() throws Exception {
+        StockLog stockLog = new StockLog(directory, false);
+        stockLog.append(1L, StockCells.pack(1, 99));
+        long closed = stockLog.rotate();
+        stockLog.append(1L, StockCells.pack(2, 98));
+        stockLog.writeCheckpoint(Map.of(1L, StockCells.pack(1, 99)));
+        stockLog.deleteSegmentsUpTo(closed);
+        stockLog.close();
+        
+        StockLog restarted = new StockLog(directory, false);
+        Map<Long, Long> replayed = new HashMap<>();
+        restarted.replay(replayed::put);
+        
+        assertThat(restarted.readCheckpoint()).containsEntry(1L, StockCells.pack(1, 99));
+        assertThat(replayed).containsOnlyKeys(1L).containsEntry(1L, StockCells.pack(2, 98));
+    }
+
+    @Test
+    @DisplayName("버전과 재고를 하나의 long 으로 묶고 다시 풀 수 있다")
+    void packAndUnpack() {
+        long packed = StockCells.pack(7, 1_000_000);
+        
+        assertThat(StockCells.versionOf(packed)).isEqualTo(7);
+        assertThat(StockCells.stockOf(packed)).isEqualTo(1_000_000);
+    }
+}
@@ -0,0 +1,151 @@
+package com.study.redis_test.redisstock.service;
+
+import com.study.redis_test.entity.ProductPlain;
+import com.study.redis_test.repository.ProductPlainRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class HotStockShardServiceTest {
+
+    @Autowired
+    private HotStockShardService hotStockShardService;
+
+    @Autowired
+    private RedisStockService redisStockService;
+
+    @Autowired
+    private RedisStockFlushScheduler redisStockFlushScheduler;
+
+    @Autowired
+    private ProductPlainRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Long> productIds = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        for (Long id : productIds) {
+            if (hotStockShardService.getTotalStock(id) != null) {
+                hotStockShardService.unmarkHot(id);
+            }
+            redisStockFlushScheduler.flush();
+            productRepository.deleteById(id);
+        }
+    }
+
+    @Test
+    @DisplayName("핫 상품의 동시 차감은 버킷에 나뉘어 처리되고, 총 재고를 넘어 팔지 않는다")
+    void concurrentDecrementsNeverOversell() throws InterruptedException {
+        Long id = createProduct(100);
+        hotStockShardService.markHot(id, 4);
+
+        int threadCount = 20;
+        int requestCount = 120;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        AtomicInteger successCount = new AtomicInteger(0);
+        AtomicInteger failCount = new AtomicInteger(0);
+
+        for (int i = 0; i < requestCount; i++) {
+            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+                try {
+                    redisStockService.updateStock(id, -1);
+                    successCount.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    failCount.incrementAndGet();
+                }
+            }, executor);
+            futures.add(future);
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        executor.shutdown();
+
+        assertThat(successCount.get()).isEqualTo(100);
+        assertThat(failCount.get()).isEqualTo(20);
+        assertThat(hotStockShardService.getTotalStock(id)).isZero();
+        assertThat(hotStockShardService.readBuckets(id)).allMatch(qty -> qty == 0);
+    }
+
+    @Test
+    @DisplayName("한 버킷으로 채울 수 없는 차감은 여러 버킷에서 가져오고, 총 재고가 모자라면 아무것도 차감하지 않는다")
+    void decrementLargerThanOneBucket() {
+        Long id = createProduct(10);
+        hotStockShardService.markHot(id, 4);
+
+        assertThat(redisStockService.updateStock(id, -7).getStockQty()).isEqualTo(3);
+        assertThat(hotStockShardService.getTotalStock(id)).isEqualTo(3);
+
+        assertThatThrownBy(() -> redisStockService.updateStock(id, -4))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("재고가 부족합니다");
+        assertThat(hotStockShardService.getTotalStock(id)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("차감 응답의 재고는 처리한 버킷이 아니라 상품 전체의 남은 재고다")
+    void updateReturnsTotalStock() {
+        Long id = createProduct(40);
+        hotStockShardService.markHot(id, 4);
+
+        assertThat(redisStockService.updateStock(id, -1).getStockQty()).isEqualTo(39);
+        assertThat(redisStockService.updateStock(id, 5).getStockQty()).isEqualTo(44);
+    }
+
+    @Test
+    @DisplayName("flush 는 버킷의 변경량만 DB 에 더하므로, 그 사이 DB 에 직접 들어온 입고가 사라지지 않는다")
+    void flushAppliesBucketDeltas() {
+        Long id = createProduct(50);
+        hotStockShardService.markHot(id, 4);
+
+        redisStockService.updateStock(id, -5);
+        transactionTemplate.executeWithoutResult(status -> productRepository.addStockQty(id, 10));
+        redisStockFlushScheduler.flush();
+
+        assertThat(productRepository.findStockQtyById(id)).contains(55);
+    }
+
+    @Test
+    @DisplayName("핫 상품을 해제하면 버킷 합계가 단일 카운터로 돌아간다")
+    void unmarkMergesBuckets() {
+        Long id = createProduct(40);
+        hotStockShardService.markHot(id, 8);
+        redisStockService.updateStock(id, -15);
+
+        int total = hotStockShardService.unmarkHot(id);
+
+        assertThat(total).isEqualTo(25);
+        assertThat(hotStockShardService.getTotalStock(id)).isNull();
+        assertThat(redisStockService.getStock(id)).isEqualTo(25);
+    }
+
+    private Long createProduct(int stockQty) {
+        ProductPlain product = productRepository.save(ProductPlain.builder()
+                .sku("TEST-HOT-" + UUID.randomUUID())
+                .name("핫 상품 테스트")
+                .priceKrw(10000L)
+                .stockQty(stockQty)
+                .build());
+        productIds.add(product.getId());
+        return product.getId();
+    }
+}
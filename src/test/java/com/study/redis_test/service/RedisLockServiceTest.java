@@ -0,0 +1,114 @@
+package com.study.redis_test.service;
+
+import com.study.redis_test.dto.ConcurrentTestRequest;
+import com.study.redis_test.dto.ConcurrentTestResult;
+import com.study.redis_test.harness.ConcurrentTestRunner;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "stock.redis-lock.local-striping.enabled=true")
+class RedisLockServiceTest {
+
+    private static final long LEASE_MILLIS = 400;
+
+    @Autowired
+    private RedisLockService redisLockService;
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Autowired
+    private ConcurrentTestRunner concurrentTestRunner;
+
+    @Test
+    @DisplayName("로컬 대기자에게 락을 넘길 때 lease 가 연장되어, 넘겨받은 작업도 lease 안에서 끝나고 다른 노드와 겹치지 않는다")
+    void testHandOffRenewsLease() {
+        String lockKey = "test:lock:handoff:" + UUID.randomUUID();
+        int threadCount = 8;
+        int operationCount = 32;
+
+        AtomicInteger active = new AtomicInteger(0);
+        AtomicBoolean foreignHeld = new AtomicBoolean(false);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger sequence = new AtomicInteger(0);
+        AtomicInteger shortLeaseCount = new AtomicInteger(0);
+        AtomicInteger overlapCount = new AtomicInteger(0);
+
+        // 다른 노드 역할: Redis 락이 풀려 있을 때만 잠깐 잡는다. lease 가 만료된 채 넘겨졌다면 로컬 작업 도중에 잡힌다
+        CompletableFuture<Void> foreignNode = CompletableFuture.runAsync(() -> {
+            RLock foreignLock = redissonClient.getLock(lockKey);
+            while (running.get()) {
+                try {
+                    if (foreignLock.tryLock(0, 50, TimeUnit.MILLISECONDS)) {
+                        foreignHeld.set(true);
+                        if (active.get() > 0) {
+                            overlapCount.incrementAndGet();
+                        }
+                        Thread.sleep(5);
+                        foreignHeld.set(false);
+                        foreignLock.unlock();
+                    }
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    foreignHeld.set(false);
+                }
+            }
+        });
+
+        ConcurrentTestRequest request = ConcurrentTestRequest.builder()
+                .quantity(0)
+                .concurrentCount(operationCount)
+                .build();
+        ConcurrentTestResult result;
+        try {
+            result = concurrentTestRunner.run(request, threadCount, "REDIS_DISTRIBUTED_LOCK", () -> {
+                // 짧은 작업 뒤에 긴 작업이 넘겨받으면, lease 를 연장하지 않았을 때 작업 도중 lease 가 만료된다
+                long workMillis = sequence.getAndIncrement() % 2 == 0 ? 190 : 300;
+                redisLockService.executeWithLock(lockKey, 30, LEASE_MILLIS, TimeUnit.MILLISECONDS, () -> {
+                    active.incrementAndGet();
+                    try {
+                        if (foreignHeld.get()) {
+                            overlapCount.incrementAndGet();
+                        }
+                        if (redissonClient.getLock(lockKey).remainTimeToLive() <= workMillis) {
+                            shortLeaseCount.incrementAndGet();
+                        }
+                        Thread.sleep(workMillis);
+                        if (foreignHeld.get()) {
+                            overlapCount.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException(e);
+                    } finally {
+                        active.decrementAndGet();
+                    }
+                    return null;
+                });
+            }, () -> 0);
+        } finally {
+            running.set(false);
+            foreignNode.join();
+        }
+
+        assertThat(result.getSuccessCount()).isEqualTo(operationCount);
+        assertThat(result.getFailCount()).isZero();
+        assertThat(shortLeaseCount.get()).isZero();
+        assertThat(overlapCount.get()).isZero();
+    }
+}
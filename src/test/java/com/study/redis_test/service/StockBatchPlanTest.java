@@ -0,0 +1,98 @@
+package com.study.redis_test.service;
+
+import com.study.redis_test.dto.StockBatchRequest;
+import com.study.redis_test.dto.StockBatchResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class StockBatchPlanTest {
+
+    @Test
+    @DisplayName("모든 항목을 반영할 수 있으면 요청 순서대로 누적한 최종 재고를 돌려준다")
+    void appliesAllItemsInOrder() {
+        StockBatchRequest request = request(item(2L, -3), item(1L, -1), item(2L, 5));
+
+        StockBatchPlan plan = StockBatchPlan.of(request, Map.of(1L, 10, 2L, 4));
+
+        assertThat(plan.isApplicable()).isTrue();
+        assertThat(plan.getFinalStocks()).containsExactly(Map.entry(1L, 9), Map.entry(2L, 6));
+
+        StockBatchResponse response = plan.toResponse();
+        assertThat(response.isApplied()).isTrue();
+        assertThat(response.getResults())
+                .extracting(StockBatchResponse.ItemResult::getStatus, StockBatchResponse.ItemResult::getStockQty)
+                .containsExactly(
+                        tuple(StockBatchResponse.Status.APPLIED, 1),
+                        tuple(StockBatchResponse.Status.APPLIED, 9),
+                        tuple(StockBatchResponse.Status.APPLIED, 6));
+    }
+
+    @Test
+    @DisplayName("한 항목이라도 재고가 부족하면 앞서 계산한 항목도 되돌린 것으로 표시한다")
+    void rollsBackWhenAnyItemIsInsufficient() {
+        StockBatchRequest request = request(item(1L, -2), item(2L, -5));
+
+        StockBatchPlan plan = StockBatchPlan.of(request, Map.of(1L, 10, 2L, 4));
+
+        assertThat(plan.isApplicable()).isFalse();
+        StockBatchResponse response = plan.toResponse();
+        assertThat(response.isApplied()).isFalse();
+        assertThat(response.getResults().get(0).getStatus()).isEqualTo(StockBatchResponse.Status.ROLLED_BACK);
+        assertThat(response.getResults().get(0).getStockQty()).isEqualTo(10);
+        assertThat(response.getResults().get(1).getStatus()).isEqualTo(StockBatchResponse.Status.INSUFFICIENT_STOCK);
+        assertThat(response.getResults().get(1).getStockQty()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("같은 상품의 앞선 차감이 뒤 항목의 재고 판단에 반영된다")
+    void earlierItemsReduceStockForLaterItems() {
+        StockBatchRequest request = request(item(1L, -3), item(1L, -3));
+
+        StockBatchPlan plan = StockBatchPlan.of(request, Map.of(1L, 5));
+
+        assertThat(plan.isApplicable()).isFalse();
+        assertThat(plan.toResponse().getResults())
+                .extracting(StockBatchResponse.ItemResult::getStatus)
+                .containsExactly(StockBatchResponse.Status.ROLLED_BACK, StockBatchResponse.Status.INSUFFICIENT_STOCK);
+    }
+
+    @Test
+    @DisplayName("없는 상품이 있으면 반영하지 않고 NOT_FOUND 로 표시한다")
+    void missingProductIsNotFound() {
+        StockBatchRequest request = request(item(1L, -1), item(3L, -1));
+
+        StockBatchPlan plan = StockBatchPlan.of(request, Map.of(1L, 5));
+
+        assertThat(plan.isApplicable()).isFalse();
+        assertThat(plan.toResponse().getResults())
+                .extracting(StockBatchResponse.ItemResult::getStatus)
+                .containsExactly(StockBatchResponse.Status.ROLLED_BACK, StockBatchResponse.Status.NOT_FOUND);
+    }
+
+    @Test
+    @DisplayName("락 획득 순서는 중복을 뺀 오름차순 ID 이다")
+    void sortedIdsAreDistinctAndAscending() {
+        StockBatchRequest request = request(item(3L, -1), item(1L, -1), item(3L, 2), item(2L, 1));
+
+        assertThat(StockBatchPlan.sortedIds(request)).containsExactly(1L, 2L, 3L);
+    }
+
+    private static StockBatchRequest request(StockBatchRequest.Item... items) {
+        return StockBatchRequest.builder()
+                .items(Arrays.asList(items))
+                .build();
+    }
+
+    private static StockBatchRequest.Item item(Long id, int quantity) {
+        return StockBatchRequest.Item.builder()
+                .id(id)
+                .quantity(quantity)
+                .build();
+    }
+}
@@ -0,0 +1,120 @@
+package com.study.redis_test.soldout.service;
+
+import com.study.redis_test.cache.service.ProductCacheService;
+import com.study.redis_test.entity.ProductPlain;
+import com.study.redis_test.repository.ProductPlainRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RSet;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "stock.sold-out.enabled=true")
+class SoldOutRegistryTest {
+
+    @Autowired
+    private SoldOutRegistry soldOutRegistry;
+
+    @Autowired
+    private ProductPlainRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    private Long productId;
+
+    @AfterEach
+    void tearDown() {
+        if (productId != null) {
+            soldOutRegistry.onStockReset(ProductCacheService.PLAIN, productId, 1);
+            productRepository.deleteById(productId);
+        }
+    }
+
+    @Test
+    @DisplayName("재고가 0 이 되면 이후의 차감은 바로 거절하고, 입고는 통과시킨다")
+    void rejectsDecrementsAfterSoldOut() {
+        productId = createProduct(0);
+
+        soldOutRegistry.onStockChanged(ProductCacheService.PLAIN, productId, 1, 0);
+
+        assertThatThrownBy(() -> soldOutRegistry.checkAvailable(ProductCacheService.PLAIN, productId, -1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("재고가 부족합니다");
+        assertThatCode(() -> soldOutRegistry.checkAvailable(ProductCacheService.PLAIN, productId, 5))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("재고가 다시 생기면 품절 표시를 풀어 차감을 받는다")
+    void restockClearsSoldOut() {
+        productId = createProduct(0);
+        soldOutRegistry.onStockChanged(ProductCacheService.PLAIN, productId, 1, 0);
+
+        transactionTemplate.executeWithoutResult(status -> productRepository.addStockQty(productId, 5));
+        soldOutRegistry.onStockChanged(ProductCacheService.PLAIN, productId, 0, 5);
+
+        assertThatCode(() -> soldOutRegistry.checkAvailable(ProductCacheService.PLAIN, productId, -1))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("다른 노드가 남긴 품절 표시를 이 노드가 아직 몰라도, 0 에서 재고가 생기면 표시를 푼다")
+    void restockClearsMarkThisNodeHasNotSeen() {
+        productId = createProduct(5);
+        String member = ProductCacheService.PLAIN + ":" + productId;
+        RSet<String> members = redissonClient.getSet("product:soldout", StringCodec.INSTANCE);
+        members.add(member);
+
+        soldOutRegistry.onStockChanged(ProductCacheService.PLAIN, productId, 0, 5);
+
+        assertThat(members.contains(member)).isFalse();
+    }
+
+    @Test
+    @DisplayName("표시하는 사이 DB 에 재고가 남아 있으면 품절로 표시하지 않는다")
+    void doesNotMarkWhenPrimaryStillHasStock() {
+        productId = createProduct(3);
+
+        soldOutRegistry.onStockChanged(ProductCacheService.PLAIN, productId, 1, 0);
+
+        assertThatCode(() -> soldOutRegistry.checkAvailable(ProductCacheService.PLAIN, productId, -1))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("롤백된 트랜잭션 안의 변경으로는 품절이 되지 않는다")
+    void rolledBackChangeDoesNotMark() {
+        productId = createProduct(0);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            soldOutRegistry.onStockChanged(ProductCacheService.PLAIN, productId, 1, 0);
+            status.setRollbackOnly();
+        });
+
+        assertThatCode(() -> soldOutRegistry.checkAvailable(ProductCacheService.PLAIN, productId, -1))
+                .doesNotThrowAnyException();
+    }
+
+    private Long createProduct(int stockQty) {
+        return productRepository.save(ProductPlain.builder()
+                .sku("TEST-SOLDOUT-" + UUID.randomUUID())
+                .name("품절 테스트 상품")
+                .priceKrw(10000L)
+                .stockQty(stockQty)
+                .build()).getId();
+    }
+}